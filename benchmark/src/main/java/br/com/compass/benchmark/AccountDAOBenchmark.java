@@ -0,0 +1,72 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.Account;
+import br.com.compass.model.exception.LoginException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDAOBenchmark {
+
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(accounts, roundTripMicros, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Account loginAccount() {
+        return fixture.getAccountDAO().loginAccount(String.valueOf(randomAccount()), BenchmarkFixture.PASSWORD);
+    }
+
+    @Benchmark
+    public Account rejectedLogin() {
+        try {
+            return fixture.getAccountDAO().loginAccount(String.valueOf(randomAccount()), "wrong-password");
+        } catch (LoginException exc) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public void updateAccount() {
+        Account account = fixture.getAccountDAO().getAccount(randomAccount(), true);
+        account.setActive(true);
+        fixture.getAccountDAO().updateAccount(account);
+    }
+
+    private long randomAccount() {
+        return ThreadLocalRandom.current().nextLong(1, accounts + 1);
+    }
+}
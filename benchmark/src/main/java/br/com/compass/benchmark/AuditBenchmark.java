@@ -0,0 +1,88 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.audit.AuditLog;
+import br.com.compass.model.dao.PostingDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"console", "DROP", "BLOCK"})
+    public String sink;
+
+    @Param({"100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+    private PostingDAO postingDAO;
+    private PrintStream console;
+    private AuditLog auditLog;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = new BenchmarkFixture(ACCOUNTS, roundTripMicros, false);
+        postingDAO = fixture.getPostingDAO();
+        if (sink.equals("console")) {
+            console = new PrintStream(new FileOutputStream(FileDescriptor.out), true);
+        } else {
+            directory = Files.createTempDirectory("audit-benchmark");
+            auditLog = new AuditLog(directory, 65_536, 64 << 20, 4, 1024, 20, false,
+                    AuditLog.FullPolicy.valueOf(sink));
+            AuditLog.install(auditLog);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (auditLog != null) {
+            auditLog.close();
+            BenchmarkFixture.console().println("audit: " + auditLog.getStats());
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        fixture.close();
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        BigDecimal balance = postingDAO.deposit(ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1),
+                BigDecimal.ONE);
+        if (console != null) {
+            console.println("Transaction successful!\n");
+        }
+        return balance;
+    }
+}
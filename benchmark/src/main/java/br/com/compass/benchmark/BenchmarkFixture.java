@@ -0,0 +1,129 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.benchmark.fake.FakeDatabase;
+import br.com.compass.benchmark.fake.FakeDriver;
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.model.cache.AccountCache;
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.BalanceSnapshotDAO;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.dao.TransactionDAO;
+import br.com.compass.security.CredentialVerifier;
+import br.com.compass.security.LoginThrottle;
+import br.com.compass.security.PasswordHasher;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+public class BenchmarkFixture {
+
+    public static final String PASSWORD = "secret1";
+
+    private static final PrintStream CONSOLE = System.out;
+
+    private final List<FakeDatabase> databases = new ArrayList<>();
+    private final List<ConnectionPool> pools = new ArrayList<>();
+    private final ShardRouter shards;
+    private final CredentialVerifier verifier;
+    private final AccountDAO accountDAO;
+    private final BalanceSnapshotDAO snapshotDAO;
+    private final TransactionDAO transactionDAO;
+    private final PostingDAO postingDAO;
+
+    public BenchmarkFixture(int accounts, long roundTripMicros, boolean retainTransactions) {
+        this(accounts, roundTripMicros, retainTransactions, 1, 0);
+    }
+
+    public BenchmarkFixture(int accounts, long roundTripMicros, boolean retainTransactions, int shardCount,
+                            int capacity) {
+        this(accounts, roundTripMicros, retainTransactions, shardCount, capacity, 64);
+    }
+
+    public BenchmarkFixture(int accounts, long roundTripMicros, boolean retainTransactions, int shardCount,
+                            int capacity, int statementCacheSize) {
+        PasswordHasher hasher = new PasswordHasher(210_000);
+        String passwordHash = hasher.hash(PASSWORD);
+
+        List<ReplicaRouter> routers = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            FakeDatabase database = new FakeDatabase(roundTripMicros, retainTransactions, capacity);
+            Properties properties = new Properties();
+            properties.setProperty("dburl", FakeDriver.register(UUID.randomUUID().toString(), database));
+            properties.setProperty("pool.minSize", "4");
+            properties.setProperty("pool.maxSize", "256");
+            properties.setProperty("pool.leakDetectionMs", "0");
+            properties.setProperty("pool.statementCacheSize", String.valueOf(statementCacheSize));
+            ConnectionPool pool = new ConnectionPool(properties);
+            databases.add(database);
+            pools.add(pool);
+            routers.add(ReplicaRouter.primaryOnly(pool));
+        }
+        shards = shardCount == 1 ? ShardRouter.single(routers.get(0))
+                : new ShardRouter(routers, IntStream.range(0, shardCount).boxed().toList(), Map.of(), 128, 0);
+        for (long number = 1; number <= accounts; number++) {
+            databases.get(shards.shardOf(number)).addAccount(number, passwordHash, new BigDecimal("1000000.00"));
+        }
+
+        AccountCache cache = new AccountCache(Math.max(16, accounts), 30_000);
+        verifier = new CredentialVerifier(hasher, new LoginThrottle(5, 300_000, 900_000),
+                Runtime.getRuntime().availableProcessors(), 1024);
+        accountDAO = new AccountDAO(shards, cache, verifier);
+        snapshotDAO = new BalanceSnapshotDAO(shards);
+        transactionDAO = new TransactionDAO(shards, accountDAO, snapshotDAO);
+        postingDAO = new PostingDAO(shards, transactionDAO, cache, new IdempotencyCache(100_000, 86_400_000));
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    public static PrintStream console() {
+        return CONSOLE;
+    }
+
+    public FakeDatabase getDatabase() {
+        return databases.get(0);
+    }
+
+    public List<FakeDatabase> getDatabases() {
+        return databases;
+    }
+
+    public ConnectionPool getPool() {
+        return pools.get(0);
+    }
+
+    public ShardRouter getShardRouter() {
+        return shards;
+    }
+
+    public AccountDAO getAccountDAO() {
+        return accountDAO;
+    }
+
+    public BalanceSnapshotDAO getSnapshotDAO() {
+        return snapshotDAO;
+    }
+
+    public TransactionDAO getTransactionDAO() {
+        return transactionDAO;
+    }
+
+    public PostingDAO getPostingDAO() {
+        return postingDAO;
+    }
+
+    public void close() {
+        System.setOut(CONSOLE);
+        verifier.shutdown();
+        pools.forEach(ConnectionPool::close);
+    }
+}
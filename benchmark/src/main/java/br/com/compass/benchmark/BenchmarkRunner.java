@@ -0,0 +1,32 @@
+package br.com.compass.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "br.com.compass.benchmark.*";
+        String[] threadCounts = (args.length > 1 ? args[1] : "1,4,16").split(",");
+        String outputDir = args.length > 2 ? args[2] : "benchmark-results";
+        String[] profilers = args.length > 3 ? args[3].split(",") : new String[0];
+
+        new File(outputDir).mkdirs();
+        for (String threads : threadCounts) {
+            ChainedOptionsBuilder builder = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(outputDir + "/jmh-threads-" + threads.trim() + ".json");
+            for (String profiler : profilers) {
+                builder = builder.addProfiler(profiler.trim());
+            }
+            new Runner(builder.build()).run();
+        }
+    }
+}
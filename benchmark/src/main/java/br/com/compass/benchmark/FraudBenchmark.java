@@ -0,0 +1,89 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.fraud.FraudCheck;
+import br.com.compass.fraud.FraudEngine;
+import br.com.compass.fraud.FraudLimits;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.PostingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudBenchmark {
+
+    private static final BigDecimal VALUE = new BigDecimal("25.00");
+
+    @Param({"1000", "100000"})
+    public int accounts;
+
+    @Param({"10"})
+    public int windowBuckets;
+
+    private BenchmarkFixture fixture;
+    private FraudEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(accounts, 0, false);
+        Properties properties = new Properties();
+        properties.setProperty("fraud.windowBuckets", String.valueOf(windowBuckets));
+        properties.setProperty("fraud.account.maxCount", "1000000000");
+        properties.setProperty("fraud.account.maxValue", "1000000000");
+        properties.setProperty("fraud.cpf.maxCount", "1000000000");
+        properties.setProperty("fraud.cpf.maxValue", "1000000000");
+        properties.setProperty("fraud.CHECKING.dailyWithdrawalCap", "1000000000");
+        engine = new FraudEngine(FraudLimits.fromProperties(properties), fixture.getAccountDAO());
+        for (long number = 1; number <= accounts; number++) {
+            engine.register(fixture.getAccountDAO().getAccount(number));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixture.console().println("fraud: " + engine.getStats());
+        fixture.close();
+    }
+
+    @Benchmark
+    public FraudCheck withdraw() {
+        return screen(TransactionType.WITHDRAWAL);
+    }
+
+    @Benchmark
+    public FraudCheck transfer() {
+        return screen(TransactionType.TRANSFER);
+    }
+
+    private FraudCheck screen(TransactionType type) {
+        long account = ThreadLocalRandom.current().nextLong(1, accounts + 1);
+        try {
+            FraudCheck check = engine.screen(type, account, VALUE);
+            engine.complete(check, true);
+            return check;
+        }
+        catch (PostingException exc) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.shard.ShardedPostingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotAccountBenchmark {
+
+    public static final int CUSTOMERS = 10_000;
+
+    @Param({"1", "10", "1000"})
+    public int hotAccounts;
+
+    @Param({"locking", "sharded"})
+    public String mode;
+
+    @Param({"8"})
+    public int shards;
+
+    @Param({"100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+    private ShardedPostingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(hotAccounts + CUSTOMERS, roundTripMicros, false);
+        if (mode.equals("sharded")) {
+            engine = new ShardedPostingEngine(fixture.getPostingDAO(), new IdempotencyCache(100_000, 86_400_000),
+                    shards, 256, 100_000, 1_000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (engine != null) {
+            engine.close();
+        }
+        fixture.close();
+    }
+
+    @Benchmark
+    public BigDecimal transferToHotAccount() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long origin = hotAccounts + random.nextLong(1, CUSTOMERS + 1);
+        long target = random.nextLong(1, hotAccounts + 1);
+        return engine == null
+                ? fixture.getPostingDAO().transfer(origin, target, BigDecimal.ONE)
+                : engine.transfer(null, origin, target, BigDecimal.ONE);
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.http.HttpApi;
+import br.com.compass.http.SessionStore;
+import br.com.compass.metrics.LatencyHistogram;
+import br.com.compass.service.BankService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class HttpLoadGenerator {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String target = args.length > 0 ? args[0] : "embedded";
+        String[] clientCounts = (args.length > 1 ? args[1] : "1,10,100,1000").split(",");
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int accounts = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        BenchmarkFixture fixture = null;
+        HttpApi api = null;
+        String baseUrl = target;
+        if (target.equals("embedded")) {
+            fixture = new BenchmarkFixture(accounts, 200, false);
+            BankService service = new BankService(fixture.getAccountDAO(), fixture.getTransactionDAO(),
+                    fixture.getPostingDAO(), fixture.getSnapshotDAO(), BankService.newWorkerPool(64), null,
+                    null);
+            api = new HttpApi(service, fixture.getPool(), 18080,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64,
+                    new SessionStore(900_000, 28_800_000, 60_000), BankService.newWorkerPool(256));
+            api.start();
+            baseUrl = "http://localhost:18080";
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(32))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        BenchmarkFixture.console().println("clients,requests,rejected,failures,requestsPerSecond,p50Micros,p99Micros,"
+                + "maxMicros");
+
+        for (String clientCount : clientCounts) {
+            int clients = Integer.parseInt(clientCount.trim());
+            LatencyHistogram latency = new LatencyHistogram();
+            LongAdder rejected = new LongAdder();
+            LongAdder failures = new LongAdder();
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<>(clients);
+            String base = baseUrl;
+
+            for (int i = 0; i < clients; i++) {
+                long account = i % accounts + 1;
+                Thread thread = new Thread(() -> {
+                    String token = login(client, base, account);
+                    if (token == null) {
+                        failures.increment();
+                        return;
+                    }
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        HttpRequest request = switch (random.nextInt(3)) {
+                            case 0 -> post(base + "/deposit", token, "{\"value\":\"1.00\"}");
+                            case 1 -> post(base + "/transfer", token,
+                                    "{\"target\":" + (account % accounts + 1) + ",\"value\":\"1.00\"}");
+                            default -> HttpRequest.newBuilder(URI.create(base + "/balance"))
+                                    .header("Authorization", "Bearer " + token).GET().build();
+                        };
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                            if (status == 503) {
+                                rejected.increment();
+                            } else if (status != 200) {
+                                failures.increment();
+                            }
+                        } catch (IOException exc) {
+                            failures.increment();
+                        } catch (InterruptedException exc) {
+                            return;
+                        }
+                    }
+                }, "http-client-" + i);
+                thread.setDaemon(true);
+                threads.add(thread);
+            }
+
+            long start = System.nanoTime();
+            threads.forEach(Thread::start);
+            TimeUnit.SECONDS.sleep(seconds);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            BenchmarkFixture.console().println(clients + "," + latency.getCount() + "," + rejected.sum() + ","
+                    + failures.sum() + "," + Math.round(latency.getCount() / elapsed) + ","
+                    + latency.getPercentile(50) + "," + latency.getPercentile(99) + "," + latency.getMax());
+        }
+
+        if (api != null) {
+            api.stop();
+            fixture.close();
+        }
+        System.exit(0);
+    }
+
+    private static String login(HttpClient client, String baseUrl, long account) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"account\":\"" + account + "\",\"password\":\""
+                        + BenchmarkFixture.PASSWORD + "\"}"))
+                .build();
+        try {
+            Matcher matcher = TOKEN.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? matcher.group(1) : null;
+        } catch (IOException exc) {
+            return null;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static HttpRequest post(String url, String token, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.metrics.Metrics;
+import br.com.compass.service.BankService;
+import br.com.compass.service.OperationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+    private BankService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Metrics.setEnabled(metrics);
+        fixture = new BenchmarkFixture(ACCOUNTS, roundTripMicros, false);
+        service = new BankService(fixture.getAccountDAO(), fixture.getTransactionDAO(), fixture.getPostingDAO(),
+                fixture.getSnapshotDAO(), BankService.newWorkerPool(1), null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.shutdown();
+        fixture.close();
+    }
+
+    @Benchmark
+    public OperationResult<BigDecimal> deposit() {
+        return service.deposit(ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1), BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public OperationResult<BigDecimal> balance() {
+        return service.balance(ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1));
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.PostingResult;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.AccountType;
+import br.com.compass.model.enums.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(PayrollBenchmark.PAYROLL)
+public class PayrollBenchmark {
+
+    static final int PAYROLL = 1000;
+
+    private static final BigDecimal SALARY = new BigDecimal("3500.00");
+
+    @Param({"100", "500", "1000"})
+    public int chunkSize;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+    private List<Transaction> postings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(PAYROLL, roundTripMicros, false);
+        postings = new ArrayList<>(PAYROLL);
+        for (long number = 1; number <= PAYROLL; number++) {
+            fixture.getDatabase().setType(number, AccountType.SALARY);
+            postings.add(Transaction.builder()
+                    .type(TransactionType.DEPOSIT)
+                    .originAccountNumber(number)
+                    .value(SALARY)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void sequentialDeposits(Blackhole blackhole) {
+        for (Transaction posting : postings) {
+            blackhole.consume(fixture.getPostingDAO().deposit(posting.getOriginAccountNumber(), posting.getValue()));
+        }
+    }
+
+    @Benchmark
+    public List<PostingResult> postBatch() {
+        return fixture.getPostingDAO().postBatch(postings, chunkSize);
+    }
+}
@@ -0,0 +1,199 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.SchemaMigrator;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.metrics.LatencyHistogram;
+import br.com.compass.model.cache.AccountCache;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.BalanceSnapshotDAO;
+import br.com.compass.model.dao.TransactionDAO;
+import br.com.compass.model.enums.AccountType;
+import br.com.compass.security.CredentialVerifier;
+import br.com.compass.security.LoginThrottle;
+import br.com.compass.security.PasswordHasher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+public class SchemaBenchmark {
+
+    private static final int SEED_CHUNK = 1_000_000;
+    private static final int HISTORY_DAYS = 730;
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.out.println("Usage: SchemaBenchmark <jdbc-url> <user> <password> [rows, default 100000000] "
+                    + "[accounts, default 1000000] [samples, default 10000]");
+            return;
+        }
+        long rows = args.length > 3 ? Long.parseLong(args[3]) : 100_000_000L;
+        int accounts = args.length > 4 ? Integer.parseInt(args[4]) : 1_000_000;
+        int samples = args.length > 5 ? Integer.parseInt(args[5]) : 10_000;
+
+        Properties properties = new Properties();
+        properties.setProperty("dburl", args[0]);
+        properties.setProperty("user", args[1]);
+        properties.setProperty("password", args[2]);
+        properties.setProperty("pool.maxSize", "4");
+        ConnectionPool pool = new ConnectionPool(properties);
+
+        SchemaMigrator migrator = new SchemaMigrator(pool);
+        migrator.migrate();
+        migrator.ensurePartitions(YearMonth.now().minusMonths(HISTORY_DAYS / 30 + 1), HISTORY_DAYS / 30 + 4);
+        seed(pool, rows, accounts);
+
+        PasswordHasher hasher = new PasswordHasher(1);
+        CredentialVerifier verifier = new CredentialVerifier(hasher, new LoginThrottle(5, 1, 1), 1, 1);
+        ShardRouter shards = ShardRouter.single(ReplicaRouter.primaryOnly(pool));
+        AccountDAO accountDAO = new AccountDAO(shards, new AccountCache(16, 0), verifier);
+        TransactionDAO transactionDAO = new TransactionDAO(shards, accountDAO, new BalanceSnapshotDAO(shards));
+        AccountType[] types = AccountType.values();
+        LocalDate today = LocalDate.now();
+
+        System.out.println("query,samples,p50Micros,p99Micros,maxMicros");
+        measure("legacyStatementFirstPage", samples, accounts,
+                number -> legacyStatementPage(pool, number, null, null));
+        measure("legacyStatementLastMonth", samples, accounts,
+                number -> legacyStatementPage(pool, number, today.minusMonths(1), today));
+        measure("statementFirstPage", samples, accounts,
+                number -> transactionDAO.bankStatementPage(number, null, null, null, 50));
+        measure("statementLastMonth", samples, accounts,
+                number -> transactionDAO.bankStatementPage(number, null, today.minusMonths(1), today, 50));
+        measure("statementNextPage", samples, accounts,
+                number -> transactionDAO.bankStatementPage(number, (long) ThreadLocalRandom.current()
+                        .nextInt(1, (int) Math.min(rows, Integer.MAX_VALUE)), null, null, 50));
+        measure("existsAccountTypeForCpf", samples, accounts,
+                number -> accountDAO.existsAccountTypeForCpf(types[(int) (number % types.length)],
+                        String.format("%011d", number)));
+        measure("getAccount", samples, accounts, number -> accountDAO.getAccount(number, true));
+
+        verifier.shutdown();
+        pool.close();
+    }
+
+    private static void measure(String name, int samples, int accounts, LongConsumer query) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < samples; i++) {
+            long number = ThreadLocalRandom.current().nextLong(1, accounts + 1);
+            long start = System.nanoTime();
+            query.accept(number);
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+        System.out.println(name + "," + samples + "," + histogram.getPercentile(50) + ","
+                + histogram.getPercentile(99) + "," + histogram.getMax());
+    }
+
+    private static void legacyStatementPage(ConnectionPool pool, long number, LocalDate from, LocalDate to) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = pool.getConnection();
+            statement = conn.prepareStatement("SELECT id, type, value, transaction_date, transfer_account, " +
+                    "origin_account FROM tb_transaction WHERE (origin_account=? OR transfer_account=?)" +
+                    (from == null ? "" : " AND transaction_date>=? AND transaction_date<=?") + " ORDER BY id LIMIT 50");
+            statement.setLong(1, number);
+            statement.setLong(2, number);
+            if (from != null) {
+                statement.setObject(3, from);
+                statement.setObject(4, to);
+            }
+            ResultSet rs = statement.executeQuery();
+            while (rs.next()) {
+                rs.getBigDecimal("value");
+            }
+        }
+        catch (SQLException exc) {
+            throw new IllegalStateException(exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    private static void seed(ConnectionPool pool, long rows, int accounts) throws SQLException {
+        Connection conn = pool.getConnection();
+        try {
+            long existingAccounts = count(conn, "SELECT count(*) FROM tb_account");
+            if (existingAccounts < accounts) {
+                try (PreparedStatement statement = conn.prepareStatement("INSERT INTO tb_account " +
+                        "(type, balance, opening_date, holder, holder_phone, holder_birthdate, holder_cpf, password, " +
+                        "active) SELECT (enum_range(NULL::account_type))[1 + g % 6], 1000000, DATE '2020-01-01', " +
+                        "'Holder ' || g, '11999999999', DATE '1990-01-01', lpad(g::text, 11, '0'), 'secret1', true " +
+                        "FROM generate_series(?, ?) g")) {
+                    statement.setLong(1, existingAccounts + 1);
+                    statement.setLong(2, accounts);
+                    statement.executeUpdate();
+                }
+            }
+
+            long existingRows = count(conn, "SELECT count(*) FROM tb_transaction");
+            long start = System.nanoTime();
+            try (PreparedStatement statement = conn.prepareStatement("INSERT INTO tb_transaction " +
+                    "(type, value, transaction_date, transfer_account, origin_account) " +
+                    "SELECT (enum_range(NULL::transaction_type))[1 + g % 3], 1 + g % 500, " +
+                    "CURRENT_DATE - (g % " + HISTORY_DAYS + ")::integer, " +
+                    "CASE WHEN g % 3 = 2 THEN 1 + (g * 7919) % ? END, 1 + g % ? FROM generate_series(?, ?) g")) {
+                for (long first = existingRows + 1; first <= rows; first += SEED_CHUNK) {
+                    long last = Math.min(rows, first + SEED_CHUNK - 1);
+                    statement.setLong(1, accounts);
+                    statement.setLong(2, accounts);
+                    statement.setLong(3, first);
+                    statement.setLong(4, last);
+                    statement.executeUpdate();
+                    System.out.println("Seeded " + last + "/" + rows + " transactions ("
+                            + Math.round((last - existingRows) / ((System.nanoTime() - start) / 1e9)) + " rows/s)");
+                }
+            }
+
+            long ledgered = count(conn, "SELECT COALESCE(max(transaction_id), 0) FROM tb_ledger_entry");
+            long lastId = count(conn, "SELECT COALESCE(max(id), 0) FROM tb_transaction");
+            try (PreparedStatement statement = conn.prepareStatement("INSERT INTO tb_ledger_entry " +
+                    "(transaction_id, type, account_number, counterparty, amount, entry_date) " +
+                    "SELECT t.id, t.type, e.account_number, e.counterparty, e.amount, t.transaction_date " +
+                    "FROM tb_transaction t CROSS JOIN LATERAL (VALUES " +
+                    "(t.origin_account, CASE WHEN t.type = 'TRANSFER' THEN t.transfer_account END, " +
+                    "CASE WHEN t.type = 'DEPOSIT' THEN t.value ELSE -t.value END), " +
+                    "(CASE WHEN t.type = 'TRANSFER' THEN t.transfer_account ELSE 0 END, t.origin_account, " +
+                    "CASE WHEN t.type = 'DEPOSIT' THEN -t.value ELSE t.value END)) " +
+                    "AS e(account_number, counterparty, amount) WHERE t.id BETWEEN ? AND ? ORDER BY t.id")) {
+                for (long first = ledgered + 1; first <= lastId; first += SEED_CHUNK) {
+                    long last = Math.min(lastId, first + SEED_CHUNK - 1);
+                    statement.setLong(1, first);
+                    statement.setLong(2, last);
+                    statement.executeUpdate();
+                    System.out.println("Ledgered " + last + "/" + lastId + " transactions");
+                }
+            }
+
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("ANALYZE tb_account");
+                statement.execute("ANALYZE tb_transaction");
+                statement.execute("ANALYZE tb_ledger_entry");
+            }
+        }
+        finally {
+            Database.closeConnection(conn);
+        }
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
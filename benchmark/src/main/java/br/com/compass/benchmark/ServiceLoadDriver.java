@@ -0,0 +1,69 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.service.BankService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ServiceLoadDriver {
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] sessionCounts = (args.length > 0 ? args[0] : "1,10,100,1000,10000").split(",");
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        long roundTripMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        int accounts = 10_000;
+
+        BenchmarkFixture fixture = new BenchmarkFixture(accounts, roundTripMicros, false);
+        BankService service = new BankService(fixture.getAccountDAO(), fixture.getTransactionDAO(),
+                fixture.getPostingDAO(), fixture.getSnapshotDAO(), BankService.newWorkerPool(256), null,
+                null);
+        BenchmarkFixture.console().println("sessions,requests,failures,requestsPerSecond");
+
+        for (String sessionCount : sessionCounts) {
+            int sessions = Integer.parseInt(sessionCount.trim());
+            LongAdder requests = new LongAdder();
+            LongAdder failures = new LongAdder();
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<>(sessions);
+
+            for (int i = 0; i < sessions; i++) {
+                Thread thread = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        long origin = random.nextLong(1, accounts + 1);
+                        var result = random.nextBoolean()
+                                ? service.submit(() -> service.deposit(origin, BigDecimal.ONE)).join()
+                                : service.submit(() -> service.transfer(origin, origin % accounts + 1, BigDecimal.ONE))
+                                .join();
+                        requests.increment();
+                        if (!result.isSuccess()) {
+                            failures.increment();
+                        }
+                    }
+                }, "session-" + i);
+                thread.setDaemon(true);
+                threads.add(thread);
+            }
+
+            long start = System.nanoTime();
+            threads.forEach(Thread::start);
+            TimeUnit.SECONDS.sleep(seconds);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            BenchmarkFixture.console().println(sessions + "," + requests.sum() + "," + failures.sum() + ","
+                    + Math.round(requests.sum() / elapsed));
+        }
+
+        service.shutdown();
+        fixture.close();
+    }
+}
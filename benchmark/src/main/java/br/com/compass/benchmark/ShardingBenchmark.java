@@ -0,0 +1,65 @@
+package br.com.compass.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardingBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    @Param({"200"})
+    public long roundTripMicros;
+
+    @Param({"4"})
+    public int shardCapacity;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(ACCOUNTS, roundTripMicros, false, shards, shardCapacity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        long account = ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1);
+        return fixture.getPostingDAO().deposit(account, BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public BigDecimal transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long origin = random.nextLong(1, ACCOUNTS + 1);
+        long target = (origin + random.nextLong(0, ACCOUNTS - 1)) % ACCOUNTS + 1;
+        return fixture.getPostingDAO().transfer(origin, target, BigDecimal.ONE);
+    }
+}
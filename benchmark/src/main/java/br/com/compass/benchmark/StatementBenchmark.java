@@ -0,0 +1,60 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.StatementLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class StatementBenchmark {
+
+    private static final long ACCOUNT = 1;
+
+    @Param({"100000"})
+    public int lines;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(2, 0, true);
+        fixture.getDatabase().addTransfers(ACCOUNT, ACCOUNT + 1, lines);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void streamStatement(Blackhole blackhole) {
+        try (Stream<StatementLine> statement = fixture.getTransactionDAO().streamBankStatement(ACCOUNT, null, null)) {
+            statement.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public List<StatementLine> materializeStatement() {
+        return fixture.getTransactionDAO().bankStatement(ACCOUNT);
+    }
+}
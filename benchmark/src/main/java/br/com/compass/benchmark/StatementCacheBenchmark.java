@@ -0,0 +1,73 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    @Param({"0", "30"})
+    public long parseMicros;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(ACCOUNTS, roundTripMicros, false, 1, 0, statementCacheSize);
+        fixture.getDatabase().setParseMicros(parseMicros);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Account loginAccount() {
+        return fixture.getAccountDAO().loginAccount(String.valueOf(randomAccount()), BenchmarkFixture.PASSWORD);
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        return fixture.getPostingDAO().deposit(randomAccount(), BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public BigDecimal transfer() {
+        long origin = randomAccount();
+        return fixture.getPostingDAO().transfer(origin, origin % ACCOUNTS + 1, BigDecimal.ONE);
+    }
+
+    private long randomAccount() {
+        return ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1);
+    }
+}
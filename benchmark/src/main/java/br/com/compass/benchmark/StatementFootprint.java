@@ -0,0 +1,102 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.db.Database;
+import br.com.compass.model.entity.LedgerEntry;
+import br.com.compass.model.entity.StatementLine;
+import br.com.compass.model.enums.TransactionType;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class StatementFootprint {
+
+    private static final long ACCOUNT = 1;
+    private static final String ENTRY_QUERY = "SELECT id, transaction_id, type, account_number, counterparty, " +
+            "amount, entry_date FROM tb_ledger_entry WHERE account_number=? ORDER BY id";
+
+    public static void main(String[] args) throws SQLException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        BenchmarkFixture fixture = new BenchmarkFixture(2, 0, true);
+        fixture.getDatabase().addTransfers(ACCOUNT, ACCOUNT + 1, lines);
+
+        BenchmarkFixture.console().println("projection,lines,allocatedBytesPerLine,retainedBytesPerLine,"
+                + "retainedMBPerStatement");
+        report("LedgerEntry", lines, rounds, () -> ledgerEntries(fixture));
+        report("StatementLine", lines, rounds, () -> fixture.getTransactionDAO().bankStatement(ACCOUNT));
+        fixture.close();
+    }
+
+    private static void report(String name, int lines, int rounds, Supplier<List<?>> statement) {
+        for (int i = 0; i < rounds; i++) {
+            statement.get();
+        }
+
+        long allocated = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            statement.get();
+        }
+        allocated = (allocatedBytes() - allocated) / rounds;
+
+        long before = usedHeap();
+        List<?> retained = statement.get();
+        long after = usedHeap();
+
+        BenchmarkFixture.console().println(name + "," + retained.size() + "," + allocated / lines + ","
+                + (after - before) / lines + "," + String.format("%.1f", (after - before) / 1048576.0));
+    }
+
+    private static List<?> ledgerEntries(BenchmarkFixture fixture) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = fixture.getPool().getConnection();
+            statement = conn.prepareStatement(ENTRY_QUERY);
+            statement.setLong(1, ACCOUNT);
+
+            ResultSet rs = statement.executeQuery();
+            List<LedgerEntry> entries = new ArrayList<>();
+            while (rs.next()) {
+                long counterparty = rs.getLong("counterparty");
+                entries.add(LedgerEntry.builder()
+                        .id(rs.getLong("id"))
+                        .transactionId(rs.getLong("transaction_id"))
+                        .type(TransactionType.valueOf(rs.getString("type")))
+                        .accountNumber(rs.getLong("account_number"))
+                        .counterpartyNumber(rs.wasNull() ? null : counterparty)
+                        .amount(rs.getBigDecimal("amount"))
+                        .entryDate(rs.getDate("entry_date").toLocalDate())
+                        .build());
+            }
+            return entries;
+        }
+        catch (SQLException exc) {
+            throw new IllegalStateException(exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
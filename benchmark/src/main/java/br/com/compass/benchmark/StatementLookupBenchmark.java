@@ -0,0 +1,72 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.StatementLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementLookupBenchmark {
+
+    private static final long ACCOUNT = 1;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int lines;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(2, roundTripMicros, true);
+        fixture.getDatabase().addTransfers(ACCOUNT, ACCOUNT + 1, lines);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public void perRowLookups(Blackhole blackhole) {
+        try (Stream<StatementLine> statement = fixture.getTransactionDAO().streamBankStatement(ACCOUNT, null, null)) {
+            statement.forEach(line -> {
+                blackhole.consume(fixture.getAccountDAO().getAccount(ACCOUNT, true));
+                if (line.hasCounterparty()) {
+                    blackhole.consume(fixture.getAccountDAO().getAccount(line.counterpartyNumber(), true));
+                }
+                blackhole.consume(line);
+            });
+        }
+    }
+
+    @Benchmark
+    public void singleQuery(Blackhole blackhole) {
+        try (Stream<StatementLine> statement = fixture.getTransactionDAO().streamBankStatement(ACCOUNT, null, null)) {
+            statement.forEach(blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.entity.StatementLine;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDAOBenchmark {
+
+    private static final int ACCOUNTS = 100;
+
+    @Param({"100", "10000"})
+    public int transactionsPerAccount;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(ACCOUNTS, roundTripMicros, true);
+        for (long number = 1; number <= ACCOUNTS; number++) {
+            fixture.getDatabase().addTransfers(number, number % ACCOUNTS + 1, transactionsPerAccount / 2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void makeTransaction() {
+        fixture.getTransactionDAO().makeTransaction(Transaction.builder()
+                .type(TransactionType.DEPOSIT)
+                .value(BigDecimal.TEN)
+                .transactionDate(LocalDate.now())
+                .originAccountNumber(randomAccount())
+                .build());
+    }
+
+    @Benchmark
+    public void bankStatement(Blackhole blackhole) {
+        fixture.getTransactionDAO().bankStatement(randomAccount()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void streamBankStatement(Blackhole blackhole) {
+        try (Stream<StatementLine> lines = fixture.getTransactionDAO()
+                .streamBankStatement(randomAccount(), null, null)) {
+            lines.forEach(blackhole::consume);
+        }
+    }
+
+    private long randomAccount() {
+        return ThreadLocalRandom.current().nextLong(1, ACCOUNTS + 1);
+    }
+}
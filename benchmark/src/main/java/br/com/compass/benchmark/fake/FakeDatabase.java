@@ -0,0 +1,415 @@
+package br.com.compass.benchmark.fake;
+
+import br.com.compass.model.dao.SqlStatement;
+import br.com.compass.model.enums.AccountType;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FakeDatabase {
+
+    private final Map<Long, Map<String, Object>> accounts = new ConcurrentHashMap<>();
+    private final Map<Long, List<Map<String, Object>>> transactions = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> idempotencyKeys = new ConcurrentHashMap<>();
+    private final Map<Object, Map<String, Object>> transferOutbox = new ConcurrentHashMap<>();
+    private final Map<Object, Boolean> transferInbox = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+    private final AtomicLong transactionIds = new AtomicLong();
+    private final AtomicLong entryIds = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong parses = new AtomicLong();
+    private final long roundTripNanos;
+    private final boolean retainTransactions;
+    private final Semaphore capacity;
+    private volatile long parseNanos;
+
+    public FakeDatabase(long roundTripMicros, boolean retainTransactions) {
+        this(roundTripMicros, retainTransactions, 0);
+    }
+
+    public FakeDatabase(long roundTripMicros, boolean retainTransactions, int capacity) {
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        this.retainTransactions = retainTransactions;
+        this.capacity = capacity > 0 ? new Semaphore(capacity) : null;
+    }
+
+    public void addAccount(long number, String password, BigDecimal balance) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("number", number);
+        row.put("type", "CHECKING");
+        row.put("balance", balance);
+        row.put("opening_date", Date.valueOf(LocalDate.of(2020, 1, 1)));
+        row.put("holder", "Holder " + number);
+        row.put("holder_phone", "11999999999");
+        row.put("holder_birthdate", Date.valueOf(LocalDate.of(1990, 1, 1)));
+        row.put("holder_cpf", String.format("%011d", number));
+        row.put("password", password);
+        row.put("active", true);
+        accounts.put(number, row);
+    }
+
+    public void addTransfers(long origin, long target, int count) {
+        for (int i = 0; i < count; i++) {
+            insertTransaction("TRANSFER", BigDecimal.ONE, LocalDate.now(), target, origin);
+        }
+    }
+
+    public void setType(long number, AccountType type) {
+        Map<String, Object> row = accounts.get(number);
+        synchronized (row) {
+            row.put("type", type.name());
+        }
+    }
+
+    public void setActive(long number, boolean active) {
+        Map<String, Object> row = accounts.get(number);
+        synchronized (row) {
+            row.put("active", active);
+        }
+    }
+
+    public BigDecimal balanceOf(long number) {
+        Map<String, Object> row = accounts.get(number);
+        synchronized (row) {
+            return (BigDecimal) row.get("balance");
+        }
+    }
+
+    public BigDecimal totalBalance() {
+        return accounts.values().stream()
+                .map(row -> {
+                    synchronized (row) {
+                        return (BigDecimal) row.get("balance");
+                    }
+                })
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public long getTransactionCount() {
+        return transactionIds.get();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public void setParseMicros(long parseMicros) {
+        this.parseNanos = TimeUnit.MICROSECONDS.toNanos(parseMicros);
+    }
+
+    public long getParses() {
+        return parses.get();
+    }
+
+    Session openSession() {
+        return new Session();
+    }
+
+    public int getPendingTransfers() {
+        return (int) transferOutbox.values().stream().filter(row -> row.get("delivered") == null).count();
+    }
+
+    void parse() {
+        parses.incrementAndGet();
+        if (parseNanos > 0) {
+            LockSupport.parkNanos(parseNanos);
+        }
+    }
+
+    void roundTrip() {
+        roundTrips.incrementAndGet();
+        if (roundTripNanos <= 0) {
+            return;
+        }
+        if (capacity == null) {
+            LockSupport.parkNanos(roundTripNanos);
+            return;
+        }
+        capacity.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+        finally {
+            capacity.release();
+        }
+    }
+
+    List<Map<String, Object>> query(Session session, String sql, Object[] params) throws SQLException {
+        if (sql.equals(SqlStatement.GET_ACCOUNT.getSql())) {
+            return copyOf(accounts.get(asLong(params[1])));
+        }
+        if (sql.equals(SqlStatement.GET_CREDENTIALS.getSql())) {
+            return copyOf(accounts.get(asLong(params[1])));
+        }
+        if (sql.equals(SqlStatement.LOCK_ACCOUNTS.getSql())) {
+            Object[] numbers = (Object[]) ((Array) params[1]).getArray();
+            List<Map<String, Object>> rows = new ArrayList<>();
+            Arrays.stream(numbers).map(FakeDatabase::asLong).sorted().filter(accounts::containsKey)
+                    .forEach(number -> {
+                        session.lock(number);
+                        rows.addAll(copyOf(accounts.get(number)));
+                    });
+            return rows;
+        }
+        if (sql.equals(SqlStatement.GET_ACCOUNT_BALANCES.getSql())) {
+            Object[] numbers = (Object[]) ((Array) params[1]).getArray();
+            List<Map<String, Object>> rows = new ArrayList<>();
+            Arrays.stream(numbers).map(FakeDatabase::asLong)
+                    .forEach(number -> rows.addAll(copyOf(accounts.get(number))));
+            return rows;
+        }
+        if (sql.equals(SqlStatement.ADD_TO_BALANCE_RETURNING.getSql())
+                || sql.equals(SqlStatement.ADD_TO_COVERED_BALANCE_RETURNING.getSql())) {
+            session.lock(asLong(params[2]));
+            BigDecimal balance = addToBalance(asLong(params[2]), (BigDecimal) params[1], (BigDecimal) params[3]);
+            return balance == null ? List.of() : List.of(Map.of("balance", balance));
+        }
+        if (sql.equals(SqlStatement.GET_BALANCE_AT.getSql())) {
+            Map<String, Object> row = accounts.get(asLong(params[5]));
+            return row == null ? List.of(Collections.singletonMap("balance", null)) : copyOf(row);
+        }
+        if (sql.equals(SqlStatement.GET_IDEMPOTENCY_KEY.getSql())) {
+            return copyOf(idempotencyKeys.get((String) params[1]));
+        }
+        if (sql.equals(SqlStatement.GET_TRANSFER_INBOX.getSql())) {
+            Boolean credited = transferInbox.get(params[1]);
+            return credited == null ? List.of() : List.of(Map.of("credited", credited));
+        }
+        if (sql.startsWith("SELECT id, transaction_id, type, ")) {
+            return statement(sql, params);
+        }
+        throw new SQLException("Unsupported query: " + sql);
+    }
+
+    int update(Session session, String sql, Object[] params) throws SQLException {
+        if (sql.equals(SqlStatement.UPDATE_ACCOUNT.getSql())) {
+            Map<String, Object> row = accounts.get(asLong(params[10]));
+            if (row == null) {
+                return 0;
+            }
+            synchronized (row) {
+                row.put("type", params[1]);
+                row.put("balance", params[2]);
+                row.put("opening_date", Date.valueOf((LocalDate) params[3]));
+                row.put("holder", params[4]);
+                row.put("holder_phone", params[5]);
+                row.put("holder_birthdate", Date.valueOf((LocalDate) params[6]));
+                row.put("holder_cpf", params[7]);
+                row.put("password", params[8]);
+                row.put("active", params[9]);
+            }
+            return 1;
+        }
+        if (sql.equals(SqlStatement.ACTIVATE_ACCOUNT.getSql())) {
+            Map<String, Object> row = accounts.get(asLong(params[1]));
+            if (row == null) {
+                return 0;
+            }
+            synchronized (row) {
+                row.put("active", true);
+            }
+            return 1;
+        }
+        if (sql.equals(SqlStatement.APPLY_SNAPSHOT_DELTA.getSql())) {
+            return 1;
+        }
+        if (sql.equals(SqlStatement.UPDATE_PASSWORD.getSql())) {
+            Map<String, Object> row = accounts.get(asLong(params[2]));
+            if (row == null) {
+                return 0;
+            }
+            synchronized (row) {
+                if (!row.get("password").equals(params[3])) {
+                    return 0;
+                }
+                row.put("password", params[1]);
+            }
+            return 1;
+        }
+        if (sql.equals(SqlStatement.CLAIM_IDEMPOTENCY_KEY.getSql())) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("type", params[2]);
+            row.put("account_number", params[3]);
+            row.put("transfer_account", params[4]);
+            row.put("value", params[5]);
+            row.put("result_balance", null);
+            return idempotencyKeys.putIfAbsent((String) params[1], row) == null ? 1 : 0;
+        }
+        if (sql.equals(SqlStatement.RECORD_IDEMPOTENT_RESULT.getSql())) {
+            Map<String, Object> row = idempotencyKeys.get((String) params[2]);
+            if (row == null) {
+                return 0;
+            }
+            synchronized (row) {
+                row.put("result_balance", params[1]);
+            }
+            return 1;
+        }
+        if (sql.equals(SqlStatement.ADD_TO_BALANCE.getSql())) {
+            session.lock(asLong(params[2]));
+            return addToBalance(asLong(params[2]), (BigDecimal) params[1], null) == null ? 0 : 1;
+        }
+        if (sql.equals(SqlStatement.ADD_TO_COVERED_BALANCE.getSql())) {
+            session.lock(asLong(params[2]));
+            BigDecimal delta = (BigDecimal) params[1];
+            return addToBalance(asLong(params[2]), delta, delta.signum() < 0 ? delta.negate() : null) == null
+                    ? 0 : 1;
+        }
+        if (sql.equals(SqlStatement.INSERT_POSTING.getSql())) {
+            insertTransaction((String) params[1], (BigDecimal) params[2], (LocalDate) params[3],
+                    params[4] == null ? null : asLong(params[4]), asLong(params[5]));
+            return 2;
+        }
+        if (sql.equals(SqlStatement.INSERT_POSTING_LEG.getSql())) {
+            long id = transactionIds.incrementAndGet();
+            if (retainTransactions) {
+                append(entry(id, (String) params[1], asLong(params[6]), asLong(params[7]), (BigDecimal) params[8],
+                        (LocalDate) params[3]));
+            }
+            return 1;
+        }
+        if (sql.equals(SqlStatement.ENQUEUE_TRANSFER.getSql())) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("transfer_id", params[1]);
+            row.put("origin_account", params[2]);
+            row.put("target_account", params[3]);
+            row.put("value", params[4]);
+            row.put("transaction_date", params[5]);
+            return transferOutbox.putIfAbsent(params[1], row) == null ? 1 : 0;
+        }
+        if (sql.equals(SqlStatement.CLAIM_TRANSFER_INBOX.getSql())) {
+            return transferInbox.putIfAbsent(params[1], (Boolean) params[3]) == null ? 1 : 0;
+        }
+        if (sql.equals(SqlStatement.COMPLETE_TRANSFER.getSql())) {
+            Map<String, Object> row = transferOutbox.get(params[2]);
+            if (row == null) {
+                return 0;
+            }
+            synchronized (row) {
+                return row.putIfAbsent("delivered", params[1]) == null ? 1 : 0;
+            }
+        }
+        throw new SQLException("Unsupported update: " + sql);
+    }
+
+    private BigDecimal addToBalance(Long number, BigDecimal delta, BigDecimal minimum) {
+        Map<String, Object> row = accounts.get(number);
+        if (row == null) {
+            return null;
+        }
+        synchronized (row) {
+            BigDecimal balance = (BigDecimal) row.get("balance");
+            if (minimum != null && balance.compareTo(minimum) < 0) {
+                return null;
+            }
+            BigDecimal newBalance = balance.add(delta);
+            row.put("balance", newBalance);
+            return newBalance;
+        }
+    }
+
+    private void insertTransaction(String type, BigDecimal value, LocalDate date, Long transfer, Long origin) {
+        long id = transactionIds.incrementAndGet();
+        if (!retainTransactions) {
+            return;
+        }
+
+        boolean deposit = type.equals("DEPOSIT");
+        append(entry(id, type, origin, transfer, deposit ? value : value.negate(), date));
+        if (transfer != null) {
+            append(entry(id, type, transfer, origin, value, date));
+        }
+    }
+
+    private Map<String, Object> entry(long transactionId, String type, Long account, Long counterparty,
+                                      BigDecimal amount, LocalDate date) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", entryIds.incrementAndGet());
+        row.put("transaction_id", transactionId);
+        row.put("type", type);
+        row.put("account_number", account);
+        row.put("counterparty", counterparty);
+        row.put("amount", amount);
+        row.put("amount_cents", amount.movePointRight(2).longValueExact());
+        row.put("entry_date", Date.valueOf(date));
+        row.put("entry_day", (int) date.toEpochDay());
+        return row;
+    }
+
+    private void append(Map<String, Object> row) {
+        List<Map<String, Object>> rows = transactions.computeIfAbsent((Long) row.get("account_number"),
+                number -> Collections.synchronizedList(new ArrayList<>()));
+        rows.add(row);
+    }
+
+    private List<Map<String, Object>> statement(String sql, Object[] params) {
+        int index = 2;
+        Long afterId = sql.contains("id>?") ? asLong(params[index++]) : null;
+        LocalDate from = sql.contains("entry_date>=?") ? (LocalDate) params[index++] : null;
+        LocalDate to = sql.contains("entry_date<=?") ? (LocalDate) params[index++] : null;
+        int limit = sql.contains("LIMIT ?") ? (Integer) params[index] : Integer.MAX_VALUE;
+
+        List<Map<String, Object>> rows = transactions.getOrDefault(asLong(params[1]), List.of());
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (rows) {
+            for (Map<String, Object> row : rows) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                LocalDate date = ((Date) row.get("entry_date")).toLocalDate();
+                if ((afterId == null || (Long) row.get("id") > afterId)
+                        && (from == null || !date.isBefore(from))
+                        && (to == null || !date.isAfter(to))) {
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> copyOf(Map<String, Object> row) {
+        if (row == null) {
+            return List.of();
+        }
+        synchronized (row) {
+            return List.of(new HashMap<>(row));
+        }
+    }
+
+    private static Long asLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    class Session {
+        private final Set<Long> held = new HashSet<>();
+        boolean autoCommit = true;
+
+        private void lock(Long number) {
+            if (number != null && accounts.containsKey(number) && held.add(number)) {
+                rowLocks.computeIfAbsent(number, key -> new ReentrantLock()).lock();
+            }
+        }
+
+        void release() {
+            held.forEach(number -> rowLocks.get(number).unlock());
+            held.clear();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package br.com.compass.benchmark.fake;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+public class FakeDriver implements Driver {
+
+    private static final String PREFIX = "jdbc:fake:";
+    private static final Map<String, FakeDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new FakeDriver());
+        } catch (SQLException exc) {
+            throw new ExceptionInInitializerError(exc);
+        }
+    }
+
+    public static String register(String name, FakeDatabase database) {
+        DATABASES.put(name, database);
+        return PREFIX + name;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        FakeDatabase database = DATABASES.get(url.substring(PREFIX.length()));
+        if (database == null) {
+            throw new SQLException("Unknown fake database: " + url);
+        }
+        return connection(database);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private static Connection connection(FakeDatabase database) {
+        FakeDatabase.Session session = database.openSession();
+        boolean[] closed = {false};
+
+        return (Connection) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> statement(database, session, (String) args[0]);
+                    case "createArrayOf" -> array((Object[]) args[1]);
+                    case "getAutoCommit" -> session.autoCommit;
+                    case "setAutoCommit" -> {
+                        session.autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "commit", "rollback" -> {
+                        database.roundTrip();
+                        session.release();
+                        yield null;
+                    }
+                    case "isValid" -> !closed[0];
+                    case "isClosed" -> closed[0];
+                    case "close" -> {
+                        session.release();
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FakeConnection";
+                    default -> throw new SQLFeatureNotSupportedException(method.getName());
+                });
+    }
+
+    private static PreparedStatement statement(FakeDatabase database, FakeDatabase.Session session, String sql) {
+        Object[][] params = {new Object[16]};
+        List<Object[]> batch = new ArrayList<>();
+        ResultSet[] current = {null};
+        int[] fetchSize = {0};
+        boolean[] parsed = {false};
+        boolean[] closed = {false};
+
+        return (PreparedStatement) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args.length == 2 && args[0] instanceof Integer) {
+                        params[0][(Integer) args[0]] = name.equals("setNull") ? null : args[1];
+                        return null;
+                    }
+                    if (name.startsWith("execute") && !parsed[0]) {
+                        database.parse();
+                        parsed[0] = true;
+                    }
+                    return switch (name) {
+                        case "executeQuery" -> {
+                            database.roundTrip();
+                            current[0] = resultSet(database.query(session, sql, params[0]));
+                            autoRelease(session);
+                            yield current[0];
+                        }
+                        case "executeUpdate" -> {
+                            database.roundTrip();
+                            int count = database.update(session, sql, params[0]);
+                            autoRelease(session);
+                            yield count;
+                        }
+                        case "addBatch" -> {
+                            batch.add(params[0].clone());
+                            yield null;
+                        }
+                        case "executeBatch" -> {
+                            database.roundTrip();
+                            int[] counts = new int[batch.size()];
+                            for (int i = 0; i < counts.length; i++) {
+                                counts[i] = database.update(session, sql, batch.get(i));
+                            }
+                            batch.clear();
+                            autoRelease(session);
+                            yield counts;
+                        }
+                        case "clearParameters" -> {
+                            params[0] = new Object[16];
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            batch.clear();
+                            yield null;
+                        }
+                        case "getResultSet" -> current[0];
+                        case "getFetchSize" -> fetchSize[0];
+                        case "setFetchSize" -> {
+                            fetchSize[0] = (Integer) args[0];
+                            yield null;
+                        }
+                        case "isClosed" -> closed[0];
+                        case "close" -> {
+                            closed[0] = true;
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "FakePreparedStatement[" + sql + "]";
+                        default -> throw new SQLFeatureNotSupportedException(name);
+                    };
+                });
+    }
+
+    private static void autoRelease(FakeDatabase.Session session) {
+        if (session.autoCommit) {
+            session.release();
+        }
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] position = {-1};
+        boolean[] wasNull = {false};
+
+        return (ResultSet) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("getObject") && args.length == 2 && args[0] instanceof String) {
+                        Object value = rows.get(position[0]).get((String) args[0]);
+                        wasNull[0] = value == null;
+                        return value;
+                    }
+                    if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof String) {
+                        Object value = rows.get(position[0]).get((String) args[0]);
+                        wasNull[0] = value == null;
+                        return switch (name) {
+                            case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                            case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                            case "getBoolean" -> value != null && (Boolean) value;
+                            case "getString" -> value == null ? null : value.toString();
+                            case "getBigDecimal" -> (BigDecimal) value;
+                            default -> value;
+                        };
+                    }
+                    return switch (name) {
+                        case "next" -> ++position[0] < rows.size();
+                        case "wasNull" -> wasNull[0];
+                        case "close" -> null;
+                        case "isClosed" -> false;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "FakeResultSet";
+                        default -> throw new SQLFeatureNotSupportedException(name);
+                    };
+                });
+    }
+
+    private static Array array(Object[] elements) {
+        return (Array) Proxy.newProxyInstance(FakeDriver.class.getClassLoader(), new Class<?>[]{Array.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getArray" -> elements;
+                    case "free" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new SQLFeatureNotSupportedException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.service.BankService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankServiceConcurrencyTest {
+
+    private static final long ACCOUNT = 1;
+    private static final int DEPOSITORS = 4;
+    private static final int LOGINS = 10;
+
+    private BenchmarkFixture fixture;
+    private BankService service;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new BenchmarkFixture(2, 100, false);
+        service = new BankService(fixture.getAccountDAO(), fixture.getTransactionDAO(), fixture.getPostingDAO(),
+                fixture.getSnapshotDAO(), BankService.newWorkerPool(DEPOSITORS), null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        fixture.close();
+    }
+
+    @Test
+    void loginActivationKeepsConcurrentDeposits() throws InterruptedException {
+        BigDecimal initial = fixture.getDatabase().balanceOf(ACCOUNT);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder deposits = new LongAdder();
+        List<Thread> depositors = new ArrayList<>();
+
+        for (int i = 0; i < DEPOSITORS; i++) {
+            Thread thread = new Thread(() -> {
+                while (running.get()) {
+                    if (service.deposit(ACCOUNT, BigDecimal.ONE).isSuccess()) {
+                        deposits.increment();
+                    }
+                }
+            }, "depositor-" + i);
+            depositors.add(thread);
+            thread.start();
+        }
+
+        try {
+            for (int i = 0; i < LOGINS; i++) {
+                fixture.getDatabase().setActive(ACCOUNT, false);
+                var login = service.login(String.valueOf(ACCOUNT), BenchmarkFixture.PASSWORD);
+                assertTrue(login.isSuccess(), login.getError());
+            }
+        }
+        finally {
+            running.set(false);
+            for (Thread thread : depositors) {
+                thread.join();
+            }
+        }
+
+        assertTrue(deposits.sum() > 0);
+        assertEquals(initial.add(BigDecimal.valueOf(deposits.sum())), fixture.getDatabase().balanceOf(ACCOUNT));
+    }
+}
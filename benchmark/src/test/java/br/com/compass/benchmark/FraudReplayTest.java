@@ -0,0 +1,142 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.fraud.FraudEngine;
+import br.com.compass.fraud.FraudLimits;
+import br.com.compass.model.cache.AccountCache;
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.service.BankService;
+import br.com.compass.service.OperationResult;
+import br.com.compass.shard.ShardedPostingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FraudReplayTest {
+
+    private static final long ACCOUNT = 1;
+    private static final long TARGET = 2;
+    private static final int REPLAYS = 20;
+    private static final BigDecimal VALUE = BigDecimal.TEN;
+
+    private BenchmarkFixture fixture;
+    private FraudEngine fraud;
+    private BankService service;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new BenchmarkFixture(2, 0, false);
+        fraud = new FraudEngine(FraudLimits.fromProperties(new Properties()), fixture.getAccountDAO());
+        service = newService(fixture.getPostingDAO());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        fixture.close();
+    }
+
+    @Test
+    void replayedWithdrawalIsScreenedOnce() {
+        BigDecimal expected = fixture.getDatabase().balanceOf(ACCOUNT).subtract(VALUE);
+
+        for (int i = 0; i < REPLAYS; i++) {
+            OperationResult<BigDecimal> result = service.withdraw("withdraw-key", ACCOUNT, VALUE);
+            assertTrue(result.isSuccess(), result.getError());
+            assertEquals(expected, result.getValue());
+        }
+
+        assertEquals(1, fraud.accountWindowCount(ACCOUNT));
+        assertEquals(expected, fixture.getDatabase().balanceOf(ACCOUNT));
+    }
+
+    @Test
+    void replayedTransferIsScreenedOnceAfterCacheMiss() {
+        assertTrue(service.transfer("transfer-key", ACCOUNT, TARGET, VALUE).isSuccess());
+
+        BankService restarted = newService(new PostingDAO(fixture.getShardRouter(), fixture.getTransactionDAO(),
+                new AccountCache(16, 30_000), new IdempotencyCache(16, 86_400_000)));
+        try {
+            for (int i = 0; i < REPLAYS; i++) {
+                OperationResult<BigDecimal> result = restarted.transfer("transfer-key", ACCOUNT, TARGET, VALUE);
+                assertTrue(result.isSuccess(), result.getError());
+            }
+        }
+        finally {
+            restarted.shutdown();
+        }
+
+        assertEquals(1, fraud.accountWindowCount(ACCOUNT));
+    }
+
+    @Test
+    void replayedShardedWithdrawalIsScreenedOnce() {
+        BigDecimal expected = fixture.getDatabase().balanceOf(ACCOUNT).subtract(VALUE);
+
+        for (int restart = 0; restart < 2; restart++) {
+            ShardedPostingEngine engine = new ShardedPostingEngine(fixture.getPostingDAO(),
+                    new IdempotencyCache(16, 86_400_000), 2, 16, 1_000, 1_000);
+            BankService sharded = newService(fixture.getPostingDAO(), engine);
+            try {
+                for (int i = 0; i < REPLAYS; i++) {
+                    OperationResult<BigDecimal> result = sharded.withdraw("sharded-key", ACCOUNT, VALUE);
+                    assertTrue(result.isSuccess(), result.getError());
+                    assertEquals(expected, result.getValue());
+                }
+            }
+            finally {
+                sharded.shutdown();
+            }
+        }
+
+        assertEquals(1, fraud.accountWindowCount(ACCOUNT));
+        assertEquals(expected, fixture.getDatabase().balanceOf(ACCOUNT));
+    }
+
+    @Test
+    void concurrentReplaysAreScreenedOnce() {
+        BigDecimal expected = fixture.getDatabase().balanceOf(ACCOUNT).subtract(VALUE);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<OperationResult<BigDecimal>>> results = new ArrayList<>();
+
+        for (int i = 0; i < REPLAYS; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.withdraw("concurrent-key", ACCOUNT, VALUE);
+            }));
+        }
+        start.countDown();
+
+        for (CompletableFuture<OperationResult<BigDecimal>> future : results) {
+            OperationResult<BigDecimal> result = future.join();
+            assertTrue(result.isSuccess(), result.getError());
+            assertEquals(expected, result.getValue());
+        }
+        assertEquals(1, fraud.accountWindowCount(ACCOUNT));
+        assertEquals(expected, fixture.getDatabase().balanceOf(ACCOUNT));
+    }
+
+    private BankService newService(PostingDAO postingDAO) {
+        return newService(postingDAO, null);
+    }
+
+    private BankService newService(PostingDAO postingDAO, ShardedPostingEngine engine) {
+        return new BankService(fixture.getAccountDAO(), fixture.getTransactionDAO(), postingDAO,
+                fixture.getSnapshotDAO(), BankService.newWorkerPool(4), engine, fraud);
+    }
+}
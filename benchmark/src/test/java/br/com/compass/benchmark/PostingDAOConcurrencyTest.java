@@ -0,0 +1,82 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.exception.PostingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingDAOConcurrencyTest {
+
+    private static final int ACCOUNTS = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final int MAX_CENTS = 60_000_000;
+
+    private BenchmarkFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new BenchmarkFixture(ACCOUNTS, 0, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void concurrentTransfersKeepTheTotalBalance() throws Exception {
+        BigDecimal initial = fixture.getDatabase().totalBalance();
+        LongAdder posted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                Random random = new Random(i);
+                workers.add(executor.submit(() -> {
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                        long origin = 1 + random.nextInt(ACCOUNTS);
+                        long target = 1 + (origin + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        BigDecimal value = BigDecimal.valueOf(1 + random.nextInt(MAX_CENTS), 2);
+                        try {
+                            fixture.getPostingDAO().transfer(origin, target, value);
+                            posted.increment();
+                        }
+                        catch (PostingException exc) {
+                            rejected.increment();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, posted.sum() + rejected.sum());
+        assertTrue(posted.sum() > 0);
+        assertEquals(initial, fixture.getDatabase().totalBalance());
+        for (long number = 1; number <= ACCOUNTS; number++) {
+            BigDecimal balance = fixture.getDatabase().balanceOf(number);
+            assertTrue(balance.signum() >= 0, "Account " + number + " went negative: " + balance);
+        }
+    }
+}
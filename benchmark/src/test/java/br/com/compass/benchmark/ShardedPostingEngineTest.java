@@ -0,0 +1,66 @@
+package br.com.compass.benchmark;
+
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.exception.PostingException;
+import br.com.compass.shard.ShardedPostingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedPostingEngineTest {
+
+    private static final long ACCOUNT = 1;
+    private static final long LONG_TTL_MS = 60_000;
+    private static final long SHORT_TTL_MS = 50;
+
+    private BenchmarkFixture fixture;
+    private ShardedPostingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new BenchmarkFixture(2, 0, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) {
+            engine.close();
+        }
+        fixture.close();
+    }
+
+    @Test
+    void debitOutsideTheEngineIsNotOverdrawn() {
+        engine = newEngine(LONG_TTL_MS);
+        BigDecimal balance = engine.withdraw(null, ACCOUNT, BigDecimal.ONE);
+        fixture.getPostingDAO().withdraw(ACCOUNT, balance);
+        assertEquals(0, fixture.getDatabase().balanceOf(ACCOUNT).signum());
+
+        PostingException rejected = assertThrows(PostingException.class,
+                () -> engine.withdraw(null, ACCOUNT, BigDecimal.TEN));
+        assertEquals("The value is higher than the account balance!", rejected.getMessage());
+        assertEquals(0, fixture.getDatabase().balanceOf(ACCOUNT).signum());
+    }
+
+    @Test
+    void creditOutsideTheEngineIsSeenOnceTheAccountExpires() throws InterruptedException {
+        engine = newEngine(SHORT_TTL_MS);
+        BigDecimal balance = engine.withdraw(null, ACCOUNT, BigDecimal.ONE);
+        fixture.getPostingDAO().withdraw(ACCOUNT, balance);
+        fixture.getPostingDAO().deposit(ACCOUNT, BigDecimal.TEN);
+        Thread.sleep(2 * SHORT_TTL_MS);
+
+        assertEquals(0, engine.withdraw(null, ACCOUNT, BigDecimal.TEN).signum());
+        assertEquals(0, fixture.getDatabase().balanceOf(ACCOUNT).signum());
+    }
+
+    private ShardedPostingEngine newEngine(long hotAccountTtlMs) {
+        return new ShardedPostingEngine(fixture.getPostingDAO(), new IdempotencyCache(1_000, 86_400_000), 1, 16,
+                1_000, hotAccountTtlMs);
+    }
+}
@@ -1,25 +1,48 @@
 package br.com.compass;
 
-import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.audit.AuditLog;
+import br.com.compass.db.Database;
+import br.com.compass.db.SchemaMigrator;
+import br.com.compass.metrics.Metrics;
 import br.com.compass.model.entity.Account;
+import br.com.compass.service.BankService;
+import br.com.compass.service.ShardRebalancer;
+import br.com.compass.service.TransferRelay;
 
 import java.util.Scanner;
 
 public class App {
 
-    private static final AccountDAO accountDAO = AccountDAO.createAccountDAO();
-    private static final Bank bank = new Bank();
-
     public static void main(String[] args) {
+        SchemaMigrator.migrateOnStartup();
+        Metrics.setEnabled(Boolean.parseBoolean(Database.getProperties().getProperty("metrics.enabled", "true")));
+        if (AuditLog.isEnabled()) {
+            AuditLog.getInstance();
+        }
+        if (TransferRelay.isEnabled()) {
+            TransferRelay.getInstance();
+        }
+        if (ShardRebalancer.isEnabled()) {
+            ShardRebalancer.startInBackground();
+        }
+        Bank bank = new Bank();
         Scanner scanner = new Scanner(System.in);
 
-        mainMenu(scanner);
+        mainMenu(scanner, bank);
 
         scanner.close();
+        BankService.getInstance().shutdown();
+        if (TransferRelay.isEnabled()) {
+            TransferRelay.getInstance().close();
+        }
+        if (AuditLog.isEnabled()) {
+            AuditLog.getInstance().close();
+        }
+        Database.closeConnection();
         System.out.println("Application closed");
     }
 
-    public static void mainMenu(Scanner scanner) {
+    public static void mainMenu(Scanner scanner, Bank bank) {
         boolean running = true;
 
         while (running) {
@@ -37,11 +60,7 @@ public class App {
                     var loginAccount = bank.loginScreen(scanner);
                     if (loginAccount != null) {
                         System.out.println("Login successful!\n");
-                        if (!loginAccount.getActive()) {
-                            loginAccount.setActive(true);
-                            accountDAO.updateAccount(loginAccount);
-                        }
-                        bankMenu(scanner, loginAccount);
+                        bankMenu(scanner, bank, loginAccount);
                     } else {
                         System.out.println("Login failed. Returning to main menu.\n");
                     }
@@ -49,7 +68,12 @@ public class App {
 
                 case 2:
                     var account = bank.getAccountInfo();
-                    accountDAO.createAccount(account);
+                    var opened = BankService.getInstance().openAccount(account);
+                    if (opened.isSuccess()) {
+                        System.out.println("Account successfully created. Please login to activate transactions.\n");
+                    } else {
+                        System.out.println(opened.getError() + "\n");
+                    }
                     break;
                 case 0:
                     running = false;
@@ -60,7 +84,7 @@ public class App {
         }
     }
 
-    public static void bankMenu(Scanner scanner, Account loginAccount) {
+    public static void bankMenu(Scanner scanner, Bank bank, Account loginAccount) {
         boolean running = true;
 
         while (running) {
@@ -3,9 +3,10 @@ package br.com.compass;
 import br.com.compass.model.dao.AccountDAO;
 import br.com.compass.model.dao.TransactionDAO;
 import br.com.compass.model.entity.Account;
-import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.entity.StatementLine;
 import br.com.compass.model.enums.AccountType;
-import br.com.compass.model.enums.TransactionType;
+import br.com.compass.service.BankService;
+import br.com.compass.service.OperationResult;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 
@@ -14,9 +15,8 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
 import java.util.Scanner;
+import java.util.UUID;
 import java.util.function.Predicate;
 
 @NoArgsConstructor
@@ -24,6 +24,7 @@ public class Bank {
 
     private final AccountDAO accountDAO = AccountDAO.createAccountDAO();
     private final TransactionDAO transactionDAO = TransactionDAO.createTransactionDao();
+    private final BankService service = BankService.getInstance();
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     public Account getAccountInfo() {
@@ -131,7 +132,11 @@ public class Bank {
         System.out.print("Password: ");
         var password = scanner.next();
 
-        return accountDAO.loginAccount(acc, password);
+        var result = service.login(acc, password);
+        if (!result.isSuccess()) {
+            System.out.println(result.getError() + "\n");
+        }
+        return result.getValue();
 
     }
 
@@ -151,15 +156,7 @@ public class Bank {
         }, scanner);
 
         var valueDeposit = new BigDecimal(valueDepositStr);
-        account.setBalance(account.getBalance().add(valueDeposit));
-        accountDAO.updateAccount(account);
-        transactionDAO.makeTransaction(Transaction.builder()
-                .type(TransactionType.DEPOSIT)
-                .value(valueDeposit)
-                .transactionDate(LocalDate.now())
-                .transferAccount(null)
-                .originAccount(account)
-                .build());
+        applyBalance(account, service.deposit(UUID.randomUUID().toString(), account.getNumber(), valueDeposit));
     }
 
     public void withdraw(Account account, Scanner scanner) {
@@ -184,18 +181,14 @@ public class Bank {
         }, scanner);
 
         var withdrawalValue = new BigDecimal(withdrawalValueStr);
-        account.setBalance(account.getBalance().subtract(withdrawalValue));
-        accountDAO.updateAccount(account);
-        transactionDAO.makeTransaction(Transaction.builder()
-                .type(TransactionType.WITHDRAWAL)
-                .value(withdrawalValue)
-                .transactionDate(LocalDate.now())
-                .transferAccount(null)
-                .originAccount(account)
-                .build());
+        applyBalance(account, service.withdraw(UUID.randomUUID().toString(), account.getNumber(), withdrawalValue));
     }
 
     public void checkBalance(Account account) {
+        var result = service.balance(account.getNumber());
+        if (result.isSuccess()) {
+            account.setBalance(result.getValue());
+        }
         System.out.println("Your current balance is R$" + account.getBalance() + "\n");
     }
 
@@ -241,20 +234,18 @@ public class Bank {
             return true;
         }, scanner);
 
-        var targetAccount = accountDAO.getAccount(targetAccountNumber);
-
         var transferedValue = new BigDecimal(transferValueStr);
-        origin.setBalance(origin.getBalance().subtract(transferedValue));
-        targetAccount.setBalance(targetAccount.getBalance().add(transferedValue));
-        accountDAO.updateAccount(origin);
-        accountDAO.updateAccount(targetAccount);
-        transactionDAO.makeTransaction(Transaction.builder()
-                .type(TransactionType.TRANSFER)
-                .originAccount(origin)
-                .value(transferedValue)
-                .transferAccount(targetAccount)
-                .transactionDate(LocalDate.now())
-                .build());
+        applyBalance(origin, service.transfer(UUID.randomUUID().toString(), origin.getNumber(), targetAccountNumber,
+                transferedValue));
+    }
+
+    private void applyBalance(Account account, OperationResult<BigDecimal> result) {
+        if (result.isSuccess()) {
+            account.setBalance(result.getValue());
+            System.out.println("Transaction successful!\n");
+        } else {
+            System.out.println(result.getError());
+        }
     }
 
     public void bankStatement(Long accountNumber) {
@@ -262,29 +253,22 @@ public class Bank {
         System.out.println("||           Bank Statement            ||");
         System.out.println("=========================================");
 
-        List<Transaction> transactions = transactionDAO.bankStatement(accountNumber);
-        transactions.forEach(transaction -> {
-            String targetAccount = "";
-            String signStr = "";
-            switch (transaction.getType()) {
-                case DEPOSIT -> signStr = "[+]";
-                case WITHDRAWAL -> signStr = "[-]";
-                case TRANSFER -> {
-                    if (transaction.getTransferAccount() != null) {
-                        signStr = "[-]";
-                        targetAccount =  " TO: " + transaction.getTransferAccount().getNumber();
-                        if (Objects.equals(transaction.getTransferAccount().getNumber(), accountNumber)) {
-                            signStr = "[+]";
-                            targetAccount =  " FROM: " + transaction.getOriginAccount().getNumber();
-                        }
-                    }
+        var result = service.statement(accountNumber, null, null,
+                this::printStatementLine);
+        if (!result.isSuccess()) {
+            System.out.println(result.getError());
+        }
+        System.out.println("=========================================\n");
+    }
 
-                }
-            }
+    private void printStatementLine(StatementLine line) {
+        String signStr = line.isCredit() ? "[+]" : "[-]";
+        String targetAccount = "";
+        if (line.hasCounterparty()) {
+            targetAccount = (line.isCredit() ? " FROM: " : " TO: ") + line.counterpartyNumber();
+        }
 
-            System.out.println(signStr + " "  + transaction.getType() + targetAccount + " R$" + transaction.getValue()
-                    + " (" + transaction.getTransactionDate() + ")");
-        });
-        System.out.println("=========================================\n");
+        System.out.println(signStr + " "  + line.type() + targetAccount + " R$" + line.absoluteAmount()
+                + " (" + line.entryDate() + ")");
     }
 }
@@ -0,0 +1,11 @@
+package br.com.compass.audit;
+
+public enum AuditAction {
+    ACCOUNT_CREATED,
+    ACCOUNTS_IMPORTED,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER,
+    TRANSFER_REFUNDED,
+    ACCOUNT_MOVED
+}
@@ -0,0 +1,28 @@
+package br.com.compass.audit;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Builder
+@Value
+public class AuditEvent {
+
+    @Builder.Default
+    long timestampMillis = System.currentTimeMillis();
+
+    AuditAction action;
+
+    Long accountNumber;
+
+    Long counterpartyNumber;
+
+    BigDecimal value;
+
+    BigDecimal balance;
+
+    String idempotencyKey;
+
+    String detail;
+}
@@ -0,0 +1,310 @@
+package br.com.compass.audit;
+
+import br.com.compass.db.Database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class AuditLog implements AutoCloseable {
+
+    private static final Pattern FILE_NAME = Pattern.compile("audit-(\\d+)\\.log");
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static AuditLog instance = null;
+    private static volatile AuditLog current = null;
+
+    private final Path directory;
+    private final long fileBytes;
+    private final int maxFiles;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean fsync;
+    private final FullPolicy fullPolicy;
+    private final AuditRing ring;
+
+    private final Deque<Path> files = new ArrayDeque<>();
+    private FileChannel channel;
+    private long fileIndex;
+    private long fileSize;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    public enum FullPolicy {
+        DROP,
+        BLOCK
+    }
+
+    public AuditLog(Path directory, int capacity, long fileBytes, int maxFiles, int batchSize, long flushIntervalMs,
+                    boolean fsync, FullPolicy fullPolicy) {
+        this.directory = directory;
+        this.fileBytes = fileBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.fsync = fsync;
+        this.fullPolicy = fullPolicy;
+        this.ring = new AuditRing(capacity);
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(AuditLog::isAuditFile).sorted().forEach(files::add);
+            }
+            fileIndex = files.isEmpty() ? 0 : indexOf(files.getLast());
+            openNextFile();
+        }
+        catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
+
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Database.getProperties().getProperty("audit.enabled", "false"));
+    }
+
+    public static synchronized AuditLog getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new AuditLog(Path.of(properties.getProperty("audit.directory", "audit")),
+                    Integer.parseInt(properties.getProperty("audit.bufferSize", "65536")),
+                    Long.parseLong(properties.getProperty("audit.fileBytes", String.valueOf(64 << 20))),
+                    Integer.parseInt(properties.getProperty("audit.maxFiles", "16")),
+                    Integer.parseInt(properties.getProperty("audit.batchSize", "1024")),
+                    Long.parseLong(properties.getProperty("audit.flushIntervalMs", "20")),
+                    Boolean.parseBoolean(properties.getProperty("audit.fsync", "false")),
+                    FullPolicy.valueOf(properties.getProperty("audit.fullPolicy", "DROP").toUpperCase()));
+            install(instance);
+        }
+        return instance;
+    }
+
+    public static synchronized void install(AuditLog log) {
+        current = log;
+    }
+
+    public static void record(AuditEvent event) {
+        AuditLog log = current;
+        if (log != null) {
+            log.publish(event);
+        }
+    }
+
+    public static void posting(AuditAction action, String idempotencyKey, Long accountNumber,
+                               Long counterpartyNumber, BigDecimal value, BigDecimal balance) {
+        if (current != null) {
+            record(AuditEvent.builder()
+                    .action(action)
+                    .idempotencyKey(idempotencyKey)
+                    .accountNumber(accountNumber)
+                    .counterpartyNumber(counterpartyNumber)
+                    .value(value)
+                    .balance(balance)
+                    .build());
+        }
+    }
+
+    public boolean publish(AuditEvent event) {
+        long position = ring.offer(event);
+        if (position < 0 && fullPolicy == FullPolicy.BLOCK) {
+            blocked.increment();
+            while (position < 0 && running) {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                position = ring.offer(event);
+            }
+        }
+        if (position < 0) {
+            dropped.increment();
+            return false;
+        }
+
+        published.increment();
+        if ((position + 1) % batchSize == 0) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    public AuditStats getStats() {
+        return AuditStats.builder()
+                .published(published.sum())
+                .written(written.get())
+                .dropped(dropped.sum())
+                .blocked(blocked.sum())
+                .buffered(Math.max(0, ring.getTail() - ring.getHead()))
+                .capacity(ring.getCapacity())
+                .batches(batches.get())
+                .rotations(rotations.get())
+                .writeFailures(writeFailures.get())
+                .fullPolicy(fullPolicy.name())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        synchronized (AuditLog.class) {
+            if (current == this) {
+                install(null);
+            }
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        closeChannel();
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            boolean stopping = !running;
+            long first = ring.getHead();
+            ring.drain(batch, batchSize);
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                appendLine(text, first + i + 1, batch.get(i));
+            }
+            write(text.toString().getBytes(StandardCharsets.UTF_8), batch.size());
+            text.setLength(0);
+            batch.clear();
+        }
+    }
+
+    private void write(byte[] bytes, int events) {
+        try {
+            if (fileSize > 0 && fileSize + bytes.length > fileBytes) {
+                rotate();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            fileSize += bytes.length;
+            written.addAndGet(events);
+            batches.incrementAndGet();
+        }
+        catch (IOException | UncheckedIOException exc) {
+            writeFailures.incrementAndGet();
+            dropped.add(events);
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        openNextFile();
+        rotations.incrementAndGet();
+        while (files.size() > maxFiles) {
+            Files.deleteIfExists(files.removeFirst());
+        }
+    }
+
+    private void openNextFile() throws IOException {
+        Path file = directory.resolve(String.format("audit-%010d.log", ++fileIndex));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileSize = 0;
+        files.addLast(file);
+    }
+
+    private void closeChannel() {
+        try {
+            channel.force(false);
+            channel.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private static void appendLine(StringBuilder text, long sequence, AuditEvent event) {
+        text.append("{\"seq\":").append(sequence)
+                .append(",\"ts\":\"").append(Instant.ofEpochMilli(event.getTimestampMillis())).append('"')
+                .append(",\"action\":\"").append(event.getAction()).append('"');
+        appendField(text, "account", event.getAccountNumber());
+        appendField(text, "counterparty", event.getCounterpartyNumber());
+        appendField(text, "value", event.getValue() == null ? null : event.getValue().toPlainString());
+        appendField(text, "balance", event.getBalance() == null ? null : event.getBalance().toPlainString());
+        appendString(text, "idempotencyKey", event.getIdempotencyKey());
+        appendString(text, "detail", event.getDetail());
+        text.append("}\n");
+    }
+
+    private static void appendField(StringBuilder text, String name, Object value) {
+        if (value != null) {
+            text.append(",\"").append(name).append("\":").append(value);
+        }
+    }
+
+    private static void appendString(StringBuilder text, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        text.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20) {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        text.append('"');
+    }
+
+    private static boolean isAuditFile(Path path) {
+        return FILE_NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    private static long indexOf(Path path) {
+        Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
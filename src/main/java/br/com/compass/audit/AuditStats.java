@@ -0,0 +1,29 @@
+package br.com.compass.audit;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class AuditStats {
+
+    long published;
+
+    long written;
+
+    long dropped;
+
+    long blocked;
+
+    long buffered;
+
+    int capacity;
+
+    long batches;
+
+    long rotations;
+
+    long writeFailures;
+
+    String fullPolicy;
+}
@@ -0,0 +1,314 @@
+package br.com.compass.db;
+
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+
+    private static final Timer ACQUIRE_TIMER = Metrics.timer("pool", "acquire");
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long validationIdleMs;
+    private final long leakDetectionMs;
+    private final boolean leakStackTraces;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, Borrow> borrowed = new ConcurrentHashMap<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService leakDetector;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    public ConnectionPool(Properties properties) {
+        this.url = properties.getProperty("dburl");
+        this.username = properties.getProperty("user");
+        this.password = properties.getProperty("password");
+        this.minSize = Integer.parseInt(properties.getProperty("pool.minSize", "2"));
+        this.maxSize = Integer.parseInt(properties.getProperty("pool.maxSize", "10"));
+        this.acquireTimeoutMs = Long.parseLong(properties.getProperty("pool.acquireTimeoutMs", "30000"));
+        this.validationTimeoutSec = Integer.parseInt(properties.getProperty("pool.validationTimeoutSec", "2"));
+        this.validationIdleMs = Long.parseLong(properties.getProperty("pool.validationIdleMs", "500"));
+        this.leakDetectionMs = Long.parseLong(properties.getProperty("pool.leakDetectionMs", "60000"));
+        this.leakStackTraces = Boolean.parseBoolean(properties.getProperty("pool.leakStackTraces", "false"));
+        this.statementCacheSize = Integer.parseInt(properties.getProperty("pool.statementCacheSize", "64"));
+
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.permits = new Semaphore(maxSize, true);
+        for (int i = 0; i < minSize; i++) {
+            idle.offer(new IdleConnection(newConnection(), System.currentTimeMillis()));
+        }
+
+        this.leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (leakDetectionMs > 0) {
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, leakDetectionMs, leakDetectionMs / 2 + 1,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Connection getConnection() {
+        if (closed) {
+            throw new DbException("Connection pool is closed", null);
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                ACQUIRE_TIMER.recordFailure();
+                throw new DbException("Timed out after " + acquireTimeoutMs + "ms waiting for a connection", null);
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while waiting for a connection", exc);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        try {
+            Connection physical = takeValidConnection();
+            Connection pooled = wrap(physical);
+            borrowed.put(pooled, new Borrow(physical, System.currentTimeMillis(),
+                    leakDetectionMs > 0 && leakStackTraces ? new Throwable("Connection borrowed here") : null));
+            recordAcquire(System.nanoTime() - start);
+            return pooled;
+        } catch (RuntimeException exc) {
+            permits.release();
+            throw exc;
+        }
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public PoolStats getStats() {
+        long count = acquireCount.get();
+        return PoolStats.builder()
+                .active(borrowed.size())
+                .idle(idle.size())
+                .waiting(waiting.get())
+                .maxSize(maxSize)
+                .acquireCount(count)
+                .timeouts(timeouts.get())
+                .leaks(leaks.get())
+                .averageAcquireMicros(count == 0 ? 0 : acquireNanos.get() / count / 1_000)
+                .maxAcquireMicros(maxAcquireNanos.get() / 1_000)
+                .statementCacheHits(statementHits.get())
+                .statementCacheMisses(statementMisses.get())
+                .statementCacheEvictions(statementEvictions.get())
+                .build();
+    }
+
+    public void close() {
+        closed = true;
+        leakDetector.shutdownNow();
+        IdleConnection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection.physical);
+        }
+        borrowed.values().forEach(borrow -> closeQuietly(borrow.physical));
+        borrowed.clear();
+    }
+
+    private Connection takeValidConnection() {
+        IdleConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - connection.idleSince < validationIdleMs || isValid(connection.physical)) {
+                return connection.physical;
+            }
+            closeQuietly(connection.physical);
+        }
+        return newConnection();
+    }
+
+    private void release(Connection pooled) {
+        Borrow borrow = borrowed.remove(pooled);
+        if (borrow == null) {
+            return;
+        }
+
+        try {
+            Connection physical = borrow.physical;
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(physical, System.currentTimeMillis()));
+        } catch (SQLException exc) {
+            closeQuietly(borrow.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            release((Connection) proxy);
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return !borrowed.containsKey((Connection) proxy) || physical.isClosed();
+                        }
+                        case "prepareStatement" -> {
+                            if (statementCacheSize > 0 && args.length == 1
+                                    && borrowed.containsKey((Connection) proxy)) {
+                                return statementCacheFor(physical)
+                                        .prepare((Connection) proxy, physical, (String) args[0]);
+                            }
+                        }
+                        case "unwrap" -> {
+                            return physical.unwrap((Class<?>) args[0]);
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Pooled" + physical;
+                        }
+                    }
+                    if (!borrowed.containsKey((Connection) proxy)) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        Object result = method.invoke(physical, args);
+                        if (result instanceof PreparedStatement statement) {
+                            return TimedStatement.wrap(statement, (String) args[0]);
+                        }
+                        return result;
+                    } catch (InvocationTargetException exc) {
+                        throw exc.getCause();
+                    }
+                });
+    }
+
+    private StatementCache statementCacheFor(Connection physical) {
+        return statementCaches.computeIfAbsent(physical, connection ->
+                new StatementCache(statementCacheSize, statementHits, statementMisses, statementEvictions));
+    }
+
+    private Connection newConnection() {
+        try {
+            return DriverManager.getConnection(url, username, password);
+        } catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(validationTimeoutSec);
+        } catch (SQLException exc) {
+            return false;
+        }
+    }
+
+    private void recordAcquire(long nanos) {
+        acquireCount.incrementAndGet();
+        acquireNanos.addAndGet(nanos);
+        maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+        ACQUIRE_TIMER.recordNanos(nanos);
+    }
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        borrowed.values().forEach(borrow -> {
+            if (!borrow.reported && now - borrow.borrowedAt > leakDetectionMs) {
+                borrow.reported = true;
+                leaks.incrementAndGet();
+                System.err.println("Possible connection leak: connection held for " + (now - borrow.borrowedAt) + "ms"
+                        + (borrow.origin == null ? " (set pool.leakStackTraces=true to see where)" : ""));
+                if (borrow.origin != null) {
+                    borrow.origin.printStackTrace(System.err);
+                }
+            }
+        });
+    }
+
+    private void closeQuietly(Connection connection) {
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.close();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static class Borrow {
+        private final Connection physical;
+        private final long borrowedAt;
+        private final Throwable origin;
+        private volatile boolean reported = false;
+
+        private Borrow(Connection physical, long borrowedAt, Throwable origin) {
+            this.physical = physical;
+            this.borrowedAt = borrowedAt;
+            this.origin = origin;
+        }
+    }
+
+    private static class IdleConnection {
+        private final Connection physical;
+        private final long idleSince;
+
+        private IdleConnection(Connection physical, long idleSince) {
+            this.physical = physical;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -3,32 +3,106 @@ package br.com.compass.db;
 import br.com.compass.db.exception.DbException;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Database {
 
-    private static Connection connection = null;
+    private static final int MAX_TRANSACTION_ATTEMPTS = 5;
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
 
-    public static Connection getConnection() {
-        if (connection == null) {
+    private static Properties properties = null;
+    private static ConnectionPool pool = null;
+    private static ReplicaRouter replicaRouter = null;
+    private static List<ConnectionPool> shardPools = null;
+    private static ShardRouter shardRouter = null;
+
+    public static synchronized Properties getProperties() {
+        if (properties == null) {
             try {
-                Properties properties = loadProperties();
-                String url = properties.getProperty("dburl");
-                String username = properties.getProperty("user");
-                String password = properties.getProperty("password");
+                properties = loadProperties();
+            } catch (IOException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+        }
+        return properties;
+    }
 
-                connection = DriverManager.getConnection(url, username, password);
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(getProperties());
+        }
+        return pool;
+    }
 
-            } catch (SQLException | IOException exc) {
-                throw new DbException(exc.getMessage(), exc);
+    public static synchronized ReplicaRouter getReplicaRouter() {
+        if (replicaRouter == null) {
+            Properties properties = getProperties();
+            replicaRouter = new ReplicaRouter(getPool(), replicaPools(properties),
+                    Long.parseLong(properties.getProperty("replica.maxLagMs", "1000")),
+                    Long.parseLong(properties.getProperty("replica.healthCheckMs", "250")));
+        }
+        return replicaRouter;
+    }
+
+    public static synchronized List<ConnectionPool> getShardPools() {
+        if (shardPools == null) {
+            Properties properties = getProperties();
+            if (ShardRouter.isEnabled() && Boolean.parseBoolean(properties.getProperty("shard.enabled"))) {
+                throw new DbException("dbshard.urls can't be combined with shard.enabled", null);
+            }
+            shardPools = new ArrayList<>(List.of(getPool()));
+            shardPools.addAll(shardPools(properties));
+        }
+        return shardPools;
+    }
+
+    public static synchronized ShardRouter getShardRouter() {
+        if (shardRouter == null) {
+            List<ConnectionPool> pools = getShardPools();
+            if (pools.size() == 1) {
+                shardRouter = ShardRouter.single(getReplicaRouter());
+                return shardRouter;
             }
+
+            Properties properties = getProperties();
+            List<ReplicaRouter> shards = new ArrayList<>(List.of(getReplicaRouter()));
+            pools.subList(1, pools.size()).forEach(pool -> shards.add(ReplicaRouter.primaryOnly(pool)));
+            shardRouter = ShardRouter.load(shards,
+                    Integer.parseInt(properties.getProperty("dbshard.virtualNodes", "128")),
+                    Integer.parseInt(properties.getProperty("dbshard.lockStripes", "1024")));
         }
-        return connection;
+        return shardRouter;
+    }
+
+    public static Connection getConnection() {
+        return getPool().getConnection();
     }
 
-    public static void closeConnection() {
+    public static synchronized void closeConnection() {
+        if (shardRouter != null) {
+            shardRouter.close();
+            shardRouter = null;
+        } else if (shardPools != null) {
+            shardPools.subList(1, shardPools.size()).forEach(ConnectionPool::close);
+        }
+        shardPools = null;
+        if (replicaRouter != null) {
+            replicaRouter.close();
+            replicaRouter = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    public static void closeConnection(Connection connection) {
         if (connection != null) {
             try {
                 connection.close();
@@ -39,6 +113,101 @@ public class Database {
         }
     }
 
+    public static <T> T inTransaction(ConnectionPool pool, SqlWork<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attemptTransaction(pool, work);
+            }
+            catch (SQLException exc) {
+                if (!isRetryable(exc) || attempt >= MAX_TRANSACTION_ATTEMPTS) {
+                    throw new DbException(exc.getMessage(), exc);
+                }
+            }
+            backoff(attempt);
+        }
+    }
+
+    private static <T> T attemptTransaction(ConnectionPool pool, SqlWork<T> work) throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = pool.getConnection();
+            conn.setAutoCommit(false);
+            T result = work.execute(conn);
+            conn.commit();
+            return result;
+        }
+        catch (SQLException | RuntimeException exc) {
+            rollback(conn);
+            throw exc;
+        }
+        finally {
+            closeConnection(conn);
+        }
+    }
+
+    private static boolean isRetryable(SQLException exc) {
+        return SERIALIZATION_FAILURE.equals(exc.getSQLState()) || DEADLOCK_DETECTED.equals(exc.getSQLState());
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L << attempt));
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while retrying transaction", exc);
+        }
+    }
+
+    private static void rollback(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            }
+            catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private static List<ConnectionPool> replicaPools(Properties properties) {
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (String url : properties.getProperty("replica.urls", "").split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            Properties replica = new Properties();
+            replica.putAll(properties);
+            replica.setProperty("dburl", url.trim());
+            replica.setProperty("user", properties.getProperty("replica.user", properties.getProperty("user")));
+            replica.setProperty("password",
+                    properties.getProperty("replica.password", properties.getProperty("password")));
+            replica.setProperty("pool.minSize", "0");
+            replica.setProperty("pool.maxSize",
+                    properties.getProperty("replica.pool.maxSize", properties.getProperty("pool.maxSize", "10")));
+            replica.setProperty("pool.acquireTimeoutMs", properties.getProperty("replica.acquireTimeoutMs", "1000"));
+            pools.add(new ConnectionPool(replica));
+        }
+        return pools;
+    }
+
+    private static List<ConnectionPool> shardPools(Properties properties) {
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (String url : properties.getProperty("dbshard.urls", "").split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            Properties shard = new Properties();
+            shard.putAll(properties);
+            shard.setProperty("dburl", url.trim());
+            shard.setProperty("user", properties.getProperty("dbshard.user", properties.getProperty("user")));
+            shard.setProperty("password",
+                    properties.getProperty("dbshard.password", properties.getProperty("password")));
+            pools.add(new ConnectionPool(shard));
+        }
+        return pools;
+    }
+
     private static Properties loadProperties() throws IOException {
         Properties properties = new Properties();
 
@@ -0,0 +1,33 @@
+package br.com.compass.db;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class PoolStats {
+
+    int active;
+
+    int idle;
+
+    int waiting;
+
+    int maxSize;
+
+    long acquireCount;
+
+    long timeouts;
+
+    long leaks;
+
+    long averageAcquireMicros;
+
+    long maxAcquireMicros;
+
+    long statementCacheHits;
+
+    long statementCacheMisses;
+
+    long statementCacheEvictions;
+}
@@ -0,0 +1,176 @@
+package br.com.compass.db;
+
+import br.com.compass.db.exception.DbException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ReplicaRouter implements AutoCloseable {
+
+    private static final String REPLICATION_LAG = "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END AS lag_ms";
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final Map<Object, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    public ReplicaRouter(ConnectionPool primary, List<ConnectionPool> replicaPools, long maxLagMs, long healthCheckMs) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLagMs = maxLagMs;
+
+        if (replicas.isEmpty()) {
+            this.healthChecker = null;
+            return;
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isEnabled() {
+        return !Database.getProperties().getProperty("replica.urls", "").isBlank();
+    }
+
+    public static ReplicaRouter primaryOnly(ConnectionPool primary) {
+        return new ReplicaRouter(primary, List.of(), 0, 0);
+    }
+
+    public ConnectionPool getPrimary() {
+        return primary;
+    }
+
+    public Connection getReadConnection(Object key) {
+        if (!replicas.isEmpty()) {
+            Long writtenAt = key == null ? null : lastWrites.get(key);
+            long now = System.currentTimeMillis();
+            boolean behindWrite = false;
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy || now - replica.replayedThrough > maxLagMs) {
+                    continue;
+                }
+                if (writtenAt != null && replica.replayedThrough < writtenAt) {
+                    behindWrite = true;
+                    continue;
+                }
+                try {
+                    Connection conn = replica.pool.getConnection();
+                    replicaReads.increment();
+                    return conn;
+                }
+                catch (DbException exc) {
+                    replica.healthy = false;
+                }
+            }
+            (behindWrite ? stickyReads : failovers).increment();
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    public void recordWrite(Object key) {
+        if (!replicas.isEmpty() && key != null) {
+            lastWrites.put(key, System.currentTimeMillis());
+        }
+    }
+
+    public void recordWrites(Collection<?> keys) {
+        if (!replicas.isEmpty()) {
+            long now = System.currentTimeMillis();
+            keys.forEach(key -> lastWrites.put(key, now));
+        }
+    }
+
+    public ReplicaStats getStats() {
+        long now = System.currentTimeMillis();
+        return ReplicaStats.builder()
+                .replicas(replicas.size())
+                .healthy((int) replicas.stream().filter(replica -> replica.healthy).count())
+                .maxLagMillis(replicas.stream().filter(replica -> replica.healthy)
+                        .mapToLong(replica -> now - replica.replayedThrough).max().orElse(0))
+                .primaryReads(primaryReads.sum())
+                .replicaReads(replicaReads.sum())
+                .stickyReads(stickyReads.sum())
+                .failovers(failovers.sum())
+                .pendingWrites(lastWrites.size())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            replica.check();
+        }
+        long horizon = System.currentTimeMillis() - maxLagMs;
+        lastWrites.values().removeIf(writtenAt -> writtenAt < horizon);
+    }
+
+    private static class Replica {
+        private final ConnectionPool pool;
+        private volatile boolean healthy = false;
+        private volatile long replayedThrough;
+
+        private Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        private void check() {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                long checkedAt = System.currentTimeMillis();
+                conn = pool.getConnection();
+                statement = conn.prepareStatement(REPLICATION_LAG);
+                ResultSet rs = statement.executeQuery();
+                rs.next();
+                replayedThrough = checkedAt - Math.max(0, rs.getLong("lag_ms"));
+                healthy = true;
+            }
+            catch (SQLException | DbException exc) {
+                healthy = false;
+            }
+            finally {
+                try {
+                    Database.closeStatement(statement);
+                    Database.closeConnection(conn);
+                }
+                catch (DbException ignored) {
+                }
+            }
+        }
+    }
+}
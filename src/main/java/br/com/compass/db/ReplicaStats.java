@@ -0,0 +1,25 @@
+package br.com.compass.db;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class ReplicaStats {
+
+    int replicas;
+
+    int healthy;
+
+    long maxLagMillis;
+
+    long primaryReads;
+
+    long replicaReads;
+
+    long stickyReads;
+
+    long failovers;
+
+    long pendingWrites;
+}
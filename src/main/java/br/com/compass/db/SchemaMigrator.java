@@ -0,0 +1,219 @@
+package br.com.compass.db;
+
+import br.com.compass.db.exception.DbException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HexFormat;
+import java.util.Properties;
+
+public class SchemaMigrator {
+
+    private static final String[] MIGRATIONS = {
+            "V1__base_schema.sql",
+            "V2__partition_transactions.sql",
+            "V3__indexes.sql",
+            "V4__end_of_day_checkpoints.sql",
+            "V5__transaction_journal.sql",
+            "V6__double_entry_ledger.sql",
+            "V7__idempotency_keys.sql",
+            "V8__shard_transfers.sql",
+            "V9__transaction_created_at.sql"
+    };
+    private static final long MIGRATION_LOCK = 0x42414e4bL;
+    private static final String CHECK_VIOLATION = "23514";
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+    private static final String[] PARTITIONED_TABLES = {"tb_transaction", "tb_ledger_entry"};
+    private static final String[][] TRANSACTION_FOREIGN_KEYS = {
+            {"fk_account", "origin_account"},
+            {"fk_account_transfer", "transfer_account"}
+    };
+
+    private final ConnectionPool pool;
+
+    public SchemaMigrator(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public static void migrateOnStartup() {
+        Properties properties = Database.getProperties();
+        if (Boolean.parseBoolean(properties.getProperty("schema.migrateOnStartup", "true"))) {
+            for (ConnectionPool pool : Database.getShardPools()) {
+                SchemaMigrator migrator = new SchemaMigrator(pool);
+                migrator.migrate();
+                migrator.ensurePartitions(YearMonth.now(),
+                        Integer.parseInt(properties.getProperty("schema.partitionMonthsAhead", "3")));
+                migrator.ensureTransactionForeignKeys(ShardRouter.isEnabled());
+            }
+        }
+    }
+
+    public int migrate() {
+        createVersionTable();
+
+        int applied = 0;
+        for (int i = 0; i < MIGRATIONS.length; i++) {
+            int version = i + 1;
+            String name = MIGRATIONS[i];
+            String script = readScript(name);
+            String checksum = checksum(script);
+
+            boolean ran = Database.inTransaction(pool, conn -> {
+                lock(conn);
+                String recorded = appliedChecksum(conn, version);
+                if (recorded != null) {
+                    if (!recorded.equals(checksum)) {
+                        throw new DbException("Migration " + name + " was changed after it was applied", null);
+                    }
+                    return false;
+                }
+
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute(script);
+                }
+                try (PreparedStatement statement = conn.prepareStatement(
+                        "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)")) {
+                    statement.setInt(1, version);
+                    statement.setString(2, name);
+                    statement.setString(3, checksum);
+                    statement.executeUpdate();
+                }
+                return true;
+            });
+
+            if (ran) {
+                applied++;
+                System.out.println("Applied schema migration " + name);
+            }
+        }
+        return applied;
+    }
+
+    public void ensurePartitions(YearMonth from, int monthsAhead) {
+        for (String table : PARTITIONED_TABLES) {
+            for (int i = 0; i <= monthsAhead; i++) {
+                ensurePartition(table, from.plusMonths(i));
+            }
+        }
+    }
+
+    private void ensurePartition(String table, YearMonth month) {
+        String name = String.format("%s_y%04dm%02d", table, month.getYear(), month.getMonthValue());
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+
+        try {
+            Database.inTransaction(pool, conn -> {
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + table + " " +
+                            "FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+                }
+                return null;
+            });
+        }
+        catch (DbException exc) {
+            if (!(exc.getCause() instanceof SQLException sqlExc) || !CHECK_VIOLATION.equals(sqlExc.getSQLState())) {
+                throw exc;
+            }
+            System.out.println("Partition " + name + " skipped: the default partition already has rows for "
+                    + month);
+        }
+    }
+
+    public void ensureTransactionForeignKeys(boolean sharded) {
+        for (String[] key : TRANSACTION_FOREIGN_KEYS) {
+            try {
+                Database.inTransaction(pool, conn -> {
+                    lock(conn);
+                    boolean exists = foreignKeyExists(conn, key[0]);
+                    try (Statement statement = conn.createStatement()) {
+                        if (sharded && exists) {
+                            statement.execute("ALTER TABLE tb_transaction DROP CONSTRAINT " + key[0]);
+                            System.out.println("Dropped " + key[0] + ": transfer legs may reference accounts on "
+                                    + "other shards");
+                        } else if (!sharded && !exists) {
+                            statement.execute("ALTER TABLE tb_transaction ADD CONSTRAINT " + key[0]
+                                    + " FOREIGN KEY (" + key[1] + ") REFERENCES tb_account(number)");
+                            System.out.println("Restored " + key[0]);
+                        }
+                    }
+                    return null;
+                });
+            }
+            catch (DbException exc) {
+                if (!(exc.getCause() instanceof SQLException sqlExc)
+                        || !FOREIGN_KEY_VIOLATION.equals(sqlExc.getSQLState())) {
+                    throw exc;
+                }
+                System.out.println("Foreign key " + key[0] + " not restored: tb_transaction references accounts "
+                        + "that aren't in this database");
+            }
+        }
+    }
+
+    private boolean foreignKeyExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT 1 FROM pg_constraint WHERE conname=? AND conrelid='tb_transaction'::regclass")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void createVersionTable() {
+        Database.inTransaction(pool, conn -> {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version integer PRIMARY KEY, description varchar(100) NOT NULL, " +
+                        "checksum varchar(64) NOT NULL, applied_at timestamp NOT NULL DEFAULT now())");
+            }
+            return null;
+        });
+    }
+
+    private void lock(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+            statement.setLong(1, MIGRATION_LOCK);
+            statement.executeQuery().close();
+        }
+    }
+
+    private String appliedChecksum(Connection conn, int version) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "SELECT checksum FROM schema_version WHERE version=?")) {
+            statement.setInt(1, version);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getString("checksum") : null;
+            }
+        }
+    }
+
+    private static String readScript(String name) {
+        try (InputStream input = SchemaMigrator.class.getResourceAsStream("/db/migration/" + name)) {
+            if (input == null) {
+                throw new DbException("Migration " + name + " not found on the classpath", null);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        catch (IOException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+    }
+
+    private static String checksum(String script) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(script.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+}
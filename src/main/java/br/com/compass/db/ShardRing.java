@@ -0,0 +1,63 @@
+package br.com.compass.db;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class ShardRing {
+
+    private static final long POINT_SEED = 0x9e3779b97f4a7c15L;
+
+    private final Set<Integer> members;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(Collection<Integer> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A shard ring needs at least one member and one virtual node");
+        }
+        this.members = Set.copyOf(new TreeSet<>(members));
+
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard : this.members) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring.putIfAbsent(mix(((long) shard << 32 | node) ^ POINT_SEED), shard);
+            }
+        }
+
+        this.points = new long[ring.size()];
+        this.owners = new int[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+            points[i] = point.getKey();
+            owners[i++] = point.getValue();
+        }
+    }
+
+    public int shardFor(long accountNumber) {
+        long hash = mix(accountNumber);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (points[middle] < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public Set<Integer> getMembers() {
+        return members;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
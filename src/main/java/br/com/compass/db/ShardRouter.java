@@ -0,0 +1,236 @@
+package br.com.compass.db;
+
+import br.com.compass.db.exception.DbException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class ShardRouter implements AutoCloseable {
+
+    private static final String GET_MEMBERS = "SELECT shard_index FROM tb_shard_member";
+    private static final String GET_MOVES = "SELECT account_number, shard_index FROM tb_shard_move";
+
+    private final List<ReplicaRouter> shards;
+    private final int virtualNodes;
+    private final Map<Long, Integer> moved = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] stripes;
+    private volatile ShardRing ring;
+
+    public ShardRouter(List<ReplicaRouter> shards, Collection<Integer> members, Map<Long, Integer> moved,
+                       int virtualNodes, int stripes) {
+        this.shards = List.copyOf(shards);
+        this.virtualNodes = virtualNodes;
+        this.ring = new ShardRing(members, virtualNodes);
+        this.moved.putAll(moved);
+
+        if (members.size() < shards.size()) {
+            this.stripes = new ReentrantReadWriteLock[stripes];
+            Arrays.setAll(this.stripes, i -> new ReentrantReadWriteLock());
+        } else {
+            this.stripes = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !Database.getProperties().getProperty("dbshard.urls", "").isBlank();
+    }
+
+    public static ShardRouter single(ReplicaRouter shard) {
+        return new ShardRouter(List.of(shard), List.of(0), Map.of(), 1, 0);
+    }
+
+    public static ShardRouter load(List<ReplicaRouter> shards, int virtualNodes, int stripes) {
+        Connection conn = null;
+        PreparedStatement members = null;
+        PreparedStatement moves = null;
+
+        try {
+            conn = shards.get(0).getPrimary().getConnection();
+            members = conn.prepareStatement(GET_MEMBERS);
+            moves = conn.prepareStatement(GET_MOVES);
+
+            Set<Integer> joined = new TreeSet<>(List.of(0));
+            ResultSet rs = members.executeQuery();
+            while (rs.next()) {
+                joined.add(rs.getInt("shard_index"));
+            }
+
+            Map<Long, Integer> moved = new HashMap<>();
+            rs = moves.executeQuery();
+            while (rs.next()) {
+                moved.put(rs.getLong("account_number"), rs.getInt("shard_index"));
+            }
+
+            if (joined.stream().anyMatch(index -> index >= shards.size())) {
+                throw new DbException("dbshard.urls lists fewer shards than have joined the ring: " + joined, null);
+            }
+            return new ShardRouter(shards, joined, moved, virtualNodes, stripes);
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(members);
+            Database.closeStatement(moves);
+            Database.closeConnection(conn);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public List<ReplicaRouter> getShards() {
+        return shards;
+    }
+
+    public ReplicaRouter getShard(int index) {
+        return shards.get(index);
+    }
+
+    public ReplicaRouter getHome() {
+        return shards.get(0);
+    }
+
+    public int shardOf(long accountNumber) {
+        if (shards.size() == 1) {
+            return 0;
+        }
+        Integer shard = moved.isEmpty() ? null : moved.get(accountNumber);
+        return shard != null ? shard : ring.shardFor(accountNumber);
+    }
+
+    public ReplicaRouter forAccount(long accountNumber) {
+        return shards.get(shardOf(accountNumber));
+    }
+
+    public <T> T withAccount(long accountNumber, Supplier<T> work) {
+        if (stripes == null) {
+            return work.get();
+        }
+        Lock lock = stripes[stripe(accountNumber)].readLock();
+        lock.lock();
+        try {
+            return work.get();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T withAccounts(Collection<Long> accountNumbers, Supplier<T> work) {
+        if (stripes == null) {
+            return work.get();
+        }
+        int[] indexes = accountNumbers.stream().mapToInt(this::stripe).sorted().distinct().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].readLock().lock();
+                locked++;
+            }
+            return work.get();
+        }
+        finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].readLock().unlock();
+            }
+        }
+    }
+
+    public void recordWrite(Long accountNumber) {
+        if (accountNumber != null) {
+            forAccount(accountNumber).recordWrite(accountNumber);
+        }
+    }
+
+    public void recordWrites(Collection<Long> accountNumbers) {
+        if (shards.size() == 1) {
+            shards.get(0).recordWrites(accountNumbers);
+            return;
+        }
+        accountNumbers.forEach(this::recordWrite);
+    }
+
+    public Set<Integer> getMembers() {
+        return ring.getMembers();
+    }
+
+    public List<Integer> getJoiningShards() {
+        Set<Integer> members = ring.getMembers();
+        return IntStream.range(0, shards.size()).filter(index -> !members.contains(index)).boxed().toList();
+    }
+
+    public ShardRing getTargetRing() {
+        return new ShardRing(IntStream.range(0, shards.size()).boxed().toList(), virtualNodes);
+    }
+
+    public Lock lockForMove(long accountNumber) {
+        if (stripes == null) {
+            throw new IllegalStateException("No shard is waiting to join the ring");
+        }
+        return stripes[stripe(accountNumber)].writeLock();
+    }
+
+    public <T> T exclusively(Supplier<T> work) {
+        if (stripes == null) {
+            throw new IllegalStateException("No shard is waiting to join the ring");
+        }
+        int locked = 0;
+        try {
+            for (ReentrantReadWriteLock stripe : stripes) {
+                stripe.writeLock().lock();
+                locked++;
+            }
+            return work.get();
+        }
+        finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[i].writeLock().unlock();
+            }
+        }
+    }
+
+    public void move(long accountNumber, int shard) {
+        moved.put(accountNumber, shard);
+    }
+
+    public void activate(ShardRing target) {
+        ring = target;
+        moved.clear();
+    }
+
+    public ShardingStats getStats() {
+        return ShardingStats.builder()
+                .shards(shards.size())
+                .members(ring.getMembers().size())
+                .movedAccounts(moved.size())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        for (ReplicaRouter shard : shards.subList(1, shards.size())) {
+            shard.close();
+            shard.getPrimary().close();
+        }
+    }
+
+    private int stripe(long accountNumber) {
+        return (int) ((accountNumber * 0x9e3779b97f4a7c15L >>> 32) % stripes.length);
+    }
+}
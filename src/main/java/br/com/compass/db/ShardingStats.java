@@ -0,0 +1,15 @@
+package br.com.compass.db;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class ShardingStats {
+
+    int shards;
+
+    int members;
+
+    int movedAccounts;
+}
@@ -0,0 +1,10 @@
+package br.com.compass.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlWork<T> {
+
+    T execute(Connection conn) throws SQLException;
+}
@@ -0,0 +1,137 @@
+package br.com.compass.db;
+
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+class StatementCache {
+
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    synchronized PreparedStatement prepare(Connection owner, Connection physical, String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+            hits.incrementAndGet();
+            cached.owner = owner;
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        if (cached != null && cached.inUse) {
+            misses.incrementAndGet();
+            return TimedStatement.wrap(physical.prepareStatement(sql), sql);
+        }
+
+        misses.incrementAndGet();
+        CachedStatement created = new CachedStatement(physical.prepareStatement(sql), sql);
+        created.proxy = wrap(created);
+        created.owner = owner;
+        created.inUse = true;
+        statements.put(sql, created);
+        evictEldest();
+        return created.proxy;
+    }
+
+    synchronized void close() {
+        statements.values().forEach(cached -> closeQuietly(cached.statement));
+        statements.clear();
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > capacity && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next().getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private synchronized void release(CachedStatement cached) throws SQLException {
+        if (!cached.inUse) {
+            return;
+        }
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.statement.close();
+            return;
+        }
+        if (cached.statement.getResultSet() != null) {
+            cached.statement.getResultSet().close();
+        }
+        cached.statement.clearParameters();
+        cached.statement.clearBatch();
+        if (cached.statement.getFetchSize() != 0) {
+            cached.statement.setFetchSize(0);
+        }
+    }
+
+    private PreparedStatement wrap(CachedStatement cached) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            release(cached);
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return !cached.inUse || cached.statement.isClosed();
+                        }
+                        case "getConnection" -> {
+                            return cached.owner;
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                    }
+                    return TimedStatement.invoke(cached.statement, method, args, cached.sql, cached.timer);
+                });
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private final String sql;
+        private final Timer timer;
+        private PreparedStatement proxy;
+        private Connection owner;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+            this.timer = Metrics.sqlTimer(sql);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.compass.db;
+
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.SqlExecutionEvent;
+import br.com.compass.metrics.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+
+class TimedStatement {
+
+    private TimedStatement() {
+    }
+
+    static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        Timer timer = Metrics.sqlTimer(sql);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> invoke(statement, method, args, sql, timer);
+                });
+    }
+
+    static Object invoke(PreparedStatement statement, Method method, Object[] args, String sql, Timer timer)
+            throws Throwable {
+        if (!method.getName().startsWith("execute")) {
+            try {
+                return method.invoke(statement, args);
+            }
+            catch (InvocationTargetException exc) {
+                throw exc.getCause();
+            }
+        }
+
+        SqlExecutionEvent event = new SqlExecutionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            return method.invoke(statement, args);
+        }
+        catch (InvocationTargetException exc) {
+            failed = true;
+            timer.recordFailure();
+            throw exc.getCause();
+        }
+        finally {
+            timer.recordNanos(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.statement = timer.getName();
+                event.method = method.getName();
+                event.sql = sql;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
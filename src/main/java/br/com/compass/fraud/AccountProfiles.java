@@ -0,0 +1,83 @@
+package br.com.compass.fraud;
+
+import br.com.compass.model.enums.AccountType;
+
+import java.util.Arrays;
+
+public class AccountProfiles {
+
+    public static final long UNKNOWN = -1;
+
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private final Stripe[] stripes;
+
+    public AccountProfiles(int stripes, int capacity) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Account profiles need at least one stripe");
+        }
+        this.stripes = new Stripe[stripes];
+        Arrays.setAll(this.stripes, i -> new Stripe(Math.max(8, capacity / stripes)));
+    }
+
+    public void put(long accountNumber, long cpf, AccountType type) {
+        stripeFor(accountNumber).put(accountNumber, cpf * TYPES.length + type.ordinal());
+    }
+
+    public long get(long accountNumber) {
+        return stripeFor(accountNumber).get(accountNumber);
+    }
+
+    public static long cpfOf(long profile) {
+        return profile / TYPES.length;
+    }
+
+    public static AccountType typeOf(long profile) {
+        return TYPES[(int) (profile % TYPES.length)];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[(int) ((LongSlots.mix(key) >>> 40) % stripes.length)];
+    }
+
+    private static class Stripe {
+        private final LongSlots slots;
+        private long[] profiles;
+
+        private Stripe(int capacity) {
+            slots = new LongSlots(capacity);
+            profiles = new long[slots.capacity()];
+        }
+
+        synchronized void put(long key, long profile) {
+            if (slots.isFull()) {
+                int[] moved = slots.grow();
+                long[] old = profiles;
+                profiles = new long[slots.capacity()];
+                for (int slot = 0; slot < moved.length; slot++) {
+                    if (moved[slot] >= 0) {
+                        profiles[moved[slot]] = old[slot];
+                    }
+                }
+            }
+            profiles[slots.insert(key)] = profile;
+        }
+
+        synchronized long get(long key) {
+            int slot = slots.find(key);
+            return slot < 0 ? UNKNOWN : profiles[slot];
+        }
+
+        synchronized int size() {
+            return slots.size();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package br.com.compass.fraud;
+
+import java.util.Arrays;
+
+public class AmountBaseline {
+
+    private final int maxSamples;
+    private final Stripe[] stripes;
+
+    public AmountBaseline(int maxSamples, int stripes, int capacity) {
+        if (maxSamples < 1 || stripes < 1) {
+            throw new IllegalArgumentException("A baseline needs at least one sample and one stripe");
+        }
+        this.maxSamples = maxSamples;
+        this.stripes = new Stripe[stripes];
+        Arrays.setAll(this.stripes, i -> new Stripe(Math.max(8, capacity / stripes)));
+    }
+
+    public void record(long key, long value) {
+        stripeFor(key).record(key, value);
+    }
+
+    public boolean exceeds(long key, long value, double factor, long minSamples) {
+        return stripeFor(key).exceeds(key, value, factor, minSamples);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[(int) ((LongSlots.mix(key) >>> 40) % stripes.length)];
+    }
+
+    private class Stripe {
+        private final LongSlots slots;
+        private long[] samples;
+        private double[] means;
+
+        private Stripe(int capacity) {
+            slots = new LongSlots(capacity);
+            samples = new long[slots.capacity()];
+            means = new double[slots.capacity()];
+        }
+
+        synchronized void record(long key, long value) {
+            if (slots.isFull()) {
+                grow();
+            }
+            int slot = slots.insert(key);
+            if (samples[slot] < maxSamples) {
+                samples[slot]++;
+            }
+            means[slot] += (value - means[slot]) / samples[slot];
+        }
+
+        synchronized boolean exceeds(long key, long value, double factor, long minSamples) {
+            int slot = slots.find(key);
+            return slot >= 0 && samples[slot] >= minSamples && value > means[slot] * factor;
+        }
+
+        synchronized int size() {
+            return slots.size();
+        }
+
+        private void grow() {
+            int[] moved = slots.grow();
+            long[] oldSamples = samples;
+            double[] oldMeans = means;
+            samples = new long[slots.capacity()];
+            means = new double[slots.capacity()];
+
+            for (int slot = 0; slot < moved.length; slot++) {
+                if (moved[slot] >= 0) {
+                    samples[moved[slot]] = oldSamples[slot];
+                    means[moved[slot]] = oldMeans[slot];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.compass.fraud;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class FraudCheck {
+
+    long accountNumber;
+
+    long cpf;
+
+    long cents;
+
+    long accountTick;
+
+    long cpfTick;
+
+    long day;
+}
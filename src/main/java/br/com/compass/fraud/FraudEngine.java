@@ -0,0 +1,213 @@
+package br.com.compass.fraud;
+
+import br.com.compass.db.Database;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.FraudHistoryDAO;
+import br.com.compass.model.entity.Account;
+import br.com.compass.model.entity.DebitHistory;
+import br.com.compass.model.enums.AccountType;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.PostingException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.LongAdder;
+
+public class FraudEngine {
+
+    private static final long NO_DAY = Long.MIN_VALUE;
+    private static final long MILLIS_PER_DAY = 86_400_000;
+    private static final int INITIAL_CAPACITY = 1 << 14;
+
+    private static FraudEngine instance = null;
+
+    private final FraudLimits limits;
+    private final AccountDAO accountDAO;
+    private final AccountProfiles profiles;
+    private final SlidingWindowCounter accountWindows;
+    private final SlidingWindowCounter cpfWindows;
+    private final SlidingWindowCounter dailyWithdrawals;
+    private final AmountBaseline baselines;
+    private final long accountBucketMs;
+    private final long cpfBucketMs;
+    private final long accountMaxCents;
+    private final long cpfMaxCents;
+    private final long anomalyMinCents;
+    private final long[] dailyCapCents = new long[AccountType.values().length];
+    private final Timer[] timers = new Timer[FraudRule.values().length];
+    private final LongAdder[] rejections = new LongAdder[FraudRule.values().length];
+    private final LongAdder screened = new LongAdder();
+    private final LongAdder warmed = new LongAdder();
+
+    public FraudEngine(FraudLimits limits, AccountDAO accountDAO) {
+        this.limits = limits;
+        this.accountDAO = accountDAO;
+        this.profiles = new AccountProfiles(limits.getStripes(), INITIAL_CAPACITY);
+        this.accountWindows = new SlidingWindowCounter(limits.getWindowBuckets(), limits.getStripes(),
+                INITIAL_CAPACITY);
+        this.cpfWindows = new SlidingWindowCounter(limits.getWindowBuckets(), limits.getStripes(), INITIAL_CAPACITY);
+        this.dailyWithdrawals = new SlidingWindowCounter(1, limits.getStripes(), INITIAL_CAPACITY);
+        this.baselines = new AmountBaseline(limits.getAnomalySamples(), limits.getStripes(), INITIAL_CAPACITY);
+        this.accountBucketMs = Math.max(1, limits.getAccountWindowMs() / limits.getWindowBuckets());
+        this.cpfBucketMs = Math.max(1, limits.getCpfWindowMs() / limits.getWindowBuckets());
+        this.accountMaxCents = cents(limits.getAccountMaxValue());
+        this.cpfMaxCents = cents(limits.getCpfMaxValue());
+        this.anomalyMinCents = cents(limits.getAnomalyMinValue());
+        limits.getDailyWithdrawalCaps().forEach((type, cap) -> dailyCapCents[type.ordinal()] = cents(cap));
+
+        for (FraudRule rule : FraudRule.values()) {
+            timers[rule.ordinal()] = Metrics.timer("fraud", rule.getMetricName());
+            rejections[rule.ordinal()] = new LongAdder();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Database.getProperties().getProperty("fraud.enabled", "false"));
+    }
+
+    public static synchronized FraudEngine getInstance() {
+        if (instance == null) {
+            FraudEngine engine = new FraudEngine(FraudLimits.fromProperties(Database.getProperties()),
+                    AccountDAO.createAccountDAO());
+            engine.warmUp(FraudHistoryDAO.createFraudHistoryDAO());
+            instance = engine;
+        }
+        return instance;
+    }
+
+    public int warmUp(FraudHistoryDAO historyDAO) {
+        historyDAO.loadAccountProfiles(this::register);
+
+        long windowDays = Math.max(limits.getAccountWindowMs(), limits.getCpfWindowMs()) / MILLIS_PER_DAY + 1;
+        LocalDate from = LocalDate.now().minusDays(Math.max(limits.getHistoryDays(), windowDays));
+        return historyDAO.loadRecentDebits(from, this::replay);
+    }
+
+    public void register(Account account) {
+        if (account.getNumber() != null && account.getType() != null && account.getHolderCpf() != null) {
+            profiles.put(account.getNumber(), Long.parseLong(account.getHolderCpf()), account.getType());
+        }
+    }
+
+    public void replay(DebitHistory debit) {
+        long accountNumber = debit.getAccountNumber();
+        long cents = cents(debit.getValue());
+        long postedAt = debit.getPostedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long profile = profiles.get(accountNumber);
+
+        accountWindows.add(accountNumber, postedAt / accountBucketMs, cents);
+        if (profile != AccountProfiles.UNKNOWN) {
+            cpfWindows.add(AccountProfiles.cpfOf(profile), postedAt / cpfBucketMs, cents);
+        }
+        if (debit.getType() == TransactionType.WITHDRAWAL) {
+            dailyWithdrawals.add(accountNumber, debit.getPostedAt().toLocalDate().toEpochDay(), cents);
+        }
+        baselines.record(accountNumber, cents);
+        warmed.increment();
+    }
+
+    public FraudCheck screen(TransactionType type, Long accountNumber, BigDecimal value) {
+        screened.increment();
+        long cents = cents(value);
+        long profile = profileOf(accountNumber);
+        long now = System.currentTimeMillis();
+
+        long start = System.nanoTime();
+        evaluate(FraudRule.AMOUNT_ANOMALY, start, cents < anomalyMinCents || limits.getAnomalyFactor() <= 0
+                || !baselines.exceeds(accountNumber, cents, limits.getAnomalyFactor(), limits.getAnomalyMinSamples()));
+
+        long accountTick = now / accountBucketMs;
+        start = System.nanoTime();
+        evaluate(FraudRule.ACCOUNT_VELOCITY, start, accountWindows.tryAdd(accountNumber, accountTick, cents,
+                limits.getAccountMaxCount(), accountMaxCents));
+
+        long cpf = profile == AccountProfiles.UNKNOWN ? AccountProfiles.UNKNOWN : AccountProfiles.cpfOf(profile);
+        long cpfTick = now / cpfBucketMs;
+        if (cpf != AccountProfiles.UNKNOWN) {
+            start = System.nanoTime();
+            boolean passed = cpfWindows.tryAdd(cpf, cpfTick, cents, limits.getCpfMaxCount(), cpfMaxCents);
+            if (!passed) {
+                accountWindows.remove(accountNumber, accountTick, cents);
+            }
+            evaluate(FraudRule.CPF_VELOCITY, start, passed);
+        }
+
+        long cap = type == TransactionType.WITHDRAWAL && profile != AccountProfiles.UNKNOWN
+                ? dailyCapCents[AccountProfiles.typeOf(profile).ordinal()] : 0;
+        long day = cap > 0 ? LocalDate.now().toEpochDay() : NO_DAY;
+        if (cap > 0) {
+            start = System.nanoTime();
+            boolean passed = dailyWithdrawals.tryAdd(accountNumber, day, cents, 0, cap);
+            if (!passed) {
+                accountWindows.remove(accountNumber, accountTick, cents);
+                if (cpf != AccountProfiles.UNKNOWN) {
+                    cpfWindows.remove(cpf, cpfTick, cents);
+                }
+            }
+            evaluate(FraudRule.DAILY_WITHDRAWAL_CAP, start, passed);
+        }
+        return new FraudCheck(accountNumber, cpf, cents, accountTick, cpfTick, day);
+    }
+
+    public void complete(FraudCheck check, boolean posted) {
+        if (posted) {
+            baselines.record(check.getAccountNumber(), check.getCents());
+            return;
+        }
+        accountWindows.remove(check.getAccountNumber(), check.getAccountTick(), check.getCents());
+        if (check.getCpf() != AccountProfiles.UNKNOWN) {
+            cpfWindows.remove(check.getCpf(), check.getCpfTick(), check.getCents());
+        }
+        if (check.getDay() != NO_DAY) {
+            dailyWithdrawals.remove(check.getAccountNumber(), check.getDay(), check.getCents());
+        }
+    }
+
+    public long accountWindowCount(Long accountNumber) {
+        return accountWindows.count(accountNumber, System.currentTimeMillis() / accountBucketMs);
+    }
+
+    public FraudStats getStats() {
+        return FraudStats.builder()
+                .profiles(profiles.size())
+                .trackedAccounts(accountWindows.size())
+                .trackedCpfs(cpfWindows.size())
+                .warmedPostings(warmed.sum())
+                .screened(screened.sum())
+                .anomalyRejections(rejections[FraudRule.AMOUNT_ANOMALY.ordinal()].sum())
+                .accountVelocityRejections(rejections[FraudRule.ACCOUNT_VELOCITY.ordinal()].sum())
+                .cpfVelocityRejections(rejections[FraudRule.CPF_VELOCITY.ordinal()].sum())
+                .dailyCapRejections(rejections[FraudRule.DAILY_WITHDRAWAL_CAP.ordinal()].sum())
+                .build();
+    }
+
+    private long profileOf(Long accountNumber) {
+        long profile = profiles.get(accountNumber);
+        if (profile == AccountProfiles.UNKNOWN) {
+            Account account = accountDAO.getAccount(accountNumber);
+            if (account != null) {
+                register(account);
+                profile = profiles.get(accountNumber);
+            }
+        }
+        return profile;
+    }
+
+    private void evaluate(FraudRule rule, long start, boolean passed) {
+        Timer timer = timers[rule.ordinal()];
+        timer.recordNanos(System.nanoTime() - start);
+        if (!passed) {
+            timer.recordFailure();
+            rejections[rule.ordinal()].increment();
+            throw new PostingException(rule.getMessage());
+        }
+    }
+
+    private static long cents(BigDecimal value) {
+        return value.movePointRight(2).setScale(0, RoundingMode.UP).longValue();
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.compass.fraud;
+
+import br.com.compass.model.enums.AccountType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+@Builder
+@Value
+public class FraudLimits {
+
+    int stripes;
+
+    int windowBuckets;
+
+    long accountWindowMs;
+
+    long accountMaxCount;
+
+    BigDecimal accountMaxValue;
+
+    long cpfWindowMs;
+
+    long cpfMaxCount;
+
+    BigDecimal cpfMaxValue;
+
+    Map<AccountType, BigDecimal> dailyWithdrawalCaps;
+
+    double anomalyFactor;
+
+    long anomalyMinSamples;
+
+    BigDecimal anomalyMinValue;
+
+    int anomalySamples;
+
+    int historyDays;
+
+    public static FraudLimits fromProperties(Properties properties) {
+        Map<AccountType, BigDecimal> caps = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            caps.put(type, new BigDecimal(properties.getProperty(
+                    "fraud." + type.name() + ".dailyWithdrawalCap", defaultDailyWithdrawalCap(type))));
+        }
+
+        return FraudLimits.builder()
+                .stripes(Integer.parseInt(properties.getProperty("fraud.stripes", "64")))
+                .windowBuckets(Integer.parseInt(properties.getProperty("fraud.windowBuckets", "10")))
+                .accountWindowMs(Long.parseLong(properties.getProperty("fraud.account.windowMs", "60000")))
+                .accountMaxCount(Long.parseLong(properties.getProperty("fraud.account.maxCount", "10")))
+                .accountMaxValue(new BigDecimal(properties.getProperty("fraud.account.maxValue", "20000")))
+                .cpfWindowMs(Long.parseLong(properties.getProperty("fraud.cpf.windowMs", "3600000")))
+                .cpfMaxCount(Long.parseLong(properties.getProperty("fraud.cpf.maxCount", "60")))
+                .cpfMaxValue(new BigDecimal(properties.getProperty("fraud.cpf.maxValue", "100000")))
+                .dailyWithdrawalCaps(caps)
+                .anomalyFactor(Double.parseDouble(properties.getProperty("fraud.anomaly.factor", "20")))
+                .anomalyMinSamples(Long.parseLong(properties.getProperty("fraud.anomaly.minSamples", "10")))
+                .anomalyMinValue(new BigDecimal(properties.getProperty("fraud.anomaly.minValue", "1000")))
+                .anomalySamples(Integer.parseInt(properties.getProperty("fraud.anomaly.samples", "100")))
+                .historyDays(Integer.parseInt(properties.getProperty("fraud.historyDays", "30")))
+                .build();
+    }
+
+    private static String defaultDailyWithdrawalCap(AccountType type) {
+        return switch (type) {
+            case STUDENT -> "1000";
+            case SAVINGS, SALARY -> "3000";
+            case BUSINESS -> "50000";
+            default -> "10000";
+        };
+    }
+}
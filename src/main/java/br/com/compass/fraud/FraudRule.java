@@ -0,0 +1,20 @@
+package br.com.compass.fraud;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum FraudRule {
+
+    AMOUNT_ANOMALY("amountAnomaly", "The value is unusually high for this account and was held for review!"),
+
+    ACCOUNT_VELOCITY("accountVelocity", "Too many withdrawals and transfers from this account, try again later!"),
+
+    CPF_VELOCITY("cpfVelocity", "Too many withdrawals and transfers from this holder's accounts, try again later!"),
+
+    DAILY_WITHDRAWAL_CAP("dailyWithdrawalCap", "The value is higher than today's withdrawal limit for this account!");
+
+    private final String metricName;
+    private final String message;
+}
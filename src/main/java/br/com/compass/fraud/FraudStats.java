@@ -0,0 +1,27 @@
+package br.com.compass.fraud;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class FraudStats {
+
+    long profiles;
+
+    long trackedAccounts;
+
+    long trackedCpfs;
+
+    long warmedPostings;
+
+    long screened;
+
+    long anomalyRejections;
+
+    long accountVelocityRejections;
+
+    long cpfVelocityRejections;
+
+    long dailyCapRejections;
+}
@@ -0,0 +1,73 @@
+package br.com.compass.fraud;
+
+import java.util.Arrays;
+
+final class LongSlots {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+
+    LongSlots(int capacity) {
+        keys = new long[Integer.highestOneBit(Math.max(8, capacity - 1) << 1)];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    boolean isFull() {
+        return (size + 1) * 2 > keys.length;
+    }
+
+    int insert(long key) {
+        int mask = keys.length - 1;
+        for (int slot = (int) mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+                return slot;
+            }
+        }
+    }
+
+    int[] grow() {
+        long[] old = keys;
+        keys = new long[old.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+
+        int[] moved = new int[old.length];
+        for (int slot = 0; slot < old.length; slot++) {
+            moved[slot] = old[slot] == EMPTY ? -1 : insert(old[slot]);
+        }
+        return moved;
+    }
+
+    static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.compass.fraud;
+
+import java.util.Arrays;
+
+public class SlidingWindowCounter {
+
+    private final int buckets;
+    private final Stripe[] stripes;
+
+    public SlidingWindowCounter(int buckets, int stripes, int capacity) {
+        if (buckets < 1 || stripes < 1) {
+            throw new IllegalArgumentException("A sliding window needs at least one bucket and one stripe");
+        }
+        this.buckets = buckets;
+        this.stripes = new Stripe[stripes];
+        Arrays.setAll(this.stripes, i -> new Stripe(Math.max(8, capacity / stripes)));
+    }
+
+    public boolean tryAdd(long key, long tick, long value, long maxCount, long maxSum) {
+        return stripeFor(key).tryAdd(key, tick, value, maxCount, maxSum);
+    }
+
+    public void add(long key, long tick, long value) {
+        stripeFor(key).tryAdd(key, tick, value, 0, 0);
+    }
+
+    public void remove(long key, long tick, long value) {
+        stripeFor(key).remove(key, tick, value);
+    }
+
+    public long count(long key, long tick) {
+        return stripeFor(key).total(key, tick, false);
+    }
+
+    public long sum(long key, long tick) {
+        return stripeFor(key).total(key, tick, true);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripes[(int) ((LongSlots.mix(key) >>> 40) % stripes.length)];
+    }
+
+    private class Stripe {
+        private final LongSlots slots;
+        private long[] ticks;
+        private long[] counts;
+        private long[] sums;
+
+        private Stripe(int capacity) {
+            slots = new LongSlots(capacity);
+            ticks = new long[slots.capacity() * buckets];
+            counts = new long[ticks.length];
+            sums = new long[ticks.length];
+            Arrays.fill(ticks, Long.MIN_VALUE);
+        }
+
+        synchronized boolean tryAdd(long key, long tick, long value, long maxCount, long maxSum) {
+            if (slots.isFull()) {
+                grow();
+            }
+            int base = slots.insert(key) * buckets;
+            if (maxCount > 0 || maxSum > 0) {
+                long count = 0;
+                long sum = 0;
+                for (int i = base; i < base + buckets; i++) {
+                    if (ticks[i] > tick - buckets && ticks[i] <= tick) {
+                        count += counts[i];
+                        sum += sums[i];
+                    }
+                }
+                if ((maxCount > 0 && count + 1 > maxCount) || (maxSum > 0 && sum + value > maxSum)) {
+                    return false;
+                }
+            }
+
+            int bucket = base + (int) Math.floorMod(tick, (long) buckets);
+            if (ticks[bucket] > tick) {
+                return true;
+            }
+            if (ticks[bucket] < tick) {
+                ticks[bucket] = tick;
+                counts[bucket] = 0;
+                sums[bucket] = 0;
+            }
+            counts[bucket]++;
+            sums[bucket] += value;
+            return true;
+        }
+
+        synchronized void remove(long key, long tick, long value) {
+            int slot = slots.find(key);
+            if (slot < 0) {
+                return;
+            }
+            int bucket = slot * buckets + (int) Math.floorMod(tick, (long) buckets);
+            if (ticks[bucket] == tick) {
+                counts[bucket]--;
+                sums[bucket] -= value;
+            }
+        }
+
+        synchronized long total(long key, long tick, boolean sum) {
+            int slot = slots.find(key);
+            if (slot < 0) {
+                return 0;
+            }
+            long total = 0;
+            for (int i = slot * buckets; i < (slot + 1) * buckets; i++) {
+                if (ticks[i] > tick - buckets && ticks[i] <= tick) {
+                    total += sum ? sums[i] : counts[i];
+                }
+            }
+            return total;
+        }
+
+        synchronized int size() {
+            return slots.size();
+        }
+
+        private void grow() {
+            int[] moved = slots.grow();
+            long[] oldTicks = ticks;
+            long[] oldCounts = counts;
+            long[] oldSums = sums;
+            ticks = new long[slots.capacity() * buckets];
+            counts = new long[ticks.length];
+            sums = new long[ticks.length];
+            Arrays.fill(ticks, Long.MIN_VALUE);
+
+            for (int slot = 0; slot < moved.length; slot++) {
+                if (moved[slot] >= 0) {
+                    System.arraycopy(oldTicks, slot * buckets, ticks, moved[slot] * buckets, buckets);
+                    System.arraycopy(oldCounts, slot * buckets, counts, moved[slot] * buckets, buckets);
+                    System.arraycopy(oldSums, slot * buckets, sums, moved[slot] * buckets, buckets);
+                }
+            }
+        }
+    }
+}
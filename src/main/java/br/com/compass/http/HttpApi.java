@@ -0,0 +1,548 @@
+package br.com.compass.http;
+
+import br.com.compass.audit.AuditLog;
+import br.com.compass.audit.AuditStats;
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.PoolStats;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ReplicaStats;
+import br.com.compass.db.SchemaMigrator;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.ShardingStats;
+import br.com.compass.fraud.FraudEngine;
+import br.com.compass.fraud.FraudStats;
+import br.com.compass.metrics.LatencyHistogram;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.cache.CacheStats;
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.entity.Account;
+import br.com.compass.model.entity.StatementLine;
+import br.com.compass.service.BankService;
+import br.com.compass.service.OperationResult;
+import br.com.compass.service.ShardRebalancer;
+import br.com.compass.service.TransferRelay;
+import br.com.compass.shard.ShardStats;
+import br.com.compass.shard.ShardedPostingEngine;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HttpApi {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final HttpServer server;
+    private final HttpServer management;
+    private final ExecutorService executor;
+    private final BankService service;
+    private final ConnectionPool pool;
+    private final int maxPoolWaiters;
+    private final SessionStore sessions;
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public HttpApi(BankService service, ConnectionPool pool, int port, InetSocketAddress managementAddress,
+                   int maxPoolWaiters, SessionStore sessions, ExecutorService executor) throws IOException {
+        this.service = service;
+        this.pool = pool;
+        this.maxPoolWaiters = maxPoolWaiters;
+        this.sessions = sessions;
+        this.executor = executor;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(executor);
+        this.management = HttpServer.create(managementAddress, 0);
+        this.management.setExecutor(executor);
+
+        route("/login", "POST", false, this::login);
+        route("/logout", "POST", true, this::logout);
+        route("/balance", "GET", true, this::balance);
+        route("/deposit", "POST", true, this::deposit);
+        route("/withdraw", "POST", true, this::withdraw);
+        route("/transfer", "POST", true, this::transfer);
+        route("/statement", "GET", true, this::statement);
+        management.createContext("/metrics", exchange -> send(exchange, new Response(200, metrics())));
+        management.createContext("/metrics/prometheus", this::prometheus);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SchemaMigrator.migrateOnStartup();
+        Properties properties = Database.getProperties();
+        int port = Integer.parseInt(properties.getProperty("http.port", "8080"));
+        int threads = Integer.parseInt(properties.getProperty("http.workerThreads", "64"));
+        int maxPoolWaiters = Integer.parseInt(properties.getProperty("http.maxPoolWaiters", "32"));
+        InetSocketAddress managementAddress = new InetSocketAddress(
+                properties.getProperty("http.management.host", "127.0.0.1"),
+                Integer.parseInt(properties.getProperty("http.management.port", "9090")));
+        SessionStore sessions = new SessionStore(
+                Long.parseLong(properties.getProperty("http.session.idleMs", "900000")),
+                Long.parseLong(properties.getProperty("http.session.maxMs", "28800000")),
+                Long.parseLong(properties.getProperty("http.session.sweepMs", "60000")));
+        Metrics.setEnabled(Boolean.parseBoolean(properties.getProperty("metrics.enabled", "true")));
+        if (AuditLog.isEnabled()) {
+            AuditLog.getInstance();
+        }
+        if (TransferRelay.isEnabled()) {
+            TransferRelay.getInstance();
+        }
+        if (ShardRebalancer.isEnabled()) {
+            ShardRebalancer.startInBackground();
+        }
+
+        HttpApi api = new HttpApi(BankService.getInstance(), Database.getPool(), port, managementAddress,
+                maxPoolWaiters, sessions, BankService.newWorkerPool(threads));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            if (TransferRelay.isEnabled()) {
+                TransferRelay.getInstance().close();
+            }
+            if (ShardedPostingEngine.isEnabled()) {
+                ShardedPostingEngine.getInstance().close();
+            }
+            if (AuditLog.isEnabled()) {
+                AuditLog.getInstance().close();
+            }
+            Database.closeConnection();
+        }));
+        api.start();
+        System.out.println("HTTP API listening on port " + port + ", metrics on " + managementAddress);
+    }
+
+    public void start() {
+        server.start();
+        management.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        management.stop(0);
+        sessions.close();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Response login(Request request) {
+        String accountNumber = request.body.get("account");
+        String password = request.body.get("password");
+        if (accountNumber == null || password == null) {
+            return error(400, "account and password are required");
+        }
+
+        OperationResult<Account> result = service.login(accountNumber, password);
+        if (!result.isSuccess()) {
+            return error(401, result.getError());
+        }
+
+        Account account = result.getValue();
+        String token = sessions.create(account.getNumber());
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("token", token);
+        fields.put("number", account.getNumber());
+        fields.put("holder", account.getHolder());
+        fields.put("type", account.getType());
+        fields.put("balance", account.getBalance());
+        return new Response(200, Json.object(fields));
+    }
+
+    private Response logout(Request request) {
+        sessions.remove(request.token);
+        return new Response(200, Json.object(Map.of("loggedOut", true)));
+    }
+
+    private Response balance(Request request) {
+        if (!request.query.containsKey("date")) {
+            return balanceResponse(service.balance(request.accountNumber));
+        }
+        try {
+            return balanceResponse(service.balanceAt(request.accountNumber, LocalDate.parse(request.query.get("date"))));
+        }
+        catch (DateTimeParseException exc) {
+            return error(400, "Invalid date");
+        }
+    }
+
+    private Response deposit(Request request) {
+        BigDecimal value = decimal(request.body.get("value"));
+        if (value == null) {
+            return error(400, "Invalid value!");
+        }
+        return balanceResponse(service.deposit(request.idempotencyKey, request.accountNumber, value));
+    }
+
+    private Response withdraw(Request request) {
+        BigDecimal value = decimal(request.body.get("value"));
+        if (value == null) {
+            return error(400, "Invalid value!");
+        }
+        return balanceResponse(service.withdraw(request.idempotencyKey, request.accountNumber, value));
+    }
+
+    private Response transfer(Request request) {
+        BigDecimal value = decimal(request.body.get("value"));
+        Long target = number(request.body.get("target"));
+        if (value == null || target == null) {
+            return error(400, "target and value are required");
+        }
+        return balanceResponse(service.transfer(request.idempotencyKey, request.accountNumber, target,
+                value));
+    }
+
+    private Response statement(Request request) {
+        Long afterId;
+        LocalDate from;
+        LocalDate to;
+        int limit;
+        try {
+            afterId = request.query.containsKey("afterId") ? Long.parseLong(request.query.get("afterId")) : null;
+            from = request.query.containsKey("from") ? LocalDate.parse(request.query.get("from")) : null;
+            to = request.query.containsKey("to") ? LocalDate.parse(request.query.get("to")) : null;
+            limit = request.query.containsKey("limit") ? Integer.parseInt(request.query.get("limit")) : DEFAULT_PAGE_SIZE;
+        }
+        catch (NumberFormatException | DateTimeParseException exc) {
+            return error(400, "Invalid statement filter");
+        }
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        OperationResult<List<StatementLine>> result = service.statementPage(request.accountNumber, afterId, from, to,
+                limit);
+        if (!result.isSuccess()) {
+            return error(422, result.getError());
+        }
+
+        List<String> lines = new ArrayList<>();
+        Long lastId = null;
+        for (StatementLine line : result.getValue()) {
+            lines.add(statementLine(line));
+            lastId = line.id();
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (from != null && afterId == null) {
+            OperationResult<BigDecimal> opening = service.openingBalance(request.accountNumber, from);
+            fields.put("openingBalance", opening.isSuccess() ? opening.getValue() : null);
+        }
+        fields.put("transactions", new Json.RawJson(Json.array(lines)));
+        fields.put("nextAfterId", lines.size() == limit ? lastId : null);
+        return new Response(200, Json.object(fields));
+    }
+
+    private String statementLine(StatementLine line) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", line.id());
+        fields.put("transactionId", line.transactionId());
+        fields.put("type", line.type());
+        fields.put("value", line.absoluteAmount());
+        fields.put("date", line.entryDate());
+        fields.put("direction", line.isCredit() ? "+" : "-");
+        if (line.hasCounterparty()) {
+            fields.put("counterpart", line.counterpartyNumber());
+        }
+        return Json.object(fields);
+    }
+
+    private String metrics() {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        latencies.forEach((endpoint, histogram) -> {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("count", histogram.getCount());
+            fields.put("meanMicros", Math.round(histogram.getMean()));
+            fields.put("p50Micros", histogram.getPercentile(50));
+            fields.put("p99Micros", histogram.getPercentile(99));
+            fields.put("p999Micros", histogram.getPercentile(99.9));
+            fields.put("maxMicros", histogram.getMax());
+            endpoints.put(endpoint, new Json.RawJson(Json.object(fields)));
+        });
+
+        PoolStats stats = pool.getStats();
+        Map<String, Object> poolFields = new LinkedHashMap<>();
+        poolFields.put("active", stats.getActive());
+        poolFields.put("idle", stats.getIdle());
+        poolFields.put("waiting", stats.getWaiting());
+        poolFields.put("maxSize", stats.getMaxSize());
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("endpoints", new Json.RawJson(Json.object(endpoints)));
+        fields.put("pool", new Json.RawJson(Json.object(poolFields)));
+        if (ReplicaRouter.isEnabled()) {
+            fields.put("replicas", new Json.RawJson(replicaMetrics(Database.getReplicaRouter().getStats())));
+        }
+        if (ShardRouter.isEnabled()) {
+            fields.put("dbshards", new Json.RawJson(shardingMetrics(Database.getShardRouter().getStats(),
+                    TransferRelay.getInstance())));
+        }
+        if (FraudEngine.isEnabled()) {
+            fields.put("fraud", new Json.RawJson(fraudMetrics(FraudEngine.getInstance().getStats())));
+        }
+        fields.put("rejected", rejected.sum());
+        fields.put("sessions", sessions.size());
+        fields.put("expiredSessions", sessions.getExpired());
+        fields.put("timers", new Json.RawJson(timerMetrics()));
+        fields.put("idempotency", new Json.RawJson(cacheMetrics(IdempotencyCache.getInstance().getStats())));
+        if (ShardedPostingEngine.isEnabled()) {
+            fields.put("shards", new Json.RawJson(shardMetrics(ShardedPostingEngine.getInstance().getStats())));
+        }
+        if (AuditLog.isEnabled()) {
+            fields.put("audit", new Json.RawJson(auditMetrics(AuditLog.getInstance().getStats())));
+        }
+        return Json.object(fields);
+    }
+
+    private String timerMetrics() {
+        Map<String, Map<String, Object>> layers = new LinkedHashMap<>();
+        for (Timer timer : Metrics.getTimers()) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("count", timer.getCount());
+            fields.put("failures", timer.getFailures());
+            fields.put("meanMicros", timer.getCount() == 0 ? 0 : timer.getSumNanos() / timer.getCount() / 1_000);
+            fields.put("p50Micros", timer.getPercentileNanos(50) / 1_000);
+            fields.put("p99Micros", timer.getPercentileNanos(99) / 1_000);
+            fields.put("p999Micros", timer.getPercentileNanos(99.9) / 1_000);
+            fields.put("maxMicros", timer.getMaxNanos() / 1_000);
+            layers.computeIfAbsent(timer.getLayer(), layer -> new LinkedHashMap<>())
+                    .put(timer.getName(), new Json.RawJson(Json.object(fields)));
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        layers.forEach((layer, timers) -> fields.put(layer, new Json.RawJson(Json.object(timers))));
+        return Json.object(fields);
+    }
+
+    private void prometheus(HttpExchange exchange) throws IOException {
+        byte[] body = Metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private String replicaMetrics(ReplicaStats stats) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("replicas", stats.getReplicas());
+        fields.put("healthy", stats.getHealthy());
+        fields.put("maxLagMillis", stats.getMaxLagMillis());
+        fields.put("primaryReads", stats.getPrimaryReads());
+        fields.put("replicaReads", stats.getReplicaReads());
+        fields.put("stickyReads", stats.getStickyReads());
+        fields.put("failovers", stats.getFailovers());
+        fields.put("pendingWrites", stats.getPendingWrites());
+        return Json.object(fields);
+    }
+
+    private String shardingMetrics(ShardingStats stats, TransferRelay relay) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("shards", stats.getShards());
+        fields.put("members", stats.getMembers());
+        fields.put("movedAccounts", stats.getMovedAccounts());
+        fields.put("relayedTransfers", relay.getRelayed());
+        fields.put("relayFailures", relay.getFailures());
+        return Json.object(fields);
+    }
+
+    private String fraudMetrics(FraudStats stats) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("profiles", stats.getProfiles());
+        fields.put("trackedAccounts", stats.getTrackedAccounts());
+        fields.put("trackedCpfs", stats.getTrackedCpfs());
+        fields.put("warmedPostings", stats.getWarmedPostings());
+        fields.put("screened", stats.getScreened());
+        fields.put("anomalyRejections", stats.getAnomalyRejections());
+        fields.put("accountVelocityRejections", stats.getAccountVelocityRejections());
+        fields.put("cpfVelocityRejections", stats.getCpfVelocityRejections());
+        fields.put("dailyCapRejections", stats.getDailyCapRejections());
+        return Json.object(fields);
+    }
+
+    private String cacheMetrics(CacheStats stats) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("size", stats.getSize());
+        fields.put("hits", stats.getHits());
+        fields.put("misses", stats.getMisses());
+        fields.put("hitRatio", stats.getHitRatio());
+        fields.put("evictions", stats.getEvictions());
+        return Json.object(fields);
+    }
+
+    private String shardMetrics(ShardStats stats) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("shards", stats.getShards());
+        fields.put("hotAccounts", stats.getHotAccounts());
+        fields.put("queued", stats.getQueued());
+        fields.put("batches", stats.getBatches());
+        fields.put("postings", stats.getPostings());
+        fields.put("postingsPerBatch", stats.getPostingsPerBatch());
+        fields.put("commitP50Micros", stats.getCommitP50Micros());
+        fields.put("commitP99Micros", stats.getCommitP99Micros());
+        fields.put("failedBatches", stats.getFailedBatches());
+        return Json.object(fields);
+    }
+
+    private String auditMetrics(AuditStats stats) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("published", stats.getPublished());
+        fields.put("written", stats.getWritten());
+        fields.put("dropped", stats.getDropped());
+        fields.put("blocked", stats.getBlocked());
+        fields.put("buffered", stats.getBuffered());
+        fields.put("capacity", stats.getCapacity());
+        fields.put("batches", stats.getBatches());
+        fields.put("rotations", stats.getRotations());
+        fields.put("writeFailures", stats.getWriteFailures());
+        fields.put("fullPolicy", stats.getFullPolicy());
+        return Json.object(fields);
+    }
+
+    private void route(String path, String method, boolean authenticated, Handler handler) {
+        LatencyHistogram histogram = latencies.computeIfAbsent(path, key -> new LatencyHistogram());
+
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = dispatch(exchange, method, authenticated, handler);
+            }
+            catch (RuntimeException exc) {
+                response = error(500, "Internal error");
+            }
+            send(exchange, response);
+            histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        });
+    }
+
+    private Response dispatch(HttpExchange exchange, String method, boolean authenticated, Handler handler)
+            throws IOException {
+        if (!exchange.getRequestMethod().equals(method)) {
+            return error(405, "Method not allowed");
+        }
+        if (pool.getWaiting() >= maxPoolWaiters) {
+            rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            return error(503, "Server busy, please retry");
+        }
+
+        Request request = new Request();
+        request.query = query(exchange.getRequestURI().getRawQuery());
+        request.idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        if (authenticated) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            request.token = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring("Bearer ".length()) : null;
+            request.accountNumber = request.token == null ? null : sessions.resolve(request.token);
+            if (request.accountNumber == null) {
+                return error(401, "Login required");
+            }
+        }
+
+        try (InputStream body = exchange.getRequestBody()) {
+            request.body = Json.parseObject(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        catch (IllegalArgumentException exc) {
+            return error(400, exc.getMessage());
+        }
+        return handler.handle(request);
+    }
+
+    private void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private Response balanceResponse(OperationResult<BigDecimal> result) {
+        if (!result.isSuccess()) {
+            return error(422, result.getError());
+        }
+        return new Response(200, Json.object(Map.of("balance", result.getValue())));
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Json.object(Map.of("error", message)));
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static BigDecimal decimal(String value) {
+        try {
+            return value == null ? null : new BigDecimal(value);
+        }
+        catch (NumberFormatException exc) {
+            return null;
+        }
+    }
+
+    private static Long number(String value) {
+        try {
+            return value == null ? null : Long.parseLong(value);
+        }
+        catch (NumberFormatException exc) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Request request);
+    }
+
+    private static class Request {
+        private Map<String, String> query;
+        private Map<String, String> body;
+        private String token;
+        private Long accountNumber;
+        private String idempotencyKey;
+    }
+
+    private static class Response {
+        private final int status;
+        private final String json;
+
+        private Response(int status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+}
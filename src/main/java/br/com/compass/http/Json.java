@@ -0,0 +1,159 @@
+package br.com.compass.http;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+class Json {
+
+    private Json() {
+    }
+
+    static Map<String, String> parseObject(String body) {
+        try {
+            return readObject(body);
+        }
+        catch (IndexOutOfBoundsException | NumberFormatException exc) {
+            throw new IllegalArgumentException("Malformed JSON", exc);
+        }
+    }
+
+    private static Map<String, String> readObject(String body) {
+        Map<String, String> values = new HashMap<>();
+        String text = body == null ? "" : body.trim();
+        if (text.isEmpty()) {
+            return values;
+        }
+        if (!text.startsWith("{") || !text.endsWith("}")) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+
+        int[] position = {1};
+        skipWhitespace(text, position);
+        if (text.charAt(position[0]) == '}') {
+            return values;
+        }
+        while (true) {
+            skipWhitespace(text, position);
+            String key = readString(text, position);
+            skipWhitespace(text, position);
+            expect(text, position, ':');
+            skipWhitespace(text, position);
+            values.put(key, readValue(text, position));
+            skipWhitespace(text, position);
+            if (text.charAt(position[0]) == ',') {
+                position[0]++;
+                continue;
+            }
+            expect(text, position, '}');
+            return values;
+        }
+    }
+
+    static String object(Map<String, ?> fields) {
+        StringBuilder json = new StringBuilder("{");
+        Iterator<? extends Map.Entry<String, ?>> iterator = fields.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ?> field = iterator.next();
+            json.append(quote(field.getKey())).append(':').append(value(field.getValue()));
+            if (iterator.hasNext()) {
+                json.append(',');
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    static String array(List<String> elements) {
+        return "[" + String.join(",", elements) + "]";
+    }
+
+    private static String value(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof RawJson raw) {
+            return raw.json();
+        }
+        return quote(value.toString());
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String readValue(String text, int[] position) {
+        if (text.charAt(position[0]) == '"') {
+            return readString(text, position);
+        }
+        int start = position[0];
+        while (position[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(position[0])) < 0) {
+            position[0]++;
+        }
+        String literal = text.substring(start, position[0]);
+        return literal.equals("null") ? null : literal;
+    }
+
+    private static String readString(String text, int[] position) {
+        expect(text, position, '"');
+        StringBuilder value = new StringBuilder();
+        while (text.charAt(position[0]) != '"') {
+            char c = text.charAt(position[0]++);
+            if (c == '\\') {
+                char escaped = text.charAt(position[0]++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        value.append((char) Integer.parseInt(text.substring(position[0], position[0] + 4), 16));
+                        position[0] += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        position[0]++;
+        return value.toString();
+    }
+
+    private static void expect(String text, int[] position, char expected) {
+        if (position[0] >= text.length() || text.charAt(position[0]) != expected) {
+            throw new IllegalArgumentException("Malformed JSON: expected '" + expected + "' at " + position[0]);
+        }
+        position[0]++;
+    }
+
+    private static void skipWhitespace(String text, int[] position) {
+        while (position[0] < text.length() && Character.isWhitespace(text.charAt(position[0]))) {
+            position[0]++;
+        }
+    }
+
+    record RawJson(String json) {
+    }
+}
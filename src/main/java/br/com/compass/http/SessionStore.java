@@ -0,0 +1,97 @@
+package br.com.compass.http;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SessionStore implements AutoCloseable {
+
+    private final long idleNanos;
+    private final long maxNanos;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private final LongAdder expired = new LongAdder();
+
+    public SessionStore(long idleMs, long maxMs, long sweepMs) {
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+        this.maxNanos = TimeUnit.MILLISECONDS.toNanos(maxMs);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    public String create(Long accountNumber) {
+        String token = UUID.randomUUID().toString();
+        sessions.put(token, new Session(accountNumber, System.nanoTime()));
+        return token;
+    }
+
+    public Long resolve(String token) {
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (session.isExpired(now, idleNanos, maxNanos)) {
+            if (sessions.remove(token, session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.lastSeen = now;
+        return session.accountNumber;
+    }
+
+    public void remove(String token) {
+        sessions.remove(token);
+    }
+
+    public int sweep() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (entry.getValue().isExpired(now, idleNanos, maxNanos)
+                    && sessions.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        expired.add(removed);
+        return removed;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private static class Session {
+        private final Long accountNumber;
+        private final long createdAt;
+        private volatile long lastSeen;
+
+        private Session(Long accountNumber, long now) {
+            this.accountNumber = accountNumber;
+            this.createdAt = now;
+            this.lastSeen = now;
+        }
+
+        private boolean isExpired(long now, long idleNanos, long maxNanos) {
+            return now - lastSeen > idleNanos || now - createdAt > maxNanos;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.compass.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Metrics {
+
+    public static final String SQL = "sql";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> sqlTimers = new ConcurrentHashMap<>();
+    private static final Map<String, String> sqlLabels = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = true;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    public static Timer timer(String layer, String name) {
+        Map<String, Timer> layerTimers = timers.get(layer);
+        if (layerTimers == null) {
+            layerTimers = timers.computeIfAbsent(layer, key -> new ConcurrentHashMap<>());
+        }
+        Timer timer = layerTimers.get(name);
+        return timer != null ? timer : layerTimers.computeIfAbsent(name, key -> new Timer(layer, key));
+    }
+
+    public static Timer sqlTimer(String sql) {
+        Timer timer = sqlTimers.get(sql);
+        return timer != null ? timer : sqlTimers.computeIfAbsent(sql, key -> timer(SQL, labelOf(key)));
+    }
+
+    public static void labelSql(String sql, String label) {
+        sqlLabels.put(sql, label);
+    }
+
+    public static List<Timer> getTimers() {
+        List<Timer> all = new ArrayList<>();
+        timers.values().forEach(layerTimers -> all.addAll(layerTimers.values()));
+        all.sort(Comparator.comparing(Timer::getLayer).thenComparing(Timer::getName));
+        return all;
+    }
+
+    public static String prometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP bank_operation_seconds Latency of bank operations, DAO methods, SQL and pool waits\n");
+        text.append("# TYPE bank_operation_seconds summary\n");
+        List<Timer> all = getTimers();
+        for (Timer timer : all) {
+            String labels = "layer=\"" + timer.getLayer() + "\",name=\"" + escape(timer.getName()) + "\"";
+            for (double quantile : QUANTILES) {
+                text.append("bank_operation_seconds{").append(labels).append(",quantile=\"").append(quantile)
+                        .append("\"} ").append(seconds(timer.getPercentileNanos(quantile * 100))).append('\n');
+            }
+            text.append("bank_operation_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(timer.getSumNanos())).append('\n');
+            text.append("bank_operation_seconds_count{").append(labels).append("} ")
+                    .append(timer.getCount()).append('\n');
+        }
+
+        text.append("# HELP bank_operation_failures_total Failed bank operations, DAO methods and SQL executions\n");
+        text.append("# TYPE bank_operation_failures_total counter\n");
+        for (Timer timer : all) {
+            text.append("bank_operation_failures_total{layer=\"").append(timer.getLayer()).append("\",name=\"")
+                    .append(escape(timer.getName())).append("\"} ").append(timer.getFailures()).append('\n');
+        }
+        return text.toString();
+    }
+
+    static String labelOf(String sql) {
+        String label = sqlLabels.get(sql);
+        if (label != null) {
+            return label;
+        }
+
+        String[] words = sql.trim().split("\\s+");
+        for (int i = 0; i < words.length - 1; i++) {
+            String word = words[i].toUpperCase(Locale.ROOT);
+            if (word.equals("FROM") || word.equals("INTO") || word.equals("UPDATE")) {
+                return words[0].toUpperCase(Locale.ROOT) + " " + words[i + 1];
+            }
+        }
+        return words[0].toUpperCase(Locale.ROOT);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
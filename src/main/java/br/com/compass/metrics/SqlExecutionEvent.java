@@ -0,0 +1,25 @@
+package br.com.compass.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("br.com.compass.SqlExecution")
+@Label("SQL Execution")
+@Category({"BankProject", "Database"})
+@Description("A prepared statement execution through the connection pool")
+public class SqlExecutionEvent extends jdk.jfr.Event {
+
+    @Label("Statement")
+    public String statement;
+
+    @Label("Method")
+    public String method;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Failed")
+    public boolean failed;
+}
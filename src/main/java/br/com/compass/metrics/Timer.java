@@ -0,0 +1,82 @@
+package br.com.compass.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class Timer {
+
+    private final String layer;
+    private final String name;
+    private final LatencyHistogram nanos = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+
+    Timer(String layer, String name) {
+        this.layer = layer;
+        this.name = name;
+    }
+
+    public <T> T time(Supplier<T> operation) {
+        if (!Metrics.isEnabled()) {
+            return operation.get();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        }
+        catch (RuntimeException | Error exc) {
+            failures.increment();
+            throw exc;
+        }
+        finally {
+            recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    public void run(Runnable operation) {
+        time(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public void recordNanos(long elapsed) {
+        if (Metrics.isEnabled()) {
+            nanos.record(elapsed);
+        }
+    }
+
+    public void recordFailure() {
+        if (Metrics.isEnabled()) {
+            failures.increment();
+        }
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return nanos.getCount();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getSumNanos() {
+        return nanos.getSum();
+    }
+
+    public long getMaxNanos() {
+        return nanos.getMax();
+    }
+
+    public long getPercentileNanos(double percentile) {
+        return nanos.getPercentile(percentile);
+    }
+}
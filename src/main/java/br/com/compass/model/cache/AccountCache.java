@@ -0,0 +1,161 @@
+package br.com.compass.model.cache;
+
+import br.com.compass.db.Database;
+import br.com.compass.model.entity.Account;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class AccountCache {
+
+    private static final int STRIPES = 16;
+
+    private static AccountCache instance = null;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    public AccountCache(int maxSize, long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        int stripeCapacity = Math.max(1, maxSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public static synchronized AccountCache getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new AccountCache(
+                    Integer.parseInt(properties.getProperty("cache.account.maxSize", "10000")),
+                    Long.parseLong(properties.getProperty("cache.account.ttlMs", "30000")));
+        }
+        return instance;
+    }
+
+    public Account get(Long accountNumber, Function<Long, Account> loader) {
+        Stripe stripe = stripeFor(accountNumber);
+        long now = System.nanoTime();
+
+        synchronized (stripe) {
+            Entry entry = stripe.get(accountNumber);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.account.toBuilder().build();
+            }
+            if (entry != null) {
+                stripe.remove(accountNumber);
+                expirations.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        return load(accountNumber, loader);
+    }
+
+    public Account load(Long accountNumber, Function<Long, Account> loader) {
+        Stripe stripe = stripeFor(accountNumber);
+        long version;
+        synchronized (stripe) {
+            version = stripe.version;
+        }
+
+        long start = System.nanoTime();
+        Account account = loader.apply(accountNumber);
+        long elapsed = System.nanoTime() - start;
+
+        loads.incrementAndGet();
+        loadNanos.addAndGet(elapsed);
+        maxLoadNanos.accumulateAndGet(elapsed, Math::max);
+
+        if (account != null) {
+            synchronized (stripe) {
+                if (stripe.version == version) {
+                    stripe.put(accountNumber, new Entry(account.toBuilder().build(), start));
+                }
+            }
+        }
+        return account;
+    }
+
+    public void invalidate(Long accountNumber) {
+        Stripe stripe = stripeFor(accountNumber);
+        synchronized (stripe) {
+            stripe.version++;
+            if (stripe.remove(accountNumber) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidateAll(Iterable<Long> accountNumbers) {
+        accountNumbers.forEach(this::invalidate);
+    }
+
+    public CacheStats getStats() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        long loadCount = loads.get();
+        return CacheStats.builder()
+                .size(size)
+                .hits(hits.get())
+                .misses(misses.get())
+                .evictions(evictions.get())
+                .expirations(expirations.get())
+                .invalidations(invalidations.get())
+                .averageLoadMicros(loadCount == 0 ? 0 : loadNanos.get() / loadCount / 1_000)
+                .maxLoadMicros(maxLoadNanos.get() / 1_000)
+                .build();
+    }
+
+    private Stripe stripeFor(Long accountNumber) {
+        long hash = accountNumber * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    private static class Entry {
+        private final Account account;
+        private final long loadedAt;
+
+        private Entry(Account account, long loadedAt) {
+            this.account = account;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private class Stripe extends LinkedHashMap<Long, Entry> {
+        private final int capacity;
+        private long version = 0;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
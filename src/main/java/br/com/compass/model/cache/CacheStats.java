@@ -0,0 +1,30 @@
+package br.com.compass.model.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class CacheStats {
+
+    long size;
+
+    long hits;
+
+    long misses;
+
+    long evictions;
+
+    long expirations;
+
+    long invalidations;
+
+    long averageLoadMicros;
+
+    long maxLoadMicros;
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,183 @@
+package br.com.compass.model.cache;
+
+import br.com.compass.db.Database;
+import br.com.compass.model.entity.IdempotentOutcome;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class IdempotencyCache {
+
+    private static final int STRIPES = 16;
+
+    private static IdempotencyCache instance = null;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, CompletableFuture<IdempotentOutcome>> inFlight = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    public IdempotencyCache(int maxSize, long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        int stripeCapacity = Math.max(1, maxSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public static synchronized IdempotencyCache getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new IdempotencyCache(
+                    Integer.parseInt(properties.getProperty("cache.idempotency.maxSize", "100000")),
+                    Long.parseLong(properties.getProperty("cache.idempotency.ttlMs", "86400000")));
+        }
+        return instance;
+    }
+
+    public IdempotentOutcome execute(String key, Supplier<IdempotentOutcome> operation) {
+        IdempotentOutcome cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<IdempotentOutcome> pending = new CompletableFuture<>();
+        CompletableFuture<IdempotentOutcome> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            hits.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            cached = lookup(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                pending.complete(cached);
+                return cached;
+            }
+
+            misses.incrementAndGet();
+            long start = System.nanoTime();
+            IdempotentOutcome outcome = operation.get();
+            long elapsed = System.nanoTime() - start;
+            loads.incrementAndGet();
+            loadNanos.addAndGet(elapsed);
+            maxLoadNanos.accumulateAndGet(elapsed, Math::max);
+
+            put(key, outcome);
+            pending.complete(outcome);
+            return outcome;
+        }
+        catch (RuntimeException exc) {
+            pending.completeExceptionally(exc);
+            throw exc;
+        }
+        finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    public CacheStats getStats() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        long loadCount = loads.get();
+        return CacheStats.builder()
+                .size(size)
+                .hits(hits.get())
+                .misses(misses.get())
+                .evictions(evictions.get())
+                .expirations(expirations.get())
+                .averageLoadMicros(loadCount == 0 ? 0 : loadNanos.get() / loadCount / 1_000)
+                .maxLoadMicros(maxLoadNanos.get() / 1_000)
+                .build();
+    }
+
+    private IdempotentOutcome lookup(String key) {
+        Stripe stripe = stripeFor(key);
+        long now = System.nanoTime();
+
+        synchronized (stripe) {
+            Entry entry = stripe.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.storedAt >= ttlNanos) {
+                stripe.remove(key);
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.outcome;
+        }
+    }
+
+    private void put(String key, IdempotentOutcome outcome) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, new Entry(outcome, System.nanoTime()));
+        }
+    }
+
+    private IdempotentOutcome await(CompletableFuture<IdempotentOutcome> running) {
+        try {
+            return running.join();
+        }
+        catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exc;
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return stripes[(hash >>> 28) & (STRIPES - 1)];
+    }
+
+    private static class Entry {
+        private final IdempotentOutcome outcome;
+        private final long storedAt;
+
+        private Entry(IdempotentOutcome outcome, long storedAt) {
+            this.outcome = outcome;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private class Stripe extends LinkedHashMap<String, Entry> {
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package br.com.compass.model.dao;
 
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditEvent;
+import br.com.compass.audit.AuditLog;
 import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
 import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.cache.AccountCache;
 import br.com.compass.model.entity.Account;
 import br.com.compass.model.enums.AccountType;
+import br.com.compass.security.CredentialVerifier;
 import lombok.RequiredArgsConstructor;
 
 import java.sql.*;
@@ -13,17 +22,49 @@ import java.util.InputMismatchException;
 @RequiredArgsConstructor
 public class AccountDAO {
 
-    private final Connection conn;
+    private static final Timer GET_ACCOUNT = Metrics.timer("dao", "AccountDAO.getAccount");
+    private static final Timer CREATE_ACCOUNT = Metrics.timer("dao", "AccountDAO.createAccount");
+    private static final Timer EXISTS_ACCOUNT_TYPE = Metrics.timer("dao", "AccountDAO.existsAccountTypeForCpf");
+    private static final Timer LOGIN_ACCOUNT = Metrics.timer("dao", "AccountDAO.loginAccount");
+    private static final Timer ACTIVATE_ACCOUNT = Metrics.timer("dao", "AccountDAO.activateAccount");
+    private static final Timer UPDATE_ACCOUNT = Metrics.timer("dao", "AccountDAO.updateAccount");
+    private static final Timer GET_ACCOUNT_NUMBER_RANGE = Metrics.timer("dao", "AccountDAO.getAccountNumberRange");
+
+    private final ShardRouter shards;
+    private final AccountCache cache;
+    private final CredentialVerifier verifier;
 
     public static AccountDAO createAccountDAO() {
-        return new AccountDAO(Database.getConnection());
+        return new AccountDAO(Database.getShardRouter(), AccountCache.getInstance(),
+                CredentialVerifier.getInstance());
     }
 
     public Account getAccount(Long accountNumber) {
+        return GET_ACCOUNT.time(() -> cache.get(accountNumber, this::loadAccount));
+    }
+
+    public Account getAccount(Long accountNumber, boolean bypassCache) {
+        return GET_ACCOUNT.time(() -> bypassCache
+                ? cache.load(accountNumber, this::loadCurrentAccount)
+                : cache.get(accountNumber, this::loadAccount));
+    }
+
+    private Account loadAccount(Long accountNumber) {
+        return shards.withAccount(accountNumber, () -> readAccount(accountNumber, false));
+    }
+
+    private Account loadCurrentAccount(Long accountNumber) {
+        return shards.withAccount(accountNumber, () -> readAccount(accountNumber, true));
+    }
+
+    private Account readAccount(Long accountNumber, boolean primary) {
+        Connection conn = null;
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("SELECT * FROM tb_account WHERE number=?");
+            ReplicaRouter shard = shards.forAccount(accountNumber);
+            conn = primary ? shard.getPrimary().getConnection() : shard.getReadConnection(accountNumber);
+            statement = conn.prepareStatement(SqlStatement.GET_ACCOUNT.getSql());
 
             statement.setLong(1, accountNumber);
 
@@ -49,43 +90,100 @@ public class AccountDAO {
         }
         finally {
             Database.closeStatement(statement);
+            Database.closeConnection(conn);
         }
         return null;
     }
 
     public void createAccount(Account account) {
+        CREATE_ACCOUNT.run(() -> {
+            long number = nextAccountNumber();
+            String password = verifier.hash(account.getPassword());
+
+            shards.withAccount(number, () -> {
+                ReplicaRouter shard = shards.forAccount(number);
+                Connection conn = null;
+                PreparedStatement statement = null;
+
+                try {
+                    conn = shard.getPrimary().getConnection();
+                    statement = conn.prepareStatement(SqlStatement.CREATE_ACCOUNT.getSql());
+
+                    bindAccount(statement, number, account, password);
+
+                    statement.executeUpdate();
+                    shard.recordWrite(number);
+                } catch (SQLException exc) {
+                    throw new DbException(exc.getMessage(), exc);
+                } finally {
+                    Database.closeStatement(statement);
+                    Database.closeConnection(conn);
+                }
+                return null;
+            });
+
+            account.setNumber(number);
+            AuditLog.record(AuditEvent.builder()
+                    .action(AuditAction.ACCOUNT_CREATED)
+                    .accountNumber(number)
+                    .detail(account.getType().name())
+                    .build());
+        });
+    }
+
+    private static void bindAccount(PreparedStatement statement, long number, Account account, String password)
+            throws SQLException {
+        statement.setLong(1, number);
+        statement.setString(2, account.getType().name());
+        statement.setBigDecimal(3, account.getBalance());
+        statement.setObject(4, account.getOpeningDate());
+        statement.setString(5, account.getHolder());
+        statement.setString(6, account.getHolderPhone());
+        statement.setObject(7, account.getHolderBirthdate());
+        statement.setString(8, account.getHolderCpf());
+        statement.setString(9, password);
+        statement.setBoolean(10, account.getActive());
+    }
+
+    private long nextAccountNumber() {
+        Connection conn = null;
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("INSERT INTO tb_account " +
-                    "(type, balance, opening_date, holder, holder_phone, holder_birthdate, " +
-                    "holder_cpf, password, active) VALUES (?::account_type, ?, ?, ?, ?, ?, ?, ?, ?)");
-
-            statement.setString(1, account.getType().name());
-            statement.setBigDecimal(2, account.getBalance());
-            statement.setObject(3, account.getOpeningDate());
-            statement.setString(4, account.getHolder());
-            statement.setString(5, account.getHolderPhone());
-            statement.setObject(6, account.getHolderBirthdate());
-            statement.setString(7, account.getHolderCpf());
-            statement.setString(8, account.getPassword());
-            statement.setBoolean(9, account.getActive());
-
-            statement.executeUpdate();
-            System.out.println("Account successfully created. Please login to activate transactions.\n");
-        } catch (SQLException exc) {
+            conn = shards.getHome().getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.NEXT_ACCOUNT_NUMBER.getSql());
+
+            ResultSet rs = statement.executeQuery();
+            rs.next();
+            return rs.getLong("number");
+        }
+        catch (SQLException exc) {
             throw new DbException(exc.getMessage(), exc);
-        } finally {
+        }
+        finally {
             Database.closeStatement(statement);
+            Database.closeConnection(conn);
         }
-
     }
 
     public boolean existsAccountTypeForCpf(AccountType accountType, String cpf) {
+        return EXISTS_ACCOUNT_TYPE.time(() -> {
+            for (ReplicaRouter shard : shards.getShards()) {
+                if (existsAccountTypeForCpf(shard, accountType, cpf)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private boolean existsAccountTypeForCpf(ReplicaRouter shard, AccountType accountType, String cpf) {
+        Connection conn = null;
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("SELECT 1 FROM tb_account WHERE holder_cpf=? AND type=?::account_type");
+            conn = shard.getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.EXISTS_ACCOUNT_TYPE_FOR_CPF.getSql());
 
             statement.setString(1, cpf);
             statement.setObject(2, accountType.name());
@@ -99,73 +197,184 @@ public class AccountDAO {
 
         } finally {
             Database.closeStatement(statement);
+            Database.closeConnection(conn);
         }
     }
 
     public Account loginAccount(String acc, String password) {
+        return LOGIN_ACCOUNT.time(() -> {
+            Long accountNumber;
+            try {
+                accountNumber = Long.parseLong(acc.trim());
+            }
+            catch (NumberFormatException exc) {
+                return null;
+            }
+
+            verifier.checkNotLocked(accountNumber);
+            String stored = loadCredentials(accountNumber);
+            if (!verifier.verify(accountNumber, password, stored)) {
+                return null;
+            }
+            if (verifier.needsRehash(stored)) {
+                updatePassword(accountNumber, stored, verifier.hash(password));
+            }
+            return getAccount(accountNumber, true);
+        });
+    }
+
+    private String loadCredentials(Long accountNumber) {
+        return shards.withAccount(accountNumber, () -> readCredentials(accountNumber));
+    }
+
+    private String readCredentials(Long accountNumber) {
+        Connection conn = null;
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("SELECT * FROM tb_account WHERE " +
-                    "number=CAST(? AS INTEGER) AND password=?");
+            conn = shards.forAccount(accountNumber).getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.GET_CREDENTIALS.getSql());
 
-            statement.setString(1, acc);
-            statement.setString(2, password);
+            statement.setLong(1, accountNumber);
 
             ResultSet rs = statement.executeQuery();
 
-            if (rs.next()) {
-                return Account.builder()
-                        .number(rs.getLong("number"))
-                        .balance(rs.getBigDecimal("balance"))
-                        .type(AccountType.valueOf(rs.getString("type")))
-                        .openingDate(rs.getDate("opening_date").toLocalDate())
-                        .holder(rs.getString("holder"))
-                        .holderPhone(rs.getString("holder_phone"))
-                        .holderBirthdate(rs.getDate("holder_birthdate").toLocalDate())
-                        .holderCpf(rs.getString("holder_cpf"))
-                        .password(rs.getString("password"))
-                        .active(rs.getBoolean("active"))
-                        .build();
-            }
-            else {
-                return null;
-            }
+            return rs.next() ? rs.getString("password") : null;
         }
-        catch (SQLException exception) {
-            System.out.println("Incorrect account number or/and password!\n");
-            return null;
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
         }
         finally {
             Database.closeStatement(statement);
+            Database.closeConnection(conn);
         }
     }
 
+    private void updatePassword(Long accountNumber, String previous, String hashed) {
+        shards.withAccount(accountNumber, () -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.forAccount(accountNumber).getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.UPDATE_PASSWORD.getSql());
+
+                statement.setString(1, hashed);
+                statement.setLong(2, accountNumber);
+                statement.setString(3, previous);
+
+                statement.executeUpdate();
+                shards.recordWrite(accountNumber);
+                cache.invalidate(accountNumber);
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+            return null;
+        });
+    }
+
+    public void activateAccount(Long accountNumber) {
+        ACTIVATE_ACCOUNT.run(() -> shards.withAccount(accountNumber, () -> {
+            ReplicaRouter shard = shards.forAccount(accountNumber);
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shard.getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.ACTIVATE_ACCOUNT.getSql());
+
+                statement.setLong(1, accountNumber);
+
+                statement.executeUpdate();
+                shard.recordWrite(accountNumber);
+                cache.invalidate(accountNumber);
+
+            } catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            } finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+            return null;
+        }));
+    }
+
     public void updateAccount(Account account) {
+        UPDATE_ACCOUNT.run(() -> shards.withAccount(account.getNumber(), () -> {
+            ReplicaRouter shard = shards.forAccount(account.getNumber());
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shard.getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.UPDATE_ACCOUNT.getSql());
+
+                statement.setString(1, account.getType().name());
+                statement.setBigDecimal(2, account.getBalance());
+                statement.setObject(3, account.getOpeningDate());
+                statement.setString(4, account.getHolder());
+                statement.setString(5, account.getHolderPhone());
+                statement.setObject(6, account.getHolderBirthdate());
+                statement.setString(7, account.getHolderCpf());
+                statement.setString(8, account.getPassword());
+                statement.setBoolean(9, account.getActive());
+                statement.setLong(10, account.getNumber());
+
+                statement.executeUpdate();
+                shard.recordWrite(account.getNumber());
+                cache.invalidate(account.getNumber());
+
+            } catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            } finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+            return null;
+        }));
+    }
+
+    public long[] getAccountNumberRange() {
+        return GET_ACCOUNT_NUMBER_RANGE.time(() -> {
+            long[] range = new long[0];
+            for (ReplicaRouter shard : shards.getShards()) {
+                long[] shardRange = getAccountNumberRange(shard);
+                if (shardRange.length == 0) {
+                    continue;
+                }
+                range = range.length == 0 ? shardRange : new long[]{Math.min(range[0], shardRange[0]),
+                        Math.max(range[1], shardRange[1])};
+            }
+            return range;
+        });
+    }
+
+    private long[] getAccountNumberRange(ReplicaRouter shard) {
+        Connection conn = null;
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("UPDATE tb_account SET " +
-                    "type=?::account_type, balance=?, opening_date=?, holder=?, holder_phone=?, holder_birthdate=?, " +
-                    "holder_cpf=?, password=?, active=? WHERE number=?");
-
-            statement.setString(1, account.getType().name());
-            statement.setBigDecimal(2, account.getBalance());
-            statement.setObject(3, account.getOpeningDate());
-            statement.setString(4, account.getHolder());
-            statement.setString(5, account.getHolderPhone());
-            statement.setObject(6, account.getHolderBirthdate());
-            statement.setString(7, account.getHolderCpf());
-            statement.setString(8, account.getPassword());
-            statement.setBoolean(9, account.getActive());
-            statement.setLong(10, account.getNumber());
-
-            statement.executeUpdate();
+            conn = shard.getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.GET_ACCOUNT_NUMBER_RANGE.getSql());
 
-        } catch (SQLException exc) {
+            ResultSet rs = statement.executeQuery();
+
+            if (rs.next() && rs.getObject("first") != null) {
+                return new long[]{rs.getLong("first"), rs.getLong("last")};
+            }
+            return new long[0];
+        }
+        catch (SQLException exc) {
             throw new DbException(exc.getMessage(), exc);
-        } finally {
+        }
+        finally {
             Database.closeStatement(statement);
+            Database.closeConnection(conn);
         }
     }
 }
@@ -0,0 +1,173 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditEvent;
+import br.com.compass.audit.AuditLog;
+import br.com.compass.db.Database;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.entity.AccountImportResult;
+import br.com.compass.model.entity.ImportRejection;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AccountImportDAO {
+
+    private static final Timer IMPORT_ACCOUNTS = Metrics.timer("dao", "AccountImportDAO.importAccounts");
+
+    private static final String DATE_FORMAT = "'^[1-9][0-9]{3}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])$'";
+
+    private static final String[][] VALIDATIONS = {
+            {"Missing required field", "type IS NULL OR holder IS NULL OR holder_phone IS NULL " +
+                    "OR holder_birthdate IS NULL OR holder_cpf IS NULL OR password IS NULL"},
+            {"Invalid account type", "type NOT IN (SELECT unnest(enum_range(NULL::account_type))::text)"},
+            {"Invalid CPF", "holder_cpf !~ '^[0-9]{11}$'"},
+            {"Invalid phone number", "holder_phone !~ '^[0-9]{11}$'"},
+            {"Invalid name", "holder !~ '^[a-zA-Z'' ]{1,40}$'"},
+            {"Invalid password", "length(password) NOT BETWEEN 6 AND 20"},
+            {"Invalid birthdate", "holder_birthdate !~ " + DATE_FORMAT},
+            {"Invalid birthdate", invalidDay("holder_birthdate")},
+            {"Invalid birthdate", "holder_birthdate::date > CURRENT_DATE " +
+                    "OR holder_birthdate::date < DATE '1900-01-01'"},
+            {"Invalid opening date", "opening_date IS NOT NULL AND opening_date !~ " + DATE_FORMAT},
+            {"Invalid opening date", "opening_date IS NOT NULL AND " + invalidDay("opening_date")},
+            {"Invalid balance", "balance IS NOT NULL AND balance !~ '^-?[0-9]{1,18}(\\.[0-9]{1,2})?$'"},
+            {"Invalid active flag", "active IS NOT NULL AND lower(active) NOT IN ('true', 'false', 't', 'f')"},
+            {"Account type already exists for this CPF", "EXISTS (SELECT 1 FROM tb_account a " +
+                    "WHERE a.holder_cpf=s.holder_cpf AND a.type::text=s.type)"},
+            {"Duplicate account type for this CPF in the file", "row_no IN (SELECT row_no FROM " +
+                    "(SELECT row_no, row_number() OVER (PARTITION BY holder_cpf, type ORDER BY row_no) AS rn " +
+                    "FROM tmp_account_import WHERE reject_reason IS NULL) d WHERE rn > 1)"}
+    };
+
+    private final ShardRouter shards;
+
+    public static AccountImportDAO createAccountImportDAO() {
+        return new AccountImportDAO(Database.getShardRouter());
+    }
+
+    public AccountImportResult importAccounts(Reader csv) {
+        return IMPORT_ACCOUNTS.time(() -> {
+            if (shards.getShardCount() > 1) {
+                throw new DbException("Bulk import loads a single database and isn't available with dbshard.urls",
+                        null);
+            }
+            long start = System.currentTimeMillis();
+
+            AccountImportResult result = Database.inTransaction(shards.getHome().getPrimary(), conn -> {
+                createStagingTable(conn);
+                long staged = copyIntoStaging(conn, csv);
+
+                executeUpdate(conn, "LOCK TABLE tb_account IN SHARE ROW EXCLUSIVE MODE");
+                for (String[] validation : VALIDATIONS) {
+                    rejectWhere(conn, validation[0], validation[1]);
+                }
+
+                long imported = executeUpdate(conn, "INSERT INTO tb_account (type, balance, opening_date, holder, " +
+                        "holder_phone, holder_birthdate, holder_cpf, password, active) " +
+                        "SELECT type::account_type, COALESCE(balance::numeric, 0), " +
+                        "COALESCE(opening_date::date, CURRENT_DATE), holder, holder_phone, holder_birthdate::date, " +
+                        "holder_cpf, password, COALESCE(active::boolean, false) " +
+                        "FROM tmp_account_import WHERE reject_reason IS NULL ORDER BY row_no");
+
+                return AccountImportResult.builder()
+                        .staged(staged)
+                        .imported(imported)
+                        .rejections(findRejections(conn))
+                        .build();
+            });
+
+            result.setElapsedMillis(System.currentTimeMillis() - start);
+            AuditLog.record(AuditEvent.builder()
+                    .action(AuditAction.ACCOUNTS_IMPORTED)
+                    .detail("Imported " + result.getImported() + " of " + result.getStaged() + " accounts ("
+                            + Math.round(result.getRowsPerSecond()) + " rows/s)")
+                    .build());
+            return result;
+        });
+    }
+
+    private static String invalidDay(String column) {
+        return "split_part(" + column + ", '-', 3)::int > extract(day FROM make_date(split_part(" + column +
+                ", '-', 1)::int, split_part(" + column + ", '-', 2)::int, 1) + interval '1 month' - interval '1 day')";
+    }
+
+    private void createStagingTable(Connection conn) throws SQLException {
+        executeUpdate(conn, "CREATE TEMP TABLE tmp_account_import (" +
+                "row_no bigserial, type text, balance text, opening_date text, holder text, " +
+                "holder_phone text, holder_birthdate text, holder_cpf text, password text, active text, " +
+                "reject_reason text) ON COMMIT DROP");
+    }
+
+    private long copyIntoStaging(Connection conn, Reader csv) throws SQLException {
+        try {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY tmp_account_import (type, balance, " +
+                    "opening_date, holder, holder_phone, holder_birthdate, holder_cpf, password, active) " +
+                    "FROM STDIN WITH (FORMAT csv, HEADER true)", csv);
+        }
+        catch (IOException exc) {
+            throw new SQLException("Failed to read the accounts file: " + exc.getMessage(), exc);
+        }
+    }
+
+    private void rejectWhere(Connection conn, String reason, String condition) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement("UPDATE tmp_account_import s SET reject_reason=? " +
+                    "WHERE CASE WHEN reject_reason IS NULL THEN (" + condition + ") ELSE false END");
+
+            statement.setString(1, reason);
+
+            statement.executeUpdate();
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private List<ImportRejection> findRejections(Connection conn) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement("SELECT row_no, holder_cpf, reject_reason FROM tmp_account_import " +
+                    "WHERE reject_reason IS NOT NULL ORDER BY row_no");
+
+            ResultSet rs = statement.executeQuery();
+            List<ImportRejection> rejections = new ArrayList<>();
+
+            while (rs.next()) {
+                rejections.add(ImportRejection.builder()
+                        .row(rs.getLong("row_no"))
+                        .holderCpf(rs.getString("holder_cpf"))
+                        .reason(rs.getString("reject_reason"))
+                        .build());
+            }
+            return rejections;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private long executeUpdate(Connection conn, String sql) throws SQLException {
+        Statement statement = null;
+
+        try {
+            statement = conn.createStatement();
+            return statement.executeUpdate(sql);
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+}
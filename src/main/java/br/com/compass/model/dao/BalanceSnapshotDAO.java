@@ -0,0 +1,306 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.entity.LedgerEntry;
+import br.com.compass.model.entity.ReconciliationResult;
+import br.com.compass.model.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class BalanceSnapshotDAO {
+
+    private static final Timer GET_BALANCE_AT = Metrics.timer("dao", "BalanceSnapshotDAO.getBalanceAt");
+    private static final Timer GET_OPENING_BALANCE = Metrics.timer("dao", "BalanceSnapshotDAO.getOpeningBalance");
+    private static final Timer RECONCILE_RANGE = Metrics.timer("dao", "BalanceSnapshotDAO.reconcileRange");
+
+    private final ShardRouter shards;
+
+    public static BalanceSnapshotDAO createBalanceSnapshotDAO() {
+        return new BalanceSnapshotDAO(Database.getShardRouter());
+    }
+
+    public BigDecimal getBalanceAt(Long accountNumber, LocalDate date) {
+        return GET_BALANCE_AT.time(() -> shards.withAccount(accountNumber, () -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.forAccount(accountNumber).getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.GET_BALANCE_AT.getSql());
+
+                statement.setLong(1, accountNumber);
+                statement.setObject(2, date);
+                statement.setLong(3, accountNumber);
+                statement.setObject(4, date);
+                statement.setLong(5, accountNumber);
+
+                ResultSet rs = statement.executeQuery();
+
+                return rs.next() ? rs.getBigDecimal("balance") : null;
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        }));
+    }
+
+    public BigDecimal getOpeningBalance(Long accountNumber, LocalDate from) {
+        return GET_OPENING_BALANCE.time(() -> getBalanceAt(accountNumber, from.minusDays(1)));
+    }
+
+    void applyPostings(Connection conn, List<Transaction> transactions) throws SQLException {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            entries.add(LedgerEntry.originEntry(transaction));
+            entries.add(LedgerEntry.counterEntry(transaction));
+        }
+        applyEntries(conn, entries);
+    }
+
+    void applyEntries(Connection conn, List<LedgerEntry> entries) throws SQLException {
+        Map<Long, TreeMap<LocalDate, BigDecimal>> deltas = new TreeMap<>();
+        for (LedgerEntry entry : entries) {
+            if (entry.getAccountNumber() != LedgerEntry.EXTERNAL_ACCOUNT) {
+                addDelta(deltas, entry.getAccountNumber(), entry.getEntryDate(), entry.getAmount());
+            }
+        }
+
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.APPLY_SNAPSHOT_DELTA.getSql());
+
+            for (Map.Entry<Long, TreeMap<LocalDate, BigDecimal>> account : deltas.entrySet()) {
+                Long number = account.getKey();
+                BigDecimal later = BigDecimal.ZERO;
+                for (BigDecimal delta : account.getValue().values()) {
+                    later = later.add(delta);
+                }
+
+                for (Map.Entry<LocalDate, BigDecimal> day : account.getValue().entrySet()) {
+                    LocalDate date = day.getKey();
+                    BigDecimal delta = day.getValue();
+                    later = later.subtract(delta);
+
+                    statement.setBigDecimal(1, delta);
+                    statement.setLong(2, number);
+                    statement.setObject(3, date);
+                    statement.setLong(4, number);
+                    statement.setObject(5, date);
+                    statement.setBigDecimal(6, delta);
+                    statement.setBigDecimal(7, delta);
+                    statement.setLong(8, number);
+                    statement.setObject(9, date);
+                    statement.setBigDecimal(10, delta);
+                    statement.setLong(11, number);
+                    statement.setObject(12, date);
+                    statement.setBigDecimal(13, later);
+                    statement.setLong(14, number);
+                    statement.addBatch();
+                }
+            }
+
+            statement.executeBatch();
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    public ReconciliationResult reconcileRange(long firstNumber, long lastNumber, boolean repair) {
+        return RECONCILE_RANGE.time(() -> {
+            long start = System.nanoTime();
+            long accounts = 0;
+            long rows = 0;
+            boolean repaired = false;
+            List<Long> mismatched = new ArrayList<>();
+
+            for (ReplicaRouter shard : shards.getShards()) {
+                ReconciliationResult result = reconcileShard(shard.getPrimary(), firstNumber, lastNumber, repair);
+                accounts += result.getAccountsChecked();
+                rows += result.getSnapshotRowsChecked();
+                repaired |= result.isRepaired();
+                mismatched.addAll(result.getMismatchedAccounts());
+            }
+
+            return ReconciliationResult.builder()
+                    .accountsChecked(accounts)
+                    .snapshotRowsChecked(rows)
+                    .mismatchedAccounts(mismatched)
+                    .repaired(repaired)
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        });
+    }
+
+    private ReconciliationResult reconcileShard(ConnectionPool pool, long firstNumber, long lastNumber,
+                                                boolean repair) {
+        return Database.inTransaction(pool, conn -> {
+            Map<Long, BigDecimal> balances = lockAccountRange(conn, firstNumber, lastNumber);
+            Map<Long, TreeMap<LocalDate, BigDecimal[]>> snapshots = loadSnapshots(conn, firstNumber, lastNumber);
+            Map<Long, TreeMap<LocalDate, BigDecimal>> netChanges = loadNetChanges(conn, firstNumber, lastNumber);
+
+            List<Long> mismatched = new ArrayList<>();
+            long rows = 0;
+            for (Map.Entry<Long, BigDecimal> account : balances.entrySet()) {
+                TreeMap<LocalDate, BigDecimal[]> recorded = snapshots.getOrDefault(account.getKey(),
+                        new TreeMap<>());
+                TreeMap<LocalDate, BigDecimal[]> expected = rebuild(account.getValue(),
+                        netChanges.getOrDefault(account.getKey(), new TreeMap<>()));
+                rows += recorded.size();
+                if (!matches(recorded, expected)) {
+                    mismatched.add(account.getKey());
+                    if (repair) {
+                        rewrite(conn, account.getKey(), expected);
+                    }
+                }
+            }
+
+            return ReconciliationResult.builder()
+                    .accountsChecked(balances.size())
+                    .snapshotRowsChecked(rows)
+                    .mismatchedAccounts(mismatched)
+                    .repaired(repair && !mismatched.isEmpty())
+                    .build();
+        });
+    }
+
+    private TreeMap<LocalDate, BigDecimal[]> rebuild(BigDecimal balance, TreeMap<LocalDate, BigDecimal> netChanges) {
+        TreeMap<LocalDate, BigDecimal[]> expected = new TreeMap<>();
+        BigDecimal closing = balance;
+        for (Map.Entry<LocalDate, BigDecimal> day : netChanges.descendingMap().entrySet()) {
+            expected.put(day.getKey(), new BigDecimal[]{day.getValue(), closing});
+            closing = closing.subtract(day.getValue());
+        }
+        return expected;
+    }
+
+    private boolean matches(TreeMap<LocalDate, BigDecimal[]> recorded, TreeMap<LocalDate, BigDecimal[]> expected) {
+        if (!recorded.keySet().equals(expected.keySet())) {
+            return false;
+        }
+        for (Map.Entry<LocalDate, BigDecimal[]> day : expected.entrySet()) {
+            BigDecimal[] actual = recorded.get(day.getKey());
+            if (actual[0].compareTo(day.getValue()[0]) != 0 || actual[1].compareTo(day.getValue()[1]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rewrite(Connection conn, Long accountNumber, TreeMap<LocalDate, BigDecimal[]> expected)
+            throws SQLException {
+        PreparedStatement delete = null;
+        PreparedStatement insert = null;
+
+        try {
+            delete = conn.prepareStatement(SqlStatement.DELETE_ACCOUNT_SNAPSHOTS.getSql());
+            delete.setLong(1, accountNumber);
+            delete.executeUpdate();
+
+            insert = conn.prepareStatement(SqlStatement.INSERT_SNAPSHOT.getSql());
+            for (Map.Entry<LocalDate, BigDecimal[]> day : expected.entrySet()) {
+                insert.setLong(1, accountNumber);
+                insert.setObject(2, day.getKey());
+                insert.setBigDecimal(3, day.getValue()[0]);
+                insert.setBigDecimal(4, day.getValue()[1]);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        finally {
+            Database.closeStatement(delete);
+            Database.closeStatement(insert);
+        }
+    }
+
+    private Map<Long, BigDecimal> lockAccountRange(Connection conn, long firstNumber, long lastNumber)
+            throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.LOCK_ACCOUNT_RANGE.getSql());
+            statement.setLong(1, firstNumber);
+            statement.setLong(2, lastNumber);
+
+            ResultSet rs = statement.executeQuery();
+            Map<Long, BigDecimal> balances = new TreeMap<>();
+            while (rs.next()) {
+                balances.put(rs.getLong("number"), rs.getBigDecimal("balance"));
+            }
+            return balances;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private Map<Long, TreeMap<LocalDate, BigDecimal[]>> loadSnapshots(Connection conn, long firstNumber,
+                                                                       long lastNumber) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.GET_SNAPSHOT_RANGE.getSql());
+            statement.setLong(1, firstNumber);
+            statement.setLong(2, lastNumber);
+
+            ResultSet rs = statement.executeQuery();
+            Map<Long, TreeMap<LocalDate, BigDecimal[]>> snapshots = new HashMap<>();
+            while (rs.next()) {
+                snapshots.computeIfAbsent(rs.getLong("account_number"), number -> new TreeMap<>())
+                        .put(rs.getDate("snapshot_date").toLocalDate(),
+                                new BigDecimal[]{rs.getBigDecimal("net_change"), rs.getBigDecimal("closing_balance")});
+            }
+            return snapshots;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private Map<Long, TreeMap<LocalDate, BigDecimal>> loadNetChanges(Connection conn, long firstNumber,
+                                                                      long lastNumber) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.GET_DAILY_NET_CHANGES.getSql());
+            statement.setLong(1, firstNumber);
+            statement.setLong(2, lastNumber);
+
+            ResultSet rs = statement.executeQuery();
+            Map<Long, TreeMap<LocalDate, BigDecimal>> netChanges = new HashMap<>();
+            while (rs.next()) {
+                netChanges.computeIfAbsent(rs.getLong("account_number"), number -> new TreeMap<>())
+                        .put(rs.getDate("entry_date").toLocalDate(), rs.getBigDecimal("net_change"));
+            }
+            return netChanges;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private static void addDelta(Map<Long, TreeMap<LocalDate, BigDecimal>> deltas, Long accountNumber,
+                                 LocalDate date, BigDecimal delta) {
+        deltas.computeIfAbsent(accountNumber, number -> new TreeMap<>()).merge(date, delta, BigDecimal::add);
+    }
+}
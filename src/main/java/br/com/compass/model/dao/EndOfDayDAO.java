@@ -0,0 +1,254 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.cache.AccountCache;
+import br.com.compass.model.entity.AccountTypeRule;
+import br.com.compass.model.entity.EndOfDayCheckpoint;
+import br.com.compass.model.entity.EndOfDayResult;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.AccountType;
+import br.com.compass.model.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class EndOfDayDAO {
+
+    private static final Timer GET_CHECKPOINTS = Metrics.timer("dao", "EndOfDayDAO.getCheckpoints");
+    private static final Timer CREATE_CHECKPOINTS = Metrics.timer("dao", "EndOfDayDAO.createCheckpoints");
+    private static final Timer PROCESS_PARTITION = Metrics.timer("dao", "EndOfDayDAO.processPartition");
+
+    private static final int CURSOR_FETCH_SIZE = 1000;
+
+    private final ConnectionPool pool;
+    private final PostingDAO postingDAO;
+    private final TransactionDAO transactionDAO;
+    private final AccountCache cache;
+
+    public static EndOfDayDAO createEndOfDayDAO(ConnectionPool pool) {
+        return new EndOfDayDAO(pool, PostingDAO.createPostingDAO(), TransactionDAO.createTransactionDao(),
+                AccountCache.getInstance());
+    }
+
+    public List<EndOfDayCheckpoint> getCheckpoints(LocalDate runDate) {
+        return GET_CHECKPOINTS.time(() -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = pool.getConnection();
+                statement = conn.prepareStatement(SqlStatement.GET_EOD_CHECKPOINTS.getSql());
+
+                statement.setObject(1, runDate);
+
+                ResultSet rs = statement.executeQuery();
+                List<EndOfDayCheckpoint> checkpoints = new ArrayList<>();
+
+                while (rs.next()) {
+                    checkpoints.add(EndOfDayCheckpoint.builder()
+                            .runDate(runDate)
+                            .partitionFirst(rs.getLong("partition_first"))
+                            .partitionLast(rs.getLong("partition_last"))
+                            .lastNumber(rs.getLong("last_number"))
+                            .accounts(rs.getLong("accounts"))
+                            .completed(rs.getBoolean("completed"))
+                            .build());
+                }
+                return checkpoints;
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        });
+    }
+
+    public void createCheckpoints(List<EndOfDayCheckpoint> checkpoints) {
+        CREATE_CHECKPOINTS.run(() -> {
+            Database.inTransaction(pool, conn -> {
+                PreparedStatement statement = null;
+
+                try {
+                    statement = conn.prepareStatement(SqlStatement.CREATE_EOD_CHECKPOINT.getSql());
+                    for (EndOfDayCheckpoint checkpoint : checkpoints) {
+                        statement.setObject(1, checkpoint.getRunDate());
+                        statement.setLong(2, checkpoint.getPartitionFirst());
+                        statement.setLong(3, checkpoint.getPartitionLast());
+                        statement.setLong(4, checkpoint.getLastNumber());
+                        statement.setLong(5, checkpoint.getAccounts());
+                        statement.setBoolean(6, checkpoint.isCompleted());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    return null;
+                }
+                finally {
+                    Database.closeStatement(statement);
+                }
+            });
+        });
+    }
+
+    public EndOfDayResult processPartition(EndOfDayCheckpoint checkpoint, Map<AccountType, AccountTypeRule> rules,
+                                           int batchSize) {
+        return PROCESS_PARTITION.time(() -> {
+            EndOfDayResult result = EndOfDayResult.builder()
+                    .runDate(checkpoint.getRunDate())
+                    .partitions(1)
+                    .totalInterest(BigDecimal.ZERO)
+                    .totalFees(BigDecimal.ZERO)
+                    .build();
+            if (checkpoint.isCompleted()) {
+                return result;
+            }
+
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = pool.getConnection();
+                conn.setAutoCommit(false);
+                statement = conn.prepareStatement(SqlStatement.EOD_ACCOUNT_CURSOR.getSql());
+                statement.setFetchSize(CURSOR_FETCH_SIZE);
+
+                statement.setLong(1, checkpoint.getLastNumber());
+                statement.setLong(2, checkpoint.getPartitionLast());
+
+                ResultSet rs = statement.executeQuery();
+                Map<Long, AccountType> batch = new LinkedHashMap<>();
+
+                while (rs.next()) {
+                    batch.put(rs.getLong("number"), AccountType.valueOf(rs.getString("type")));
+                    if (batch.size() == batchSize) {
+                        postBatch(checkpoint, batch, rules, result, false);
+                        batch.clear();
+                    }
+                }
+                postBatch(checkpoint, batch, rules, result, true);
+                conn.commit();
+                return result;
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        });
+    }
+
+    private void postBatch(EndOfDayCheckpoint checkpoint, Map<Long, AccountType> batch,
+                           Map<AccountType, AccountTypeRule> rules, EndOfDayResult result, boolean last) {
+        LocalDate runDate = checkpoint.getRunDate();
+        Long lastNumber = batch.isEmpty() ? checkpoint.getLastNumber() : lastKey(batch);
+
+        List<Transaction> postings = Database.inTransaction(pool, conn -> {
+            Map<Long, PostingDAO.LockedAccount> locked = postingDAO.lockAccounts(conn, batch.keySet());
+            Map<Long, BigDecimal> deltas = new TreeMap<>();
+            List<Transaction> accepted = new ArrayList<>();
+
+            for (Map.Entry<Long, AccountType> account : batch.entrySet()) {
+                PostingDAO.LockedAccount current = locked.get(account.getKey());
+                if (current == null || !current.active) {
+                    continue;
+                }
+                AccountTypeRule rule = rules.get(account.getValue());
+                BigDecimal interest = rule.dailyInterest(current.balance);
+                BigDecimal fee = rule.fee(current.balance.add(interest), runDate);
+
+                if (interest.signum() > 0) {
+                    accepted.add(posting(TransactionType.DEPOSIT, interest, account.getKey(), runDate));
+                    deltas.merge(account.getKey(), interest, BigDecimal::add);
+                }
+                if (fee.signum() > 0) {
+                    accepted.add(posting(TransactionType.WITHDRAWAL, fee, account.getKey(), runDate));
+                    deltas.merge(account.getKey(), fee.negate(), BigDecimal::add);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                postingDAO.applyDeltas(conn, deltas);
+                transactionDAO.insertTransactions(conn, accepted);
+            }
+            advanceCheckpoint(conn, checkpoint, lastNumber, checkpoint.getAccounts() + batch.size(), last);
+            return accepted;
+        });
+
+        checkpoint.setLastNumber(lastNumber);
+        checkpoint.setAccounts(checkpoint.getAccounts() + batch.size());
+        checkpoint.setCompleted(last);
+
+        Set<Long> touched = new HashSet<>();
+        result.setAccounts(result.getAccounts() + batch.size());
+        for (Transaction posting : postings) {
+            touched.add(posting.getOriginAccountNumber());
+            if (posting.getType() == TransactionType.DEPOSIT) {
+                result.setInterestPostings(result.getInterestPostings() + 1);
+                result.setTotalInterest(result.getTotalInterest().add(posting.getValue()));
+            } else {
+                result.setFeePostings(result.getFeePostings() + 1);
+                result.setTotalFees(result.getTotalFees().add(posting.getValue()));
+            }
+        }
+        cache.invalidateAll(touched);
+    }
+
+    private void advanceCheckpoint(Connection conn, EndOfDayCheckpoint checkpoint, Long lastNumber, long accounts,
+                                   boolean completed) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.ADVANCE_EOD_CHECKPOINT.getSql());
+
+            statement.setLong(1, lastNumber);
+            statement.setLong(2, accounts);
+            statement.setBoolean(3, completed);
+            statement.setObject(4, checkpoint.getRunDate());
+            statement.setLong(5, checkpoint.getPartitionFirst());
+            statement.setLong(6, checkpoint.getLastNumber());
+
+            if (statement.executeUpdate() == 0) {
+                throw new DbException("Partition " + checkpoint.getPartitionFirst() + "-" + checkpoint.getPartitionLast()
+                        + " of " + checkpoint.getRunDate() + " was advanced by another run", null);
+            }
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private Transaction posting(TransactionType type, BigDecimal value, Long accountNumber, LocalDate runDate) {
+        return Transaction.builder()
+                .type(type)
+                .value(value)
+                .transactionDate(runDate)
+                .originAccountNumber(accountNumber)
+                .build();
+    }
+
+    private static Long lastKey(Map<Long, AccountType> batch) {
+        Long last = null;
+        for (Long number : batch.keySet()) {
+            last = number;
+        }
+        return last;
+    }
+}
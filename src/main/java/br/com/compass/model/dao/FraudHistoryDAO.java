@@ -0,0 +1,108 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.entity.Account;
+import br.com.compass.model.entity.DebitHistory;
+import br.com.compass.model.enums.AccountType;
+import br.com.compass.model.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class FraudHistoryDAO {
+
+    private static final Timer LOAD_ACCOUNT_PROFILES = Metrics.timer("dao", "FraudHistoryDAO.loadAccountProfiles");
+    private static final Timer LOAD_RECENT_DEBITS = Metrics.timer("dao", "FraudHistoryDAO.loadRecentDebits");
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final ShardRouter shards;
+
+    public static FraudHistoryDAO createFraudHistoryDAO() {
+        return new FraudHistoryDAO(Database.getShardRouter());
+    }
+
+    public int loadAccountProfiles(Consumer<Account> consumer) {
+        return LOAD_ACCOUNT_PROFILES.time(() -> {
+            int loaded = 0;
+            for (ReplicaRouter shard : shards.getShards()) {
+                Connection conn = null;
+                PreparedStatement statement = null;
+
+                try {
+                    conn = shard.getPrimary().getConnection();
+                    conn.setAutoCommit(false);
+                    statement = conn.prepareStatement(SqlStatement.GET_ACCOUNT_PROFILES.getSql());
+                    statement.setFetchSize(FETCH_SIZE);
+
+                    ResultSet rs = statement.executeQuery();
+                    while (rs.next()) {
+                        consumer.accept(Account.builder()
+                                .number(rs.getLong("number"))
+                                .holderCpf(rs.getString("holder_cpf"))
+                                .type(AccountType.valueOf(rs.getString("type")))
+                                .build());
+                        loaded++;
+                    }
+                }
+                catch (SQLException exc) {
+                    throw new DbException(exc.getMessage(), exc);
+                }
+                finally {
+                    Database.closeStatement(statement);
+                    Database.closeConnection(conn);
+                }
+            }
+            return loaded;
+        });
+    }
+
+    public int loadRecentDebits(LocalDate from, Consumer<DebitHistory> consumer) {
+        return LOAD_RECENT_DEBITS.time(() -> {
+            int loaded = 0;
+            for (ReplicaRouter shard : shards.getShards()) {
+                Connection conn = null;
+                PreparedStatement statement = null;
+
+                try {
+                    conn = shard.getPrimary().getConnection();
+                    conn.setAutoCommit(false);
+                    statement = conn.prepareStatement(SqlStatement.GET_RECENT_DEBITS.getSql());
+                    statement.setObject(1, from);
+                    statement.setFetchSize(FETCH_SIZE);
+
+                    ResultSet rs = statement.executeQuery();
+                    while (rs.next()) {
+                        Timestamp createdAt = rs.getTimestamp("created_at");
+                        LocalDateTime postedAt = createdAt != null ? createdAt.toLocalDateTime()
+                                : rs.getObject("transaction_date", LocalDate.class).atStartOfDay();
+                        consumer.accept(DebitHistory.builder()
+                                .type(TransactionType.fromName(rs.getString("type")))
+                                .accountNumber(rs.getLong("origin_account"))
+                                .value(rs.getBigDecimal("value"))
+                                .postedAt(postedAt)
+                                .build());
+                        loaded++;
+                    }
+                }
+                catch (SQLException exc) {
+                    throw new DbException(exc.getMessage(), exc);
+                }
+                finally {
+                    Database.closeStatement(statement);
+                    Database.closeConnection(conn);
+                }
+            }
+            return loaded;
+        });
+    }
+}
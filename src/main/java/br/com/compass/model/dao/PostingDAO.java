@@ -0,0 +1,949 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditLog;
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.SqlWork;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.cache.AccountCache;
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.entity.AccountBalance;
+import br.com.compass.model.entity.BatchCommit;
+import br.com.compass.model.entity.IdempotentOutcome;
+import br.com.compass.model.entity.LedgerEntry;
+import br.com.compass.model.entity.PendingTransfer;
+import br.com.compass.model.entity.PostingResult;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.PostingException;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RequiredArgsConstructor
+public class PostingDAO {
+
+    private static final Map<TransactionType, Timer> POSTING_TIMERS = new EnumMap<>(Map.of(
+            TransactionType.DEPOSIT, Metrics.timer("dao", "PostingDAO.deposit"),
+            TransactionType.WITHDRAWAL, Metrics.timer("dao", "PostingDAO.withdraw"),
+            TransactionType.TRANSFER, Metrics.timer("dao", "PostingDAO.transfer")));
+    private static final Timer PURGE_IDEMPOTENCY_KEYS = Metrics.timer("dao", "PostingDAO.purgeIdempotencyKeys");
+    private static final Timer GET_BALANCES = Metrics.timer("dao", "PostingDAO.getBalances");
+    private static final Timer COMMIT_POSTINGS = Metrics.timer("dao", "PostingDAO.commitPostings");
+    private static final Timer POST_BATCH = Metrics.timer("dao", "PostingDAO.postBatch");
+    private static final Timer CROSS_SHARD_TRANSFER = Metrics.timer("dao", "PostingDAO.crossShardTransfer");
+    private static final Timer DELIVER_TRANSFER = Metrics.timer("dao", "PostingDAO.deliverTransfer");
+    private static final Timer GET_PENDING_TRANSFERS = Metrics.timer("dao", "PostingDAO.getPendingTransfers");
+    private static final Timer PURGE_TRANSFERS = Metrics.timer("dao", "PostingDAO.purgeTransfers");
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    private final ShardRouter shards;
+    private final TransactionDAO transactionDAO;
+    private final AccountCache cache;
+    private final IdempotencyCache idempotencyCache;
+
+    public static PostingDAO createPostingDAO() {
+        return new PostingDAO(Database.getShardRouter(), TransactionDAO.createTransactionDao(),
+                AccountCache.getInstance(), IdempotencyCache.getInstance());
+    }
+
+    public BigDecimal deposit(Long accountNumber, BigDecimal value) {
+        return deposit(null, accountNumber, value);
+    }
+
+    public BigDecimal deposit(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        BigDecimal balance = shards.withAccount(accountNumber, () -> post(idempotencyKey, TransactionType.DEPOSIT,
+                accountNumber, null, value, conn -> {
+                    BigDecimal newBalance = applyDelta(conn, accountNumber, value, null);
+                    if (newBalance == null) {
+                        throw new PostingException("Account " + accountNumber + " doesn't exist!");
+                    }
+                    transactionDAO.insertTransaction(conn,
+                            posting(TransactionType.DEPOSIT, value, accountNumber, null));
+                    return newBalance;
+                }));
+        shards.recordWrite(accountNumber);
+        cache.invalidate(accountNumber);
+        AuditLog.posting(AuditAction.DEPOSIT, idempotencyKey, accountNumber, null, value, balance);
+        return balance;
+    }
+
+    public BigDecimal withdraw(Long accountNumber, BigDecimal value) {
+        return withdraw(null, accountNumber, value);
+    }
+
+    public BigDecimal withdraw(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        return withdraw(idempotencyKey, accountNumber, value, new AtomicBoolean());
+    }
+
+    public BigDecimal withdraw(String idempotencyKey, Long accountNumber, BigDecimal value, AtomicBoolean posted) {
+        BigDecimal balance = shards.withAccount(accountNumber, () -> post(idempotencyKey, TransactionType.WITHDRAWAL,
+                accountNumber, null, value, posted, conn -> {
+                    BigDecimal newBalance = applyDelta(conn, accountNumber, value.negate(), value);
+                    if (newBalance == null && lockAccounts(conn, Set.of(accountNumber)).isEmpty()) {
+                        throw new PostingException("Account " + accountNumber + " doesn't exist!");
+                    }
+                    if (newBalance == null) {
+                        throw new PostingException("The value is higher than the account balance!");
+                    }
+                    transactionDAO.insertTransaction(conn,
+                            posting(TransactionType.WITHDRAWAL, value, accountNumber, null));
+                    return newBalance;
+                }));
+        shards.recordWrite(accountNumber);
+        cache.invalidate(accountNumber);
+        AuditLog.posting(AuditAction.WITHDRAWAL, idempotencyKey, accountNumber, null, value, balance);
+        return balance;
+    }
+
+    public BigDecimal transfer(Long originNumber, Long targetNumber, BigDecimal value) {
+        return transfer(null, originNumber, targetNumber, value);
+    }
+
+    public BigDecimal transfer(String idempotencyKey, Long originNumber, Long targetNumber, BigDecimal value) {
+        return transfer(idempotencyKey, originNumber, targetNumber, value, new AtomicBoolean());
+    }
+
+    public BigDecimal transfer(String idempotencyKey, Long originNumber, Long targetNumber, BigDecimal value,
+                               AtomicBoolean posted) {
+        if (originNumber.equals(targetNumber)) {
+            throw new PostingException("The target account can't be the same as the origin account!");
+        }
+
+        BigDecimal balance = shards.withAccounts(List.of(originNumber, targetNumber),
+                () -> shards.shardOf(originNumber) == shards.shardOf(targetNumber)
+                        ? localTransfer(idempotencyKey, originNumber, targetNumber, value, posted)
+                        : crossShardTransfer(idempotencyKey, originNumber, targetNumber, value, posted));
+        shards.recordWrite(originNumber);
+        shards.recordWrite(targetNumber);
+        cache.invalidate(originNumber);
+        cache.invalidate(targetNumber);
+        AuditLog.posting(AuditAction.TRANSFER, idempotencyKey, originNumber, targetNumber, value, balance);
+        return balance;
+    }
+
+    private BigDecimal localTransfer(String idempotencyKey, Long originNumber, Long targetNumber, BigDecimal value,
+                                     AtomicBoolean posted) {
+        return post(idempotencyKey, TransactionType.TRANSFER, originNumber, targetNumber, value, posted, conn -> {
+            Map<Long, LockedAccount> locked = lockAccounts(conn, Set.of(originNumber, targetNumber));
+            LockedAccount origin = locked.get(originNumber);
+            LockedAccount target = locked.get(targetNumber);
+
+            if (origin == null) {
+                throw new PostingException("Account " + originNumber + " doesn't exist!");
+            }
+            if (target == null || !target.active) {
+                throw new PostingException("The target account is inactive or doesn't exist!");
+            }
+            if (origin.balance.compareTo(value) < 0) {
+                throw new PostingException("The value is higher than your account balance!");
+            }
+
+            applyDelta(conn, originNumber, value.negate(), null);
+            applyDelta(conn, targetNumber, value, null);
+            transactionDAO.insertTransaction(conn,
+                    posting(TransactionType.TRANSFER, value, originNumber, targetNumber));
+            return origin.balance.subtract(value);
+        });
+    }
+
+    private BigDecimal crossShardTransfer(String idempotencyKey, Long originNumber, Long targetNumber,
+                                          BigDecimal value, AtomicBoolean posted) {
+        return CROSS_SHARD_TRANSFER.time(() -> {
+            AccountBalance target = getBalances(shards.forAccount(targetNumber), Set.of(targetNumber))
+                    .get(targetNumber);
+            if (target == null || !target.isActive()) {
+                throw new PostingException("The target account is inactive or doesn't exist!");
+            }
+
+            PendingTransfer transfer = PendingTransfer.builder()
+                    .id(UUID.randomUUID())
+                    .originAccountNumber(originNumber)
+                    .targetAccountNumber(targetNumber)
+                    .value(value)
+                    .transactionDate(LocalDate.now())
+                    .build();
+            Transaction posting = posting(transfer);
+
+            BigDecimal balance = post(idempotencyKey, TransactionType.TRANSFER, originNumber, targetNumber, value,
+                    posted, conn -> {
+                        LockedAccount origin = lockAccounts(conn, Set.of(originNumber)).get(originNumber);
+                        if (origin == null) {
+                            throw new PostingException("Account " + originNumber + " doesn't exist!");
+                        }
+                        if (origin.balance.compareTo(value) < 0) {
+                            throw new PostingException("The value is higher than your account balance!");
+                        }
+
+                        applyDelta(conn, originNumber, value.negate(), null);
+                        transactionDAO.insertLeg(conn, posting, LedgerEntry.originEntry(posting));
+                        enqueueTransfer(conn, transfer);
+                        return origin.balance.subtract(value);
+                    });
+
+            if (posted.get()) {
+                try {
+                    deliverTransfer(transfer);
+                }
+                catch (DbException ignored) {
+                }
+            }
+            return balance;
+        });
+    }
+
+    public void deliverTransfer(PendingTransfer transfer) {
+        DELIVER_TRANSFER.run(() -> {
+            Long originNumber = transfer.getOriginAccountNumber();
+            Long targetNumber = transfer.getTargetAccountNumber();
+            Transaction posting = posting(transfer);
+
+            Boolean refunded = shards.withAccounts(List.of(originNumber, targetNumber), () -> {
+                if (!isTransferPending(transfer)) {
+                    return null;
+                }
+                boolean credited = Database.inTransaction(shards.forAccount(targetNumber).getPrimary(), conn -> {
+                    LockedAccount target = lockAccounts(conn, Set.of(targetNumber)).get(targetNumber);
+                    boolean active = target != null && target.active;
+                    Boolean previous = claimInbox(conn, transfer, active);
+                    if (previous != null) {
+                        return previous;
+                    }
+                    if (active) {
+                        applyDelta(conn, targetNumber, transfer.getValue(), null);
+                        transactionDAO.insertLeg(conn, posting, LedgerEntry.counterEntry(posting));
+                    }
+                    return active;
+                });
+
+                return Database.inTransaction(shards.forAccount(originNumber).getPrimary(), conn -> {
+                    if (!completeTransfer(conn, transfer.getId(), !credited) || credited) {
+                        return false;
+                    }
+                    Transaction refund = posting(TransactionType.TRANSFER, transfer.getValue(), targetNumber,
+                            originNumber);
+                    applyDelta(conn, originNumber, transfer.getValue(), null);
+                    transactionDAO.insertLeg(conn, refund, LedgerEntry.counterEntry(refund));
+                    return true;
+                });
+            });
+            if (refunded == null) {
+                return;
+            }
+
+            shards.recordWrite(targetNumber);
+            cache.invalidate(targetNumber);
+            if (refunded) {
+                shards.recordWrite(originNumber);
+                cache.invalidate(originNumber);
+                AuditLog.posting(AuditAction.TRANSFER_REFUNDED, null, originNumber, targetNumber,
+                        transfer.getValue(), null);
+            }
+        });
+    }
+
+    public List<PendingTransfer> getPendingTransfers(int shard, LocalDateTime before, int limit) {
+        return GET_PENDING_TRANSFERS.time(() -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.getShard(shard).getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.GET_PENDING_TRANSFERS.getSql());
+
+                statement.setObject(1, before);
+                statement.setInt(2, limit);
+
+                return readTransfers(statement.executeQuery());
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        });
+    }
+
+    public List<PendingTransfer> getPendingTransfers(Long originNumber) {
+        return GET_PENDING_TRANSFERS.time(() -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.forAccount(originNumber).getPrimary().getConnection();
+                statement = conn.prepareStatement(SqlStatement.GET_ACCOUNT_PENDING_TRANSFERS.getSql());
+
+                statement.setLong(1, originNumber);
+
+                return readTransfers(statement.executeQuery());
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        });
+    }
+
+    private List<PendingTransfer> readTransfers(ResultSet rs) throws SQLException {
+        List<PendingTransfer> transfers = new ArrayList<>();
+
+        while (rs.next()) {
+            transfers.add(PendingTransfer.builder()
+                    .id(rs.getObject("transfer_id", UUID.class))
+                    .originAccountNumber(rs.getLong("origin_account"))
+                    .targetAccountNumber(rs.getLong("target_account"))
+                    .value(rs.getBigDecimal("value"))
+                    .transactionDate(rs.getObject("transaction_date", LocalDate.class))
+                    .build());
+        }
+        return transfers;
+    }
+
+    private void enqueueTransfer(Connection conn, PendingTransfer transfer) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.ENQUEUE_TRANSFER.getSql());
+            statement.setObject(1, transfer.getId());
+            statement.setLong(2, transfer.getOriginAccountNumber());
+            statement.setLong(3, transfer.getTargetAccountNumber());
+            statement.setBigDecimal(4, transfer.getValue());
+            statement.setObject(5, transfer.getTransactionDate());
+            statement.executeUpdate();
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private boolean isTransferPending(PendingTransfer transfer) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = shards.forAccount(transfer.getOriginAccountNumber()).getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.IS_TRANSFER_PENDING.getSql());
+
+            statement.setObject(1, transfer.getId());
+
+            return statement.executeQuery().next();
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    private Boolean claimInbox(Connection conn, PendingTransfer transfer, boolean credited) throws SQLException {
+        PreparedStatement claim = null;
+        PreparedStatement select = null;
+
+        try {
+            claim = conn.prepareStatement(SqlStatement.CLAIM_TRANSFER_INBOX.getSql());
+            claim.setObject(1, transfer.getId());
+            claim.setLong(2, transfer.getTargetAccountNumber());
+            claim.setBoolean(3, credited);
+            if (claim.executeUpdate() == 1) {
+                return null;
+            }
+
+            select = conn.prepareStatement(SqlStatement.GET_TRANSFER_INBOX.getSql());
+            select.setObject(1, transfer.getId());
+            ResultSet rs = select.executeQuery();
+            return rs.next() && rs.getBoolean("credited");
+        }
+        finally {
+            Database.closeStatement(claim);
+            Database.closeStatement(select);
+        }
+    }
+
+    private boolean completeTransfer(Connection conn, UUID transferId, boolean refunded) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.COMPLETE_TRANSFER.getSql());
+            statement.setBoolean(1, refunded);
+            statement.setObject(2, transferId);
+            return statement.executeUpdate() == 1;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    public int purgeIdempotencyKeys(LocalDateTime before) {
+        return PURGE_IDEMPOTENCY_KEYS.time(() -> purgeEachShard(SqlStatement.PURGE_IDEMPOTENCY_KEYS, before));
+    }
+
+    public int purgeTransfers(LocalDateTime before) {
+        return PURGE_TRANSFERS.time(() -> purgeEachShard(SqlStatement.PURGE_TRANSFER_OUTBOX, before)
+                + purgeEachShard(SqlStatement.PURGE_TRANSFER_INBOX, before));
+    }
+
+    private int purgeEachShard(SqlStatement sql, LocalDateTime before) {
+        int purged = 0;
+        for (ReplicaRouter shard : shards.getShards()) {
+            purged += Database.inTransaction(shard.getPrimary(), conn -> {
+                PreparedStatement statement = null;
+
+                try {
+                    statement = conn.prepareStatement(sql.getSql());
+                    statement.setObject(1, before);
+                    return statement.executeUpdate();
+                }
+                finally {
+                    Database.closeStatement(statement);
+                }
+            });
+        }
+        return purged;
+    }
+
+    public Map<Long, AccountBalance> getBalances(Set<Long> numbers) {
+        return GET_BALANCES.time(() -> {
+            if (shards.getShardCount() == 1) {
+                return getBalances(shards.getHome(), numbers);
+            }
+
+            Map<Integer, Set<Long>> byShard = new TreeMap<>();
+            for (Long number : numbers) {
+                byShard.computeIfAbsent(shards.shardOf(number), shard -> new HashSet<>()).add(number);
+            }
+            Map<Long, AccountBalance> balances = new HashMap<>();
+            byShard.forEach((shard, shardNumbers) -> balances.putAll(getBalances(shards.getShard(shard),
+                    shardNumbers)));
+            return balances;
+        });
+    }
+
+    private Map<Long, AccountBalance> getBalances(ReplicaRouter shard, Set<Long> numbers) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = shard.getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.GET_ACCOUNT_BALANCES.getSql());
+
+            statement.setArray(1, conn.createArrayOf("bigint", numbers.toArray()));
+
+            ResultSet rs = statement.executeQuery();
+            Map<Long, AccountBalance> balances = new HashMap<>();
+
+            while (rs.next()) {
+                balances.put(rs.getLong("number"), AccountBalance.builder()
+                        .number(rs.getLong("number"))
+                        .balance(rs.getBigDecimal("balance"))
+                        .active(rs.getBoolean("active"))
+                        .build());
+            }
+            return balances;
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    public BatchCommit commitPostings(Map<Long, BigDecimal> deltas, List<Transaction> postings,
+                                      List<IdempotentOutcome> outcomes) {
+        return COMMIT_POSTINGS.time(() -> {
+            try {
+                Database.inTransaction(shards.getHome().getPrimary(), conn -> {
+                    Map<String, IdempotentOutcome> previous = new HashMap<>();
+                    for (IdempotentOutcome outcome : outcomes) {
+                        IdempotentOutcome claimed = claimKey(conn, outcome.getKey(), outcome.getType(),
+                                outcome.getAccountNumber(), outcome.getTransferAccountNumber(), outcome.getValue());
+                        if (claimed != null) {
+                            previous.put(outcome.getKey(), claimed);
+                        }
+                    }
+                    if (!previous.isEmpty()) {
+                        throw new BatchConflict(previous, Set.of());
+                    }
+
+                    Set<Long> uncovered = applyCoveredDeltas(conn, deltas);
+                    if (!uncovered.isEmpty()) {
+                        throw new BatchConflict(Map.of(), uncovered);
+                    }
+                    transactionDAO.insertTransactions(conn, postings);
+                    for (IdempotentOutcome outcome : outcomes) {
+                        recordResult(conn, outcome.getKey(), outcome.getBalance());
+                    }
+                    return null;
+                });
+            }
+            catch (BatchConflict conflict) {
+                return BatchCommit.builder().conflicts(conflict.previous).uncovered(conflict.uncovered).build();
+            }
+            shards.recordWrites(deltas.keySet());
+            cache.invalidateAll(deltas.keySet());
+            return BatchCommit.builder().conflicts(Map.of()).uncovered(Set.of()).build();
+        });
+    }
+
+    public static void checkIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new PostingException("The idempotency key must have between 1 and " + MAX_IDEMPOTENCY_KEY_LENGTH
+                    + " characters!");
+        }
+    }
+
+    private BigDecimal post(String idempotencyKey, TransactionType type, Long originNumber, Long targetNumber,
+                            BigDecimal value, SqlWork<BigDecimal> work) {
+        return post(idempotencyKey, type, originNumber, targetNumber, value, new AtomicBoolean(), work);
+    }
+
+    private BigDecimal post(String idempotencyKey, TransactionType type, Long originNumber, Long targetNumber,
+                            BigDecimal value, AtomicBoolean posted, SqlWork<BigDecimal> work) {
+        return POSTING_TIMERS.get(type).time(() -> {
+            if (idempotencyKey == null) {
+                return Database.inTransaction(shards.forAccount(originNumber).getPrimary(), conn -> {
+                    posted.set(false);
+                    BigDecimal balance = work.execute(conn);
+                    posted.set(true);
+                    return balance;
+                });
+            }
+            checkIdempotencyKey(idempotencyKey);
+
+            IdempotentOutcome outcome = idempotencyCache.execute(idempotencyKey,
+                    () -> postOnce(idempotencyKey, type, originNumber, targetNumber, value, posted, work));
+            if (!outcome.matches(type, originNumber, targetNumber, value)) {
+                throw new PostingException("The idempotency key was already used for a different operation!");
+            }
+            return outcome.getBalance();
+        });
+    }
+
+    private IdempotentOutcome postOnce(String idempotencyKey, TransactionType type, Long originNumber,
+                                       Long targetNumber, BigDecimal value, AtomicBoolean posted,
+                                       SqlWork<BigDecimal> work) {
+        return Database.inTransaction(shards.forAccount(originNumber).getPrimary(), conn -> {
+            posted.set(false);
+            IdempotentOutcome previous = claimKey(conn, idempotencyKey, type, originNumber, targetNumber, value);
+            if (previous != null) {
+                return previous;
+            }
+
+            BigDecimal balance = work.execute(conn);
+            recordResult(conn, idempotencyKey, balance);
+            posted.set(true);
+            return IdempotentOutcome.builder()
+                    .key(idempotencyKey)
+                    .type(type)
+                    .accountNumber(originNumber)
+                    .transferAccountNumber(targetNumber)
+                    .value(value)
+                    .balance(balance)
+                    .build();
+        });
+    }
+
+    private IdempotentOutcome claimKey(Connection conn, String idempotencyKey, TransactionType type, Long originNumber,
+                                       Long targetNumber, BigDecimal value) throws SQLException {
+        PreparedStatement claim = null;
+        PreparedStatement select = null;
+
+        try {
+            claim = conn.prepareStatement(SqlStatement.CLAIM_IDEMPOTENCY_KEY.getSql());
+            claim.setString(1, idempotencyKey);
+            claim.setString(2, type.name());
+            claim.setLong(3, originNumber);
+            if (targetNumber == null) {
+                claim.setNull(4, Types.INTEGER);
+            } else {
+                claim.setLong(4, targetNumber);
+            }
+            claim.setBigDecimal(5, value);
+
+            select = conn.prepareStatement(SqlStatement.GET_IDEMPOTENCY_KEY.getSql());
+            select.setString(1, idempotencyKey);
+
+            while (claim.executeUpdate() == 0) {
+                ResultSet rs = select.executeQuery();
+                if (rs.next()) {
+                    long transfer = rs.getLong("transfer_account");
+                    boolean noTransfer = rs.wasNull();
+                    return IdempotentOutcome.builder()
+                            .key(idempotencyKey)
+                            .type(TransactionType.fromName(rs.getString("type")))
+                            .accountNumber(rs.getLong("account_number"))
+                            .transferAccountNumber(noTransfer ? null : transfer)
+                            .value(rs.getBigDecimal("value"))
+                            .balance(rs.getBigDecimal("result_balance"))
+                            .build();
+                }
+            }
+            return null;
+        }
+        finally {
+            Database.closeStatement(claim);
+            Database.closeStatement(select);
+        }
+    }
+
+    private void recordResult(Connection conn, String idempotencyKey, BigDecimal balance) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.RECORD_IDEMPOTENT_RESULT.getSql());
+            statement.setBigDecimal(1, balance);
+            statement.setString(2, idempotencyKey);
+            statement.executeUpdate();
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    public List<PostingResult> postBatch(Iterable<Transaction> postings) {
+        return postBatch(postings, DEFAULT_CHUNK_SIZE);
+    }
+
+    public List<PostingResult> postBatch(Iterable<Transaction> postings, int chunkSize) {
+        return POST_BATCH.time(() -> {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+            }
+
+            List<PostingResult> results = new ArrayList<>();
+            List<Transaction> chunk = new ArrayList<>(chunkSize);
+
+            for (Transaction posting : postings) {
+                chunk.add(posting);
+                if (chunk.size() == chunkSize) {
+                    results.addAll(postChunk(chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                results.addAll(postChunk(chunk));
+            }
+            return results;
+        });
+    }
+
+    private List<PostingResult> postChunk(List<Transaction> chunk) {
+        Set<Long> numbers = new HashSet<>();
+        for (Transaction posting : chunk) {
+            if (posting.getOriginAccountNumber() != null) {
+                numbers.add(posting.getOriginAccountNumber());
+            }
+            if (posting.getTransferAccountNumber() != null) {
+                numbers.add(posting.getTransferAccountNumber());
+            }
+        }
+
+        PostingResult[] results = new PostingResult[chunk.size()];
+        List<Integer> crossShard = new ArrayList<>();
+        shards.withAccounts(numbers, () -> {
+            Map<Integer, List<Integer>> byShard = new TreeMap<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Transaction posting = chunk.get(i);
+                Long origin = posting.getOriginAccountNumber();
+                Long target = posting.getTransferAccountNumber();
+                int shard = origin == null ? 0 : shards.shardOf(origin);
+                if (posting.getType() == TransactionType.TRANSFER && target != null
+                        && shards.shardOf(target) != shard) {
+                    crossShard.add(i);
+                } else {
+                    byShard.computeIfAbsent(shard, index -> new ArrayList<>()).add(i);
+                }
+            }
+
+            byShard.forEach((shard, indexes) -> {
+                List<PostingResult> shardResults = postLocalChunk(shards.getShard(shard),
+                        indexes.stream().map(chunk::get).toList());
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = shardResults.get(i);
+                }
+            });
+            return null;
+        });
+
+        for (int index : crossShard) {
+            results[index] = postCrossShard(chunk.get(index));
+        }
+        return Arrays.asList(results);
+    }
+
+    private PostingResult postCrossShard(Transaction posting) {
+        if (posting.getValue() == null || posting.getValue().compareTo(BigDecimal.ZERO) <= 0) {
+            return PostingResult.builder().posting(posting).accepted(false).message("The value must be positive!")
+                    .build();
+        }
+        try {
+            transfer(posting.getOriginAccountNumber(), posting.getTransferAccountNumber(), posting.getValue());
+            posting.setTransactionDate(LocalDate.now());
+            return PostingResult.builder().posting(posting).accepted(true).message("Transaction successful!").build();
+        }
+        catch (PostingException exc) {
+            return PostingResult.builder().posting(posting).accepted(false).message(exc.getMessage()).build();
+        }
+    }
+
+    private List<PostingResult> postLocalChunk(ReplicaRouter shard, List<Transaction> chunk) {
+        Set<Long> touched = new HashSet<>();
+        List<PostingResult> chunkResults = Database.inTransaction(shard.getPrimary(), conn -> {
+            Set<Long> numbers = new HashSet<>();
+            for (Transaction posting : chunk) {
+                if (posting.getOriginAccountNumber() != null) {
+                    numbers.add(posting.getOriginAccountNumber());
+                }
+                if (posting.getTransferAccountNumber() != null) {
+                    numbers.add(posting.getTransferAccountNumber());
+                }
+            }
+
+            Map<Long, LockedAccount> locked = lockAccounts(conn, numbers);
+            Map<Long, BigDecimal> balances = new HashMap<>();
+            locked.forEach((number, account) -> balances.put(number, account.balance));
+
+            Map<Long, BigDecimal> deltas = new TreeMap<>();
+            List<Transaction> accepted = new ArrayList<>();
+            List<PostingResult> results = new ArrayList<>(chunk.size());
+
+            for (Transaction posting : chunk) {
+                String rejection = validate(posting, locked, balances);
+                if (rejection != null) {
+                    results.add(PostingResult.builder().posting(posting).accepted(false).message(rejection).build());
+                    continue;
+                }
+
+                Long origin = posting.getOriginAccountNumber();
+                BigDecimal value = posting.getValue();
+                switch (posting.getType()) {
+                    case DEPOSIT -> addDelta(origin, value, balances, deltas);
+                    case WITHDRAWAL -> addDelta(origin, value.negate(), balances, deltas);
+                    case TRANSFER -> {
+                        addDelta(origin, value.negate(), balances, deltas);
+                        addDelta(posting.getTransferAccountNumber(), value, balances, deltas);
+                    }
+                }
+                if (posting.getTransactionDate() == null) {
+                    posting.setTransactionDate(LocalDate.now());
+                }
+                accepted.add(posting);
+                results.add(PostingResult.builder().posting(posting).accepted(true)
+                        .message("Transaction successful!").build());
+            }
+
+            applyDeltas(conn, deltas);
+            transactionDAO.insertTransactions(conn, accepted);
+            touched.addAll(deltas.keySet());
+            return results;
+        });
+        shard.recordWrites(touched);
+        cache.invalidateAll(touched);
+        return chunkResults;
+    }
+
+    private String validate(Transaction posting, Map<Long, LockedAccount> locked, Map<Long, BigDecimal> balances) {
+        if (posting.getType() == null || posting.getOriginAccountNumber() == null || posting.getValue() == null) {
+            return "Incomplete posting!";
+        }
+        if (posting.getValue().compareTo(BigDecimal.ZERO) <= 0) {
+            return "The value must be positive!";
+        }
+
+        Long origin = posting.getOriginAccountNumber();
+        if (!locked.containsKey(origin)) {
+            return "Account " + origin + " doesn't exist!";
+        }
+        if (posting.getType() == TransactionType.TRANSFER) {
+            if (posting.getTransferAccountNumber() == null) {
+                return "The target account is inactive or doesn't exist!";
+            }
+            LockedAccount target = locked.get(posting.getTransferAccountNumber());
+            if (target == null || !target.active) {
+                return "The target account is inactive or doesn't exist!";
+            }
+            if (origin.equals(posting.getTransferAccountNumber())) {
+                return "The target account can't be the same as the origin account!";
+            }
+        }
+        if (posting.getType() != TransactionType.DEPOSIT && balances.get(origin).compareTo(posting.getValue()) < 0) {
+            return "The value is higher than the account balance!";
+        }
+        return null;
+    }
+
+    private void addDelta(Long accountNumber, BigDecimal delta, Map<Long, BigDecimal> balances,
+                          Map<Long, BigDecimal> deltas) {
+        balances.merge(accountNumber, delta, BigDecimal::add);
+        deltas.merge(accountNumber, delta, BigDecimal::add);
+    }
+
+    void applyDeltas(Connection conn, Map<Long, BigDecimal> deltas) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.ADD_TO_BALANCE.getSql());
+
+            for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+                if (delta.getValue().signum() == 0) {
+                    continue;
+                }
+                statement.setBigDecimal(1, delta.getValue());
+                statement.setLong(2, delta.getKey());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private Set<Long> applyCoveredDeltas(Connection conn, Map<Long, BigDecimal> deltas) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.ADD_TO_COVERED_BALANCE.getSql());
+            List<Long> numbers = new ArrayList<>();
+
+            for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+                if (delta.getValue().signum() == 0) {
+                    continue;
+                }
+                statement.setBigDecimal(1, delta.getValue());
+                statement.setLong(2, delta.getKey());
+                statement.setBigDecimal(3, delta.getValue());
+                statement.addBatch();
+                numbers.add(delta.getKey());
+            }
+
+            int[] counts = statement.executeBatch();
+            Set<Long> uncovered = new HashSet<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    uncovered.add(numbers.get(i));
+                }
+            }
+            return uncovered;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    Map<Long, LockedAccount> lockAccounts(Connection conn, Set<Long> numbers) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.LOCK_ACCOUNTS.getSql());
+
+            statement.setArray(1, conn.createArrayOf("bigint", numbers.toArray()));
+
+            ResultSet rs = statement.executeQuery();
+            Map<Long, LockedAccount> accounts = new HashMap<>();
+
+            while (rs.next()) {
+                accounts.put(rs.getLong("number"),
+                        new LockedAccount(rs.getBigDecimal("balance"), rs.getBoolean("active")));
+            }
+            return accounts;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private BigDecimal applyDelta(Connection conn, Long accountNumber, BigDecimal delta, BigDecimal minimumBalance)
+            throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            if (minimumBalance == null) {
+                statement = conn.prepareStatement(SqlStatement.ADD_TO_BALANCE_RETURNING.getSql());
+            } else {
+                statement = conn.prepareStatement(SqlStatement.ADD_TO_COVERED_BALANCE_RETURNING.getSql());
+                statement.setBigDecimal(3, minimumBalance);
+            }
+
+            statement.setBigDecimal(1, delta);
+            statement.setLong(2, accountNumber);
+
+            ResultSet rs = statement.executeQuery();
+
+            return rs.next() ? rs.getBigDecimal("balance") : null;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private Transaction posting(PendingTransfer transfer) {
+        return Transaction.builder()
+                .type(TransactionType.TRANSFER)
+                .value(transfer.getValue())
+                .transactionDate(transfer.getTransactionDate())
+                .originAccountNumber(transfer.getOriginAccountNumber())
+                .transferAccountNumber(transfer.getTargetAccountNumber())
+                .build();
+    }
+
+    private Transaction posting(TransactionType type, BigDecimal value, Long originNumber, Long targetNumber) {
+        return Transaction.builder()
+                .type(type)
+                .value(value)
+                .transactionDate(LocalDate.now())
+                .originAccountNumber(originNumber)
+                .transferAccountNumber(targetNumber)
+                .build();
+    }
+
+    static class LockedAccount {
+        final BigDecimal balance;
+        final boolean active;
+
+        private LockedAccount(BigDecimal balance, boolean active) {
+            this.balance = balance;
+            this.active = active;
+        }
+    }
+
+    private static class BatchConflict extends RuntimeException {
+        private final transient Map<String, IdempotentOutcome> previous;
+        private final transient Set<Long> uncovered;
+
+        private BatchConflict(Map<String, IdempotentOutcome> previous, Set<Long> uncovered) {
+            super(null, null, false, false);
+            this.previous = previous;
+            this.uncovered = uncovered;
+        }
+    }
+}
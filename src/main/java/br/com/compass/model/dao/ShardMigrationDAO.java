@@ -0,0 +1,376 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.entity.LedgerEntry;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.TransactionType;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ShardMigrationDAO {
+
+    private static final Timer COPY_ACCOUNT = Metrics.timer("dao", "ShardMigrationDAO.copyAccount");
+    private static final Timer DELETE_ACCOUNT = Metrics.timer("dao", "ShardMigrationDAO.deleteAccount");
+
+    private static final int LEDGER_FETCH_SIZE = 500;
+    private static final int LEDGER_BATCH_SIZE = 500;
+
+    private static final SqlStatement[] ACCOUNT_DELETES = {
+            SqlStatement.DELETE_ACCOUNT_SNAPSHOTS, SqlStatement.DELETE_ACCOUNT_IDEMPOTENCY_KEYS,
+            SqlStatement.DELETE_ACCOUNT_INBOX, SqlStatement.DELETE_ACCOUNT_OUTBOX, SqlStatement.DELETE_ACCOUNT
+    };
+
+    private final ShardRouter shards;
+
+    public static ShardMigrationDAO createShardMigrationDAO() {
+        return new ShardMigrationDAO(Database.getShardRouter());
+    }
+
+    public List<Long> getAccountNumbers(int shard, long after, int limit) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = shards.getShard(shard).getPrimary().getConnection();
+            statement = conn.prepareStatement(SqlStatement.SHARD_ACCOUNT_CURSOR.getSql());
+
+            statement.setLong(1, after);
+            statement.setInt(2, limit);
+
+            List<Long> numbers = new ArrayList<>();
+            ResultSet rs = statement.executeQuery();
+            while (rs.next()) {
+                numbers.add(rs.getLong("number"));
+            }
+            return numbers;
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    public boolean copyAccount(long number, int source, int target) {
+        return COPY_ACCOUNT.time(() -> Database.inTransaction(shards.getShard(target).getPrimary(), conn -> {
+            deleteAccount(conn, number);
+
+            Connection sourceConn = null;
+            try {
+                sourceConn = shards.getShard(source).getPrimary().getConnection();
+                sourceConn.setAutoCommit(false);
+                if (!copyAccountRow(sourceConn, conn, number)) {
+                    return false;
+                }
+                copySnapshots(sourceConn, conn, number);
+                copyIdempotencyKeys(sourceConn, conn, number);
+                copyInbox(sourceConn, conn, number);
+                copyLedger(sourceConn, conn, number);
+                return true;
+            }
+            finally {
+                Database.closeConnection(sourceConn);
+            }
+        }));
+    }
+
+    public void deleteAccount(int shard, long number) {
+        DELETE_ACCOUNT.run(() -> Database.inTransaction(shards.getShard(shard).getPrimary(), conn -> {
+            deleteAccount(conn, number);
+            return null;
+        }));
+    }
+
+    public void recordMove(long number, int shard) {
+        Database.inTransaction(shards.getHome().getPrimary(), conn -> {
+            PreparedStatement statement = null;
+
+            try {
+                statement = conn.prepareStatement(SqlStatement.RECORD_SHARD_MOVE.getSql());
+                statement.setLong(1, number);
+                statement.setInt(2, shard);
+                statement.executeUpdate();
+                return null;
+            }
+            finally {
+                Database.closeStatement(statement);
+            }
+        });
+    }
+
+    public void join(Collection<Integer> members) {
+        ConnectionPool home = shards.getHome().getPrimary();
+        Database.inTransaction(home, conn -> {
+            PreparedStatement join = null;
+            PreparedStatement clear = null;
+
+            try {
+                join = conn.prepareStatement(SqlStatement.JOIN_SHARD.getSql());
+                for (int member : members) {
+                    join.setInt(1, member);
+                    join.addBatch();
+                }
+                join.executeBatch();
+
+                clear = conn.prepareStatement(SqlStatement.CLEAR_SHARD_MOVES.getSql());
+                clear.executeUpdate();
+                return null;
+            }
+            finally {
+                Database.closeStatement(join);
+                Database.closeStatement(clear);
+            }
+        });
+    }
+
+    private void deleteAccount(Connection conn, long number) throws SQLException {
+        PreparedStatement statement = null;
+
+        try {
+            statement = conn.prepareStatement(SqlStatement.DELETE_ACCOUNT_LEDGER.getSql());
+            statement.setLong(1, number);
+            statement.setLong(2, number);
+            statement.executeUpdate();
+            Database.closeStatement(statement);
+
+            statement = conn.prepareStatement(SqlStatement.DELETE_ORPHAN_TRANSACTIONS.getSql());
+            statement.setLong(1, number);
+            statement.setLong(2, number);
+            statement.executeUpdate();
+            Database.closeStatement(statement);
+
+            for (SqlStatement delete : ACCOUNT_DELETES) {
+                statement = conn.prepareStatement(delete.getSql());
+                statement.setLong(1, number);
+                statement.executeUpdate();
+                Database.closeStatement(statement);
+            }
+            statement = null;
+        }
+        finally {
+            Database.closeStatement(statement);
+        }
+    }
+
+    private boolean copyAccountRow(Connection source, Connection target, long number) throws SQLException {
+        PreparedStatement select = null;
+        PreparedStatement insert = null;
+
+        try {
+            select = source.prepareStatement(SqlStatement.GET_ACCOUNT.getSql());
+            select.setLong(1, number);
+            ResultSet rs = select.executeQuery();
+            if (!rs.next()) {
+                return false;
+            }
+
+            insert = target.prepareStatement(SqlStatement.CREATE_ACCOUNT.getSql());
+            insert.setLong(1, number);
+            insert.setString(2, rs.getString("type"));
+            insert.setBigDecimal(3, rs.getBigDecimal("balance"));
+            insert.setObject(4, rs.getObject("opening_date", LocalDate.class));
+            insert.setString(5, rs.getString("holder"));
+            insert.setString(6, rs.getString("holder_phone"));
+            insert.setObject(7, rs.getObject("holder_birthdate", LocalDate.class));
+            insert.setString(8, rs.getString("holder_cpf"));
+            insert.setString(9, rs.getString("password"));
+            insert.setObject(10, rs.getObject("active"), Types.BOOLEAN);
+            insert.executeUpdate();
+            return true;
+        }
+        finally {
+            Database.closeStatement(select);
+            Database.closeStatement(insert);
+        }
+    }
+
+    private void copySnapshots(Connection source, Connection target, long number) throws SQLException {
+        PreparedStatement select = null;
+        PreparedStatement insert = null;
+
+        try {
+            select = source.prepareStatement(SqlStatement.GET_ACCOUNT_SNAPSHOTS.getSql());
+            select.setLong(1, number);
+            insert = target.prepareStatement(SqlStatement.INSERT_SNAPSHOT.getSql());
+
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                insert.setLong(1, number);
+                insert.setObject(2, rs.getObject("snapshot_date", LocalDate.class));
+                insert.setBigDecimal(3, rs.getBigDecimal("net_change"));
+                insert.setBigDecimal(4, rs.getBigDecimal("closing_balance"));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        finally {
+            Database.closeStatement(select);
+            Database.closeStatement(insert);
+        }
+    }
+
+    private void copyIdempotencyKeys(Connection source, Connection target, long number) throws SQLException {
+        PreparedStatement select = null;
+        PreparedStatement insert = null;
+
+        try {
+            select = source.prepareStatement(SqlStatement.GET_ACCOUNT_IDEMPOTENCY_KEYS.getSql());
+            select.setLong(1, number);
+            insert = target.prepareStatement(SqlStatement.COPY_IDEMPOTENCY_KEY.getSql());
+
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                insert.setString(1, rs.getString("idempotency_key"));
+                insert.setString(2, rs.getString("type"));
+                insert.setLong(3, rs.getLong("account_number"));
+                insert.setObject(4, rs.getObject("transfer_account"), Types.INTEGER);
+                insert.setBigDecimal(5, rs.getBigDecimal("value"));
+                insert.setBigDecimal(6, rs.getBigDecimal("result_balance"));
+                insert.setTimestamp(7, rs.getTimestamp("created_at"));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        finally {
+            Database.closeStatement(select);
+            Database.closeStatement(insert);
+        }
+    }
+
+    private void copyInbox(Connection source, Connection target, long number) throws SQLException {
+        PreparedStatement select = null;
+        PreparedStatement insert = null;
+
+        try {
+            select = source.prepareStatement(SqlStatement.GET_ACCOUNT_INBOX.getSql());
+            select.setLong(1, number);
+            insert = target.prepareStatement(SqlStatement.COPY_TRANSFER_INBOX.getSql());
+
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                insert.setObject(1, rs.getObject("transfer_id"));
+                insert.setLong(2, number);
+                insert.setBoolean(3, rs.getBoolean("credited"));
+                insert.setTimestamp(4, rs.getTimestamp("received_at"));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        finally {
+            Database.closeStatement(select);
+            Database.closeStatement(insert);
+        }
+    }
+
+    private void copyLedger(Connection source, Connection target, long number) throws SQLException {
+        PreparedStatement select = null;
+        PreparedStatement postings = null;
+        PreparedStatement legs = null;
+
+        try {
+            select = source.prepareStatement(SqlStatement.GET_ACCOUNT_LEDGER.getSql());
+            select.setLong(1, number);
+            select.setLong(2, number);
+            select.setFetchSize(LEDGER_FETCH_SIZE);
+            postings = target.prepareStatement(SqlStatement.INSERT_POSTING.getSql());
+            legs = target.prepareStatement(SqlStatement.INSERT_POSTING_LEG.getSql());
+
+            LedgerCopy copy = new LedgerCopy(postings, legs);
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                copy.add(rs);
+            }
+            copy.finish();
+        }
+        finally {
+            Database.closeStatement(select);
+            Database.closeStatement(postings);
+            Database.closeStatement(legs);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class LedgerCopy {
+
+        private final PreparedStatement postings;
+        private final PreparedStatement legs;
+        private final List<LedgerEntry> entries = new ArrayList<>(2);
+        private long transactionId = -1;
+        private Transaction transaction;
+        private PreparedStatement pending;
+        private int batched;
+
+        void add(ResultSet rs) throws SQLException {
+            long id = rs.getLong("transaction_id");
+            if (id != transactionId) {
+                flushTransaction();
+                transactionId = id;
+                transaction = Transaction.builder()
+                        .type(TransactionType.valueOf(rs.getString("type")))
+                        .value(rs.getBigDecimal("value"))
+                        .transactionDate(rs.getObject("transaction_date", LocalDate.class))
+                        .transferAccountNumber(nullableLong(rs, "transfer_account"))
+                        .originAccountNumber(rs.getLong("origin_account"))
+                        .build();
+            }
+            entries.add(LedgerEntry.builder()
+                    .accountNumber(rs.getLong("account_number"))
+                    .counterpartyNumber(nullableLong(rs, "counterparty"))
+                    .amount(rs.getBigDecimal("amount"))
+                    .build());
+        }
+
+        void finish() throws SQLException {
+            flushTransaction();
+            if (pending != null) {
+                pending.executeBatch();
+            }
+        }
+
+        private void flushTransaction() throws SQLException {
+            if (transaction == null) {
+                return;
+            }
+            if (entries.size() == 2 && entries.get(1).getAccountNumber() == LedgerEntry.EXTERNAL_ACCOUNT) {
+                batch(postings);
+                TransactionDAO.bindPosting(postings, transaction);
+                postings.addBatch();
+            } else {
+                batch(legs);
+                for (LedgerEntry entry : entries) {
+                    TransactionDAO.bindLeg(legs, transaction, entry);
+                    legs.addBatch();
+                }
+            }
+            entries.clear();
+            transaction = null;
+        }
+
+        private void batch(PreparedStatement statement) throws SQLException {
+            if (pending != null && (pending != statement || batched >= LEDGER_BATCH_SIZE)) {
+                pending.executeBatch();
+                batched = 0;
+            }
+            pending = statement;
+            batched++;
+        }
+
+        private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+            long value = rs.getLong(column);
+            return rs.wasNull() ? null : value;
+        }
+    }
+}
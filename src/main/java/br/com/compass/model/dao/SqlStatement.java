@@ -0,0 +1,202 @@
+package br.com.compass.model.dao;
+
+import br.com.compass.metrics.Metrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum SqlStatement {
+
+    GET_ACCOUNT("SELECT * FROM tb_account WHERE number=?"),
+
+    NEXT_ACCOUNT_NUMBER("SELECT nextval(pg_get_serial_sequence('tb_account', 'number')) AS number"),
+
+    CREATE_ACCOUNT("INSERT INTO tb_account " +
+            "(number, type, balance, opening_date, holder, holder_phone, holder_birthdate, " +
+            "holder_cpf, password, active) VALUES (?, ?::account_type, ?, ?, ?, ?, ?, ?, ?, ?)"),
+
+    EXISTS_ACCOUNT_TYPE_FOR_CPF("SELECT 1 FROM tb_account WHERE holder_cpf=? AND type=?::account_type"),
+
+    GET_CREDENTIALS("SELECT password FROM tb_account WHERE number=?"),
+
+    UPDATE_PASSWORD("UPDATE tb_account SET password=? WHERE number=? AND password=?"),
+
+    ACTIVATE_ACCOUNT("UPDATE tb_account SET active=true WHERE number=?"),
+
+    UPDATE_ACCOUNT("UPDATE tb_account SET " +
+            "type=?::account_type, balance=?, opening_date=?, holder=?, holder_phone=?, holder_birthdate=?, " +
+            "holder_cpf=?, password=?, active=? WHERE number=?"),
+
+    INSERT_POSTING("WITH posting AS (INSERT INTO tb_transaction(type, value, transaction_date, transfer_account, " +
+            "origin_account) VALUES(?::transaction_type, ?, ?, ?, ?) RETURNING id, type, transaction_date) " +
+            "INSERT INTO tb_ledger_entry(transaction_id, type, account_number, counterparty, amount, entry_date) " +
+            "SELECT posting.id, posting.type, e.account_number, e.counterparty, e.amount, posting.transaction_date " +
+            "FROM posting, (VALUES (?::integer, ?::integer, ?::numeric), (?::integer, ?::integer, ?::numeric)) " +
+            "AS e(account_number, counterparty, amount)"),
+
+    INSERT_POSTING_LEG("WITH posting AS (INSERT INTO tb_transaction(type, value, transaction_date, " +
+            "transfer_account, origin_account) VALUES(?::transaction_type, ?, ?, ?, ?) " +
+            "RETURNING id, type, transaction_date) " +
+            "INSERT INTO tb_ledger_entry(transaction_id, type, account_number, counterparty, amount, entry_date) " +
+            "SELECT posting.id, posting.type, ?::integer, ?::integer, ?::numeric, posting.transaction_date " +
+            "FROM posting"),
+
+    LOCK_ACCOUNTS("SELECT number, balance, active FROM tb_account " +
+            "WHERE number = ANY(?) ORDER BY number FOR UPDATE"),
+
+    GET_ACCOUNT_BALANCES("SELECT number, balance, active FROM tb_account WHERE number = ANY(?)"),
+
+    ADD_TO_BALANCE("UPDATE tb_account SET balance=balance+? WHERE number=?"),
+
+    ADD_TO_COVERED_BALANCE("UPDATE tb_account SET balance=balance+? WHERE number=? " +
+            "AND balance+?>=LEAST(balance, 0)"),
+
+    ADD_TO_BALANCE_RETURNING("UPDATE tb_account SET balance=balance+? WHERE number=? RETURNING balance"),
+
+    ADD_TO_COVERED_BALANCE_RETURNING("UPDATE tb_account SET balance=balance+? WHERE number=? " +
+            "AND balance>=? RETURNING balance"),
+
+    APPLY_SNAPSHOT_DELTA("WITH shifted AS (UPDATE tb_balance_snapshot SET closing_balance=closing_balance+? " +
+            "WHERE account_number=? AND snapshot_date>?) " +
+            "INSERT INTO tb_balance_snapshot AS s (account_number, snapshot_date, net_change, closing_balance) " +
+            "VALUES (?, ?, ?, COALESCE(" +
+            "(SELECT p.closing_balance+? FROM tb_balance_snapshot p WHERE p.account_number=? AND p.snapshot_date<? " +
+            "ORDER BY p.snapshot_date DESC LIMIT 1), " +
+            "(SELECT n.closing_balance-n.net_change+? FROM tb_balance_snapshot n WHERE n.account_number=? " +
+            "AND n.snapshot_date>? ORDER BY n.snapshot_date LIMIT 1), " +
+            "(SELECT a.balance-? FROM tb_account a WHERE a.number=?))) " +
+            "ON CONFLICT (account_number, snapshot_date) DO UPDATE SET net_change=s.net_change+EXCLUDED.net_change, " +
+            "closing_balance=s.closing_balance+EXCLUDED.net_change"),
+
+    GET_BALANCE_AT("SELECT COALESCE(" +
+            "(SELECT p.closing_balance FROM tb_balance_snapshot p WHERE p.account_number=? AND p.snapshot_date<=? " +
+            "ORDER BY p.snapshot_date DESC LIMIT 1), " +
+            "(SELECT n.closing_balance-n.net_change FROM tb_balance_snapshot n WHERE n.account_number=? " +
+            "AND n.snapshot_date>? ORDER BY n.snapshot_date LIMIT 1), " +
+            "(SELECT a.balance FROM tb_account a WHERE a.number=?)) AS balance"),
+
+    LOCK_ACCOUNT_RANGE("SELECT number, balance FROM tb_account WHERE number BETWEEN ? AND ? " +
+            "ORDER BY number FOR SHARE"),
+
+    GET_SNAPSHOT_RANGE("SELECT account_number, snapshot_date, net_change, closing_balance FROM tb_balance_snapshot " +
+            "WHERE account_number BETWEEN ? AND ? ORDER BY account_number, snapshot_date"),
+
+    GET_DAILY_NET_CHANGES("SELECT account_number, entry_date, sum(amount) AS net_change FROM tb_ledger_entry " +
+            "WHERE account_number BETWEEN ? AND ? GROUP BY account_number, entry_date " +
+            "ORDER BY account_number, entry_date"),
+
+    DELETE_ACCOUNT_SNAPSHOTS("DELETE FROM tb_balance_snapshot WHERE account_number=?"),
+
+    INSERT_SNAPSHOT("INSERT INTO tb_balance_snapshot (account_number, snapshot_date, net_change, closing_balance) " +
+            "VALUES (?, ?, ?, ?)"),
+
+    GET_ACCOUNT_NUMBER_RANGE("SELECT min(number) AS first, max(number) AS last FROM tb_account"),
+
+    EOD_ACCOUNT_CURSOR("SELECT number, type FROM tb_account WHERE number>? AND number<=? AND active " +
+            "ORDER BY number"),
+
+    GET_EOD_CHECKPOINTS("SELECT partition_first, partition_last, last_number, accounts, completed " +
+            "FROM tb_eod_checkpoint WHERE run_date=? ORDER BY partition_first"),
+
+    CREATE_EOD_CHECKPOINT("INSERT INTO tb_eod_checkpoint " +
+            "(run_date, partition_first, partition_last, last_number, accounts, completed) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (run_date, partition_first) DO NOTHING"),
+
+    ADVANCE_EOD_CHECKPOINT("UPDATE tb_eod_checkpoint SET last_number=?, accounts=?, completed=? " +
+            "WHERE run_date=? AND partition_first=? AND last_number=? AND NOT completed"),
+
+    CLAIM_IDEMPOTENCY_KEY("INSERT INTO tb_idempotency_key " +
+            "(idempotency_key, type, account_number, transfer_account, value) " +
+            "VALUES (?, ?::transaction_type, ?, ?, ?) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING"),
+
+    GET_IDEMPOTENCY_KEY("SELECT type, account_number, transfer_account, value, result_balance " +
+            "FROM tb_idempotency_key WHERE idempotency_key=?"),
+
+    RECORD_IDEMPOTENT_RESULT("UPDATE tb_idempotency_key SET result_balance=? WHERE idempotency_key=?"),
+
+    PURGE_IDEMPOTENCY_KEYS("DELETE FROM tb_idempotency_key WHERE created_at<?"),
+
+    ENQUEUE_TRANSFER("INSERT INTO tb_transfer_outbox " +
+            "(transfer_id, origin_account, target_account, value, transaction_date) VALUES (?, ?, ?, ?, ?)"),
+
+    GET_PENDING_TRANSFERS("SELECT transfer_id, origin_account, target_account, value, transaction_date " +
+            "FROM tb_transfer_outbox WHERE delivered_at IS NULL AND created_at<? ORDER BY created_at LIMIT ?"),
+
+    GET_ACCOUNT_PENDING_TRANSFERS("SELECT transfer_id, origin_account, target_account, value, transaction_date " +
+            "FROM tb_transfer_outbox WHERE origin_account=? AND delivered_at IS NULL ORDER BY created_at"),
+
+    IS_TRANSFER_PENDING("SELECT transfer_id FROM tb_transfer_outbox WHERE transfer_id=? AND delivered_at IS NULL"),
+
+    COMPLETE_TRANSFER("UPDATE tb_transfer_outbox SET delivered_at=now(), refunded=? " +
+            "WHERE transfer_id=? AND delivered_at IS NULL"),
+
+    CLAIM_TRANSFER_INBOX("INSERT INTO tb_transfer_inbox (transfer_id, target_account, credited) VALUES (?, ?, ?) " +
+            "ON CONFLICT (transfer_id) DO NOTHING"),
+
+    GET_TRANSFER_INBOX("SELECT credited FROM tb_transfer_inbox WHERE transfer_id=?"),
+
+    PURGE_TRANSFER_OUTBOX("DELETE FROM tb_transfer_outbox WHERE delivered_at<?"),
+
+    PURGE_TRANSFER_INBOX("DELETE FROM tb_transfer_inbox WHERE received_at<?"),
+
+    SHARD_ACCOUNT_CURSOR("SELECT number FROM tb_account WHERE number>? ORDER BY number LIMIT ?"),
+
+    GET_ACCOUNT_SNAPSHOTS("SELECT snapshot_date, net_change, closing_balance FROM tb_balance_snapshot " +
+            "WHERE account_number=? ORDER BY snapshot_date"),
+
+    GET_ACCOUNT_LEDGER("SELECT e.transaction_id, t.type, t.value, t.transaction_date, t.transfer_account, " +
+            "t.origin_account, e.account_number, e.counterparty, e.amount FROM tb_ledger_entry e " +
+            "JOIN tb_transaction t ON t.id=e.transaction_id AND t.transaction_date=e.entry_date " +
+            "WHERE e.account_number=? OR (e.account_number=0 AND e.counterparty=?) ORDER BY e.id"),
+
+    GET_ACCOUNT_IDEMPOTENCY_KEYS("SELECT idempotency_key, type, account_number, transfer_account, value, " +
+            "result_balance, created_at FROM tb_idempotency_key WHERE account_number=?"),
+
+    COPY_IDEMPOTENCY_KEY("INSERT INTO tb_idempotency_key " +
+            "(idempotency_key, type, account_number, transfer_account, value, result_balance, created_at) " +
+            "VALUES (?, ?::transaction_type, ?, ?, ?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING"),
+
+    GET_ACCOUNT_INBOX("SELECT transfer_id, credited, received_at FROM tb_transfer_inbox WHERE target_account=?"),
+
+    COPY_TRANSFER_INBOX("INSERT INTO tb_transfer_inbox (transfer_id, target_account, credited, received_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (transfer_id) DO NOTHING"),
+
+    DELETE_ACCOUNT_LEDGER("DELETE FROM tb_ledger_entry " +
+            "WHERE account_number=? OR (account_number=0 AND counterparty=?)"),
+
+    DELETE_ORPHAN_TRANSACTIONS("DELETE FROM tb_transaction t WHERE (t.origin_account=? OR t.transfer_account=?) " +
+            "AND NOT EXISTS (SELECT 1 FROM tb_ledger_entry e " +
+            "WHERE e.transaction_id=t.id AND e.entry_date=t.transaction_date)"),
+
+    DELETE_ACCOUNT_IDEMPOTENCY_KEYS("DELETE FROM tb_idempotency_key WHERE account_number=?"),
+
+    DELETE_ACCOUNT_INBOX("DELETE FROM tb_transfer_inbox WHERE target_account=?"),
+
+    DELETE_ACCOUNT_OUTBOX("DELETE FROM tb_transfer_outbox WHERE origin_account=? AND delivered_at IS NOT NULL"),
+
+    DELETE_ACCOUNT("DELETE FROM tb_account WHERE number=?"),
+
+    RECORD_SHARD_MOVE("INSERT INTO tb_shard_move (account_number, shard_index) VALUES (?, ?) " +
+            "ON CONFLICT (account_number) DO UPDATE SET shard_index=EXCLUDED.shard_index"),
+
+    JOIN_SHARD("INSERT INTO tb_shard_member (shard_index) VALUES (?) ON CONFLICT (shard_index) DO NOTHING"),
+
+    CLEAR_SHARD_MOVES("DELETE FROM tb_shard_move"),
+
+    GET_ACCOUNT_PROFILES("SELECT number, holder_cpf, type FROM tb_account"),
+
+    GET_RECENT_DEBITS("SELECT t.type, t.value, t.origin_account, t.transaction_date, t.created_at " +
+            "FROM tb_transaction t WHERE t.transaction_date>=? AND t.type<>'DEPOSIT'::transaction_type " +
+            "AND EXISTS (SELECT 1 FROM tb_account a WHERE a.number=t.origin_account) " +
+            "ORDER BY t.transaction_date, t.id");
+
+    private final String sql;
+
+    static {
+        for (SqlStatement statement : values()) {
+            Metrics.labelSql(statement.sql, statement.name());
+        }
+    }
+}
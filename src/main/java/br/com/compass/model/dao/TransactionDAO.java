@@ -1,111 +1,292 @@
 package br.com.compass.model.dao;
 
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditLog;
 import br.com.compass.db.Database;
+import br.com.compass.db.ShardRouter;
 import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
 import br.com.compass.model.entity.Account;
+import br.com.compass.model.entity.LedgerEntry;
+import br.com.compass.model.entity.StatementLine;
 import br.com.compass.model.entity.Transaction;
-import br.com.compass.model.enums.AccountType;
 import br.com.compass.model.enums.TransactionType;
 import lombok.RequiredArgsConstructor;
 
-import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RequiredArgsConstructor
 public class TransactionDAO {
 
-    private final Connection conn;
+    private static final Timer MAKE_TRANSACTION = Metrics.timer("dao", "TransactionDAO.makeTransaction");
+    private static final Timer TARGET_EXISTS = Metrics.timer("dao", "TransactionDAO.targetAccountExistsAndActive");
+    private static final Timer BANK_STATEMENT_PAGE = Metrics.timer("dao", "TransactionDAO.bankStatementPage");
+    private static final Timer STREAM_BANK_STATEMENT = Metrics.timer("dao", "TransactionDAO.streamBankStatement");
+
+    private static final int STATEMENT_FETCH_SIZE = 500;
+
+    private final ShardRouter shards;
+    private final AccountDAO accountDAO;
+    private final BalanceSnapshotDAO snapshotDAO;
 
     public static TransactionDAO createTransactionDao() {
-        return new TransactionDAO(Database.getConnection());
+        return new TransactionDAO(Database.getShardRouter(), AccountDAO.createAccountDAO(),
+                BalanceSnapshotDAO.createBalanceSnapshotDAO());
     }
 
     public void makeTransaction(Transaction transaction) {
+        MAKE_TRANSACTION.run(() -> {
+            Long origin = transaction.getOriginAccountNumber();
+            Long target = transaction.getTransferAccountNumber();
+            shards.withAccounts(target == null ? List.of(origin) : List.of(origin, target), () -> {
+                if (target != null && shards.shardOf(origin) != shards.shardOf(target)) {
+                    throw new DbException("makeTransaction writes a single database and can't record a transfer "
+                            + "between shards; use PostingDAO.transfer", null);
+                }
+                return Database.inTransaction(shards.forAccount(origin).getPrimary(), conn -> {
+                    insertTransaction(conn, transaction);
+                    return null;
+                });
+            });
+            shards.recordWrite(origin);
+            shards.recordWrite(target);
+            audit(transaction);
+        });
+    }
+
+    private static void audit(Transaction transaction) {
+        AuditLog.posting(AuditAction.valueOf(transaction.getType().name()), null,
+                transaction.getOriginAccountNumber(), transaction.getTransferAccountNumber(), transaction.getValue(),
+                null);
+    }
+
+    void insertTransaction(Connection conn, Transaction transaction) throws SQLException {
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("INSERT INTO tb_transaction(type, value," +
-                    "transaction_date, transfer_account, origin_account) VALUES(?::transaction_type, ?, ?, ?, ?)");
-
-            statement.setString(1, transaction.getType().name());
-            statement.setBigDecimal(2, transaction.getValue());
-            statement.setObject(3, transaction.getTransactionDate());
-            if (transaction.getTransferAccount() == null) {
-                statement.setNull(4, Types.INTEGER);
-            } else {
-                statement.setLong(4, transaction.getTransferAccount().getNumber());
-            }
-            statement.setLong(5, transaction.getOriginAccount().getNumber());
+            statement = conn.prepareStatement(SqlStatement.INSERT_POSTING.getSql());
 
+            bindPosting(statement, transaction);
             statement.executeUpdate();
-            System.out.println("Transaction successful!\n");
-        }
-        catch (SQLException exc) {
-            throw new DbException(exc.getMessage(), exc);
+            snapshotDAO.applyPostings(conn, List.of(transaction));
         }
         finally {
             Database.closeStatement(statement);
         }
-
     }
 
-    public boolean targetAccountExistsAndActive(Long accountNumber) {
+    void insertLeg(Connection conn, Transaction transaction, LedgerEntry entry) throws SQLException {
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("SELECT 1 FROM tb_account WHERE number=? AND active=true");
-
-            statement.setLong(1, accountNumber);
+            statement = conn.prepareStatement(SqlStatement.INSERT_POSTING_LEG.getSql());
 
-            ResultSet rs = statement.executeQuery();
-
-            return rs.next();
-        }
-        catch (SQLException exc) {
-            throw new DbException(exc.getMessage(), exc);
+            bindLeg(statement, transaction, entry);
+            statement.executeUpdate();
+            snapshotDAO.applyEntries(conn, List.of(entry));
         }
         finally {
             Database.closeStatement(statement);
         }
-    };
+    }
 
-    public List<Transaction> bankStatement(Long accountNumber) {
+    void insertTransactions(Connection conn, List<Transaction> transactions) throws SQLException {
         PreparedStatement statement = null;
 
         try {
-            statement = conn.prepareStatement("SELECT * FROM tb_transaction WHERE " +
-                    "origin_account=? OR transfer_account=? " +
-                    "ORDER BY id");
-
-            statement.setLong(1, accountNumber);
-            statement.setLong(2, accountNumber);
-
-            ResultSet rs = statement.executeQuery();
-            List<Transaction> transactions = new ArrayList<>();
-
-            while (rs.next()) {
-                var transaction = Transaction.builder()
-                        .type(TransactionType.valueOf(rs.getString("type")))
-                        .value(rs.getBigDecimal("value"))
-                        .transactionDate(rs.getDate("transaction_date").toLocalDate())
-                        .transferAccount(AccountDAO.createAccountDAO()
-                                .getAccount(rs.getLong("transfer_account")))
-                        .originAccount(AccountDAO.createAccountDAO()
-                                .getAccount(rs.getLong("origin_account")))
-                        .build();
-                transactions.add(transaction);
+            statement = conn.prepareStatement(SqlStatement.INSERT_POSTING.getSql());
+
+            for (Transaction transaction : transactions) {
+                bindPosting(statement, transaction);
+                statement.addBatch();
             }
 
-            return transactions;
-        }
-        catch (SQLException exc) {
-            throw new DbException(exc.getMessage(), exc);
+            statement.executeBatch();
+            if (!transactions.isEmpty()) {
+                snapshotDAO.applyPostings(conn, transactions);
+            }
         }
         finally {
             Database.closeStatement(statement);
         }
     }
+
+    static void bindPosting(PreparedStatement statement, Transaction transaction) throws SQLException {
+        bindHeader(statement, transaction);
+        bindEntry(statement, 6, LedgerEntry.originEntry(transaction));
+        bindEntry(statement, 9, LedgerEntry.counterEntry(transaction));
+    }
+
+    static void bindLeg(PreparedStatement statement, Transaction transaction, LedgerEntry entry)
+            throws SQLException {
+        bindHeader(statement, transaction);
+        bindEntry(statement, 6, entry);
+    }
+
+    private static void bindHeader(PreparedStatement statement, Transaction transaction) throws SQLException {
+        statement.setString(1, transaction.getType().name());
+        statement.setBigDecimal(2, transaction.getValue());
+        statement.setObject(3, transaction.getTransactionDate());
+        if (transaction.getTransferAccountNumber() == null) {
+            statement.setNull(4, Types.INTEGER);
+        } else {
+            statement.setLong(4, transaction.getTransferAccountNumber());
+        }
+        statement.setLong(5, transaction.getOriginAccountNumber());
+    }
+
+    private static void bindEntry(PreparedStatement statement, int index, LedgerEntry entry) throws SQLException {
+        statement.setLong(index, entry.getAccountNumber());
+        if (entry.getCounterpartyNumber() == null) {
+            statement.setNull(index + 1, Types.INTEGER);
+        } else {
+            statement.setLong(index + 1, entry.getCounterpartyNumber());
+        }
+        statement.setBigDecimal(index + 2, entry.getAmount());
+    }
+
+    public boolean targetAccountExistsAndActive(Long accountNumber) {
+        return TARGET_EXISTS.time(() -> {
+            Account account = accountDAO.getAccount(accountNumber);
+            return account != null && Boolean.TRUE.equals(account.getActive());
+        });
+    }
+
+    public List<StatementLine> bankStatement(Long accountNumber) {
+        return bankStatementPage(accountNumber, null, null, null, 0);
+    }
+
+    public List<StatementLine> bankStatementPage(Long accountNumber, Long afterId, LocalDate from, LocalDate to,
+                                               int limit) {
+        return BANK_STATEMENT_PAGE.time(() -> shards.withAccount(accountNumber, () -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.forAccount(accountNumber).getReadConnection(accountNumber);
+                statement = prepareStatementQuery(conn, accountNumber, afterId, from, to, limit);
+
+                ResultSet rs = statement.executeQuery();
+                List<StatementLine> lines = new ArrayList<>();
+
+                while (rs.next()) {
+                    lines.add(readLine(rs));
+                }
+
+                return lines;
+            }
+            catch (SQLException exc) {
+                throw new DbException(exc.getMessage(), exc);
+            }
+            finally {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+            }
+        }));
+    }
+
+    public Stream<StatementLine> streamBankStatement(Long accountNumber, LocalDate from, LocalDate to) {
+        return STREAM_BANK_STATEMENT.time(() -> shards.withAccount(accountNumber, () -> {
+            Connection conn = null;
+            PreparedStatement statement = null;
+
+            try {
+                conn = shards.forAccount(accountNumber).getReadConnection(accountNumber);
+                conn.setAutoCommit(false);
+                statement = prepareStatementQuery(conn, accountNumber, null, from, to, 0);
+                statement.setFetchSize(STATEMENT_FETCH_SIZE);
+
+                ResultSet rs = statement.executeQuery();
+
+                Spliterator<StatementLine> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                        Spliterator.ORDERED | Spliterator.NONNULL) {
+                    @Override
+                    public boolean tryAdvance(Consumer<? super StatementLine> action) {
+                        try {
+                            if (!rs.next()) {
+                                return false;
+                            }
+                            action.accept(readLine(rs));
+                            return true;
+                        }
+                        catch (SQLException exc) {
+                            throw new DbException(exc.getMessage(), exc);
+                        }
+                    }
+                };
+
+                Connection cursorConn = conn;
+                PreparedStatement cursorStatement = statement;
+                return StreamSupport.stream(spliterator, false).onClose(() -> {
+                    Database.closeResultSet(rs);
+                    Database.closeStatement(cursorStatement);
+                    Database.closeConnection(cursorConn);
+                });
+            }
+            catch (SQLException exc) {
+                Database.closeStatement(statement);
+                Database.closeConnection(conn);
+                throw new DbException(exc.getMessage(), exc);
+            }
+        }));
+    }
+
+    private PreparedStatement prepareStatementQuery(Connection conn, Long accountNumber, Long afterId, LocalDate from,
+                                                    LocalDate to, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT id, transaction_id, type, counterparty, " +
+                "(amount*100)::bigint AS amount_cents, entry_date-DATE '1970-01-01' AS entry_day " +
+                "FROM tb_ledger_entry WHERE account_number=?");
+        if (afterId != null) {
+            sql.append(" AND id>?");
+        }
+        if (from != null) {
+            sql.append(" AND entry_date>=?");
+        }
+        if (to != null) {
+            sql.append(" AND entry_date<=?");
+        }
+        sql.append(" ORDER BY id");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+
+        PreparedStatement statement = conn.prepareStatement(sql.toString());
+        int index = 1;
+        statement.setLong(index++, accountNumber);
+        if (afterId != null) {
+            statement.setLong(index++, afterId);
+        }
+        if (from != null) {
+            statement.setObject(index++, from);
+        }
+        if (to != null) {
+            statement.setObject(index++, to);
+        }
+        if (limit > 0) {
+            statement.setInt(index, limit);
+        }
+        return statement;
+    }
+
+    private StatementLine readLine(ResultSet rs) throws SQLException {
+        long id = rs.getLong("id");
+        long transactionId = rs.getLong("transaction_id");
+        TransactionType type = TransactionType.fromName(rs.getString("type"));
+        long counterparty = rs.getLong("counterparty");
+        if (rs.wasNull()) {
+            counterparty = StatementLine.NO_COUNTERPARTY;
+        }
+
+        return new StatementLine(id, transactionId, type, counterparty, rs.getLong("amount_cents"),
+                rs.getInt("entry_day"));
+    }
 }
@@ -0,0 +1,17 @@
+package br.com.compass.model.entity;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Builder
+@Value
+public class AccountBalance {
+
+    Long number;
+
+    BigDecimal balance;
+
+    boolean active;
+}
@@ -0,0 +1,27 @@
+package br.com.compass.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class AccountImportResult {
+
+    private long staged;
+
+    private long imported;
+
+    private List<ImportRejection> rejections;
+
+    private long elapsedMillis;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? staged : staged * 1000.0 / elapsedMillis;
+    }
+}
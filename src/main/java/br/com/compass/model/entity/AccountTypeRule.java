@@ -0,0 +1,66 @@
+package br.com.compass.model.entity;
+
+import br.com.compass.model.enums.AccountType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+@Builder
+@Value
+public class AccountTypeRule {
+
+    private static final BigDecimal DAYS_IN_YEAR = new BigDecimal("365");
+
+    BigDecimal annualInterestRate;
+
+    BigDecimal monthlyFee;
+
+    public static Map<AccountType, AccountTypeRule> fromProperties(Properties properties) {
+        Map<AccountType, AccountTypeRule> rules = new EnumMap<>(AccountType.class);
+        for (AccountType type : AccountType.values()) {
+            rules.put(type, AccountTypeRule.builder()
+                    .annualInterestRate(new BigDecimal(properties.getProperty(
+                            "eod." + type.name() + ".annualInterestRate", defaultRate(type))))
+                    .monthlyFee(new BigDecimal(properties.getProperty(
+                            "eod." + type.name() + ".monthlyFee", defaultFee(type))))
+                    .build());
+        }
+        return rules;
+    }
+
+    public BigDecimal dailyInterest(BigDecimal balance) {
+        if (balance == null || balance.signum() <= 0 || annualInterestRate.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return balance.multiply(annualInterestRate).divide(DAYS_IN_YEAR, 2, RoundingMode.HALF_EVEN);
+    }
+
+    public BigDecimal fee(BigDecimal balance, LocalDate runDate) {
+        if (runDate.getDayOfMonth() != 1 || monthlyFee.signum() == 0 || balance == null || balance.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return monthlyFee.min(balance);
+    }
+
+    private static String defaultRate(AccountType type) {
+        return switch (type) {
+            case SAVINGS -> "0.06";
+            case INVESTMENT -> "0.10";
+            default -> "0";
+        };
+    }
+
+    private static String defaultFee(AccountType type) {
+        return switch (type) {
+            case CHECKING -> "12.90";
+            case BUSINESS -> "29.90";
+            default -> "0";
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.compass.model.entity;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.Set;
+
+@Builder
+@Value
+public class BatchCommit {
+
+    Map<String, IdempotentOutcome> conflicts;
+
+    Set<Long> uncovered;
+
+    public boolean isCommitted() {
+        return conflicts.isEmpty() && uncovered.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.compass.model.entity;
+
+import br.com.compass.model.enums.TransactionType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+@Value
+public class DebitHistory {
+
+    TransactionType type;
+
+    Long accountNumber;
+
+    BigDecimal value;
+
+    LocalDateTime postedAt;
+}
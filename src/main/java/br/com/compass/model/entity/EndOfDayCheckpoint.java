@@ -0,0 +1,27 @@
+package br.com.compass.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EndOfDayCheckpoint {
+
+    private LocalDate runDate;
+
+    private long partitionFirst;
+
+    private long partitionLast;
+
+    private long lastNumber;
+
+    private long accounts;
+
+    private boolean completed;
+}
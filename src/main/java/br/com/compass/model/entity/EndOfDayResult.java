@@ -0,0 +1,36 @@
+package br.com.compass.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class EndOfDayResult {
+
+    private LocalDate runDate;
+
+    private int partitions;
+
+    private long accounts;
+
+    private long interestPostings;
+
+    private long feePostings;
+
+    private BigDecimal totalInterest;
+
+    private BigDecimal totalFees;
+
+    private long elapsedMillis;
+
+    public double getAccountsPerSecond() {
+        return elapsedMillis == 0 ? accounts : accounts * 1000.0 / elapsedMillis;
+    }
+}
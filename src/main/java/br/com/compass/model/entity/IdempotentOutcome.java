@@ -0,0 +1,32 @@
+package br.com.compass.model.entity;
+
+import br.com.compass.model.enums.TransactionType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Builder
+@Value
+public class IdempotentOutcome {
+
+    String key;
+
+    TransactionType type;
+
+    Long accountNumber;
+
+    Long transferAccountNumber;
+
+    BigDecimal value;
+
+    BigDecimal balance;
+
+    public boolean matches(TransactionType type, Long accountNumber, Long transferAccountNumber, BigDecimal value) {
+        return this.type == type
+                && Objects.equals(this.accountNumber, accountNumber)
+                && Objects.equals(this.transferAccountNumber, transferAccountNumber)
+                && this.value.compareTo(value) == 0;
+    }
+}
@@ -0,0 +1,56 @@
+package br.com.compass.model.entity;
+
+import br.com.compass.model.enums.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LedgerEntry {
+
+    public static final long EXTERNAL_ACCOUNT = 0;
+
+    private Long id;
+
+    private Long transactionId;
+
+    private TransactionType type;
+
+    private Long accountNumber;
+
+    private Long counterpartyNumber;
+
+    private BigDecimal amount;
+
+    private LocalDate entryDate;
+
+    public static LedgerEntry originEntry(Transaction transaction) {
+        return LedgerEntry.builder()
+                .type(transaction.getType())
+                .accountNumber(transaction.getOriginAccountNumber())
+                .counterpartyNumber(transaction.getTransferAccountNumber())
+                .amount(transaction.getType() == TransactionType.DEPOSIT
+                        ? transaction.getValue() : transaction.getValue().negate())
+                .entryDate(transaction.getTransactionDate())
+                .build();
+    }
+
+    public static LedgerEntry counterEntry(Transaction transaction) {
+        return LedgerEntry.builder()
+                .type(transaction.getType())
+                .accountNumber(transaction.getTransferAccountNumber() == null
+                        ? EXTERNAL_ACCOUNT : transaction.getTransferAccountNumber())
+                .counterpartyNumber(transaction.getOriginAccountNumber())
+                .amount(transaction.getType() == TransactionType.DEPOSIT
+                        ? transaction.getValue().negate() : transaction.getValue())
+                .entryDate(transaction.getTransactionDate())
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.compass.model.entity;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Builder
+@Value
+public class PendingTransfer {
+
+    UUID id;
+
+    Long originAccountNumber;
+
+    Long targetAccountNumber;
+
+    BigDecimal value;
+
+    LocalDate transactionDate;
+}
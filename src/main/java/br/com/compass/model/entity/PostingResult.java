@@ -0,0 +1,20 @@
+package br.com.compass.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PostingResult {
+
+    private Transaction posting;
+
+    private boolean accepted;
+
+    private String message;
+
+}
@@ -0,0 +1,29 @@
+package br.com.compass.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ReconciliationResult {
+
+    private long accountsChecked;
+
+    private long snapshotRowsChecked;
+
+    private List<Long> mismatchedAccounts;
+
+    private boolean repaired;
+
+    private long elapsedMillis;
+
+    public double getAccountsPerSecond() {
+        return elapsedMillis == 0 ? accountsChecked : accountsChecked * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.compass.model.entity;
+
+import br.com.compass.model.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record StatementLine(long id, long transactionId, TransactionType type, long counterpartyNumber,
+                            long amountCents, int entryDay) {
+
+    public static final long NO_COUNTERPARTY = -1;
+
+    public boolean hasCounterparty() {
+        return counterpartyNumber != NO_COUNTERPARTY;
+    }
+
+    public boolean isCredit() {
+        return amountCents >= 0;
+    }
+
+    public BigDecimal amount() {
+        return BigDecimal.valueOf(amountCents, 2);
+    }
+
+    public BigDecimal absoluteAmount() {
+        return BigDecimal.valueOf(Math.abs(amountCents), 2);
+    }
+
+    public LocalDate entryDate() {
+        return LocalDate.ofEpochDay(entryDay);
+    }
+}
@@ -24,8 +24,8 @@ public class Transaction {
 
     private LocalDate transactionDate;
 
-    private Account transferAccount;
+    private Long transferAccountNumber;
 
-    private Account originAccount;
+    private Long originAccountNumber;
 
 }
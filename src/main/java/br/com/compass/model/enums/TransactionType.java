@@ -3,5 +3,14 @@ package br.com.compass.model.enums;
 public enum TransactionType {
     DEPOSIT,
     WITHDRAWAL,
-    TRANSFER
+    TRANSFER;
+
+    public static TransactionType fromName(String name) {
+        return switch (name) {
+            case "DEPOSIT" -> DEPOSIT;
+            case "WITHDRAWAL" -> WITHDRAWAL;
+            case "TRANSFER" -> TRANSFER;
+            default -> valueOf(name);
+        };
+    }
 }
@@ -0,0 +1,8 @@
+package br.com.compass.model.exception;
+
+public class LoginException extends RuntimeException {
+
+    public LoginException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package br.com.compass.model.exception;
+
+public class PostingException extends RuntimeException {
+
+    public PostingException(String message) {
+        super(message);
+    }
+}
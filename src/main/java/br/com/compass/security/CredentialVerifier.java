@@ -0,0 +1,100 @@
+package br.com.compass.security;
+
+import br.com.compass.db.Database;
+import br.com.compass.model.exception.LoginException;
+
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CredentialVerifier {
+
+    private static CredentialVerifier instance = null;
+
+    private final PasswordHasher hasher;
+    private final LoginThrottle throttle;
+    private final ThreadPoolExecutor executor;
+    private final String unknownAccountHash;
+
+    public CredentialVerifier(PasswordHasher hasher, LoginThrottle throttle, int threads, int queueSize) {
+        this.hasher = hasher;
+        this.throttle = throttle;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "credential-verifier-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.unknownAccountHash = hasher.hash("unknown-account");
+    }
+
+    public static synchronized CredentialVerifier getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new CredentialVerifier(
+                    new PasswordHasher(Integer.parseInt(properties.getProperty("security.pbkdf2.iterations", "210000"))),
+                    new LoginThrottle(
+                            Integer.parseInt(properties.getProperty("security.login.maxFailures", "5")),
+                            Long.parseLong(properties.getProperty("security.login.windowMs", "300000")),
+                            Long.parseLong(properties.getProperty("security.login.lockMs", "900000"))),
+                    Integer.parseInt(properties.getProperty("security.verifyThreads",
+                            String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)))),
+                    Integer.parseInt(properties.getProperty("security.verifyQueue", "256")));
+        }
+        return instance;
+    }
+
+    public void checkNotLocked(Long accountNumber) {
+        if (throttle.isLocked(accountNumber)) {
+            throw new LoginException("Too many failed attempts. Please try again later.");
+        }
+    }
+
+    public boolean verify(Long accountNumber, String password, String stored) {
+        String hash = stored == null ? unknownAccountHash : stored;
+        boolean matches = run(() -> hasher.verify(password, hash)) && stored != null;
+
+        if (matches) {
+            throttle.recordSuccess(accountNumber);
+        }
+        else {
+            throttle.recordFailure(accountNumber);
+        }
+        return matches;
+    }
+
+    public boolean needsRehash(String stored) {
+        return hasher.needsRehash(stored);
+    }
+
+    public String hash(String password) {
+        return run(() -> hasher.hash(password));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> work) {
+        try {
+            return executor.submit(work).get();
+        }
+        catch (RejectedExecutionException exc) {
+            throw new LoginException("Too many logins in progress. Please try again.");
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new LoginException("Login interrupted.");
+        }
+        catch (ExecutionException exc) {
+            throw new IllegalStateException(exc.getCause().getMessage(), exc.getCause());
+        }
+    }
+}
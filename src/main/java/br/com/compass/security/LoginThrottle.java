@@ -0,0 +1,72 @@
+package br.com.compass.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class LoginThrottle {
+
+    private final int maxFailures;
+    private final long windowNanos;
+    private final long lockNanos;
+    private final Map<Long, Attempts> attempts = new ConcurrentHashMap<>();
+
+    public LoginThrottle(int maxFailures, long windowMs, long lockMs) {
+        this.maxFailures = maxFailures;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.lockNanos = TimeUnit.MILLISECONDS.toNanos(lockMs);
+    }
+
+    public boolean isLocked(Long accountNumber) {
+        Attempts entry = attempts.get(accountNumber);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            return entry.lockedUntil - System.nanoTime() > 0;
+        }
+    }
+
+    public void recordFailure(Long accountNumber) {
+        long now = System.nanoTime();
+        Attempts entry = attempts.computeIfAbsent(accountNumber, number -> new Attempts(now));
+        synchronized (entry) {
+            if (now - entry.windowStart > windowNanos) {
+                entry.windowStart = now;
+                entry.failures = 0;
+            }
+            entry.failures++;
+            if (entry.failures >= maxFailures) {
+                entry.lockedUntil = now + lockNanos;
+                entry.failures = 0;
+                entry.windowStart = now;
+            }
+        }
+        if (attempts.size() > 100_000) {
+            purgeExpired(now);
+        }
+    }
+
+    public void recordSuccess(Long accountNumber) {
+        attempts.remove(accountNumber);
+    }
+
+    private void purgeExpired(long now) {
+        attempts.entrySet().removeIf(entry -> {
+            synchronized (entry.getValue()) {
+                return now - entry.getValue().windowStart > windowNanos && entry.getValue().lockedUntil - now <= 0;
+            }
+        });
+    }
+
+    private static class Attempts {
+        private long windowStart;
+        private long lockedUntil;
+        private int failures;
+
+        private Attempts(long now) {
+            this.windowStart = now;
+            this.lockedUntil = now;
+        }
+    }
+}
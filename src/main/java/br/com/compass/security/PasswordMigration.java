@@ -0,0 +1,135 @@
+package br.com.compass.security;
+
+import br.com.compass.db.ConnectionPool;
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.model.dao.SqlStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PasswordMigration {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ShardRouter shards;
+    private final PasswordHasher hasher;
+
+    public PasswordMigration(ShardRouter shards, PasswordHasher hasher) {
+        this.shards = shards;
+        this.hasher = hasher;
+    }
+
+    public static void main(String[] args) {
+        int iterations = Integer.parseInt(Database.getProperties().getProperty("security.pbkdf2.iterations", "210000"));
+        long start = System.nanoTime();
+        long migrated = new PasswordMigration(Database.getShardRouter(), new PasswordHasher(iterations)).migrate();
+        System.out.println(migrated + " passwords hashed in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        Database.closeConnection();
+    }
+
+    public long migrate() {
+        long migrated = 0;
+        for (ReplicaRouter shard : shards.getShards()) {
+            migrated += migrate(shard.getPrimary());
+        }
+        return migrated;
+    }
+
+    private long migrate(ConnectionPool pool) {
+        widenPasswordColumn(pool);
+
+        long migrated = 0;
+        long afterNumber = 0;
+        while (true) {
+            List<Credential> page = loadPlaintextPage(pool, afterNumber);
+            if (page.isEmpty()) {
+                return migrated;
+            }
+            page.parallelStream().forEach(credential -> credential.hashed = hasher.hash(credential.password));
+            migrated += storeHashes(pool, page);
+            afterNumber = page.get(page.size() - 1).number;
+        }
+    }
+
+    private void widenPasswordColumn(ConnectionPool pool) {
+        Connection conn = null;
+        Statement statement = null;
+
+        try {
+            conn = pool.getConnection();
+            statement = conn.createStatement();
+            statement.execute("ALTER TABLE tb_account ALTER COLUMN password TYPE varchar(128)");
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    private List<Credential> loadPlaintextPage(ConnectionPool pool, long afterNumber) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+
+        try {
+            conn = pool.getConnection();
+            statement = conn.prepareStatement("SELECT number, password FROM tb_account " +
+                    "WHERE number>? AND password NOT LIKE 'pbkdf2-sha512$%' ORDER BY number LIMIT ?");
+            statement.setLong(1, afterNumber);
+            statement.setInt(2, PAGE_SIZE);
+
+            ResultSet rs = statement.executeQuery();
+            List<Credential> page = new ArrayList<>();
+            while (rs.next()) {
+                page.add(new Credential(rs.getLong("number"), rs.getString("password")));
+            }
+            return page;
+        }
+        catch (SQLException exc) {
+            throw new DbException(exc.getMessage(), exc);
+        }
+        finally {
+            Database.closeStatement(statement);
+            Database.closeConnection(conn);
+        }
+    }
+
+    private int storeHashes(ConnectionPool pool, List<Credential> page) {
+        return Database.inTransaction(pool, conn -> {
+            try (PreparedStatement statement = conn.prepareStatement(SqlStatement.UPDATE_PASSWORD.getSql())) {
+                for (Credential credential : page) {
+                    statement.setString(1, credential.hashed);
+                    statement.setLong(2, credential.number);
+                    statement.setString(3, credential.password);
+                    statement.addBatch();
+                }
+                int updated = 0;
+                for (int count : statement.executeBatch()) {
+                    updated += Math.max(count, 0);
+                }
+                return updated;
+            }
+        });
+    }
+
+    private static class Credential {
+        private final long number;
+        private final String password;
+        private String hashed;
+
+        private Credential(long number, String password) {
+            this.number = number;
+            this.password = password;
+        }
+    }
+}
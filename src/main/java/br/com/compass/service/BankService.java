@@ -0,0 +1,288 @@
+package br.com.compass.service;
+
+import br.com.compass.db.Database;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.fraud.FraudCheck;
+import br.com.compass.fraud.FraudEngine;
+import br.com.compass.metrics.Metrics;
+import br.com.compass.metrics.Timer;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.BalanceSnapshotDAO;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.dao.TransactionDAO;
+import br.com.compass.model.entity.Account;
+import br.com.compass.model.entity.StatementLine;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.LoginException;
+import br.com.compass.model.exception.PostingException;
+import br.com.compass.shard.ShardedPostingEngine;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BankService {
+
+    private static final Timer LOGIN = Metrics.timer("bank", "login");
+    private static final Timer OPEN_ACCOUNT = Metrics.timer("bank", "openAccount");
+    private static final Timer BALANCE = Metrics.timer("bank", "balance");
+    private static final Timer BALANCE_AT = Metrics.timer("bank", "balanceAt");
+    private static final Timer DEPOSIT = Metrics.timer("bank", "deposit");
+    private static final Timer WITHDRAW = Metrics.timer("bank", "withdraw");
+    private static final Timer TRANSFER = Metrics.timer("bank", "transfer");
+    private static final Timer STATEMENT_PAGE = Metrics.timer("bank", "statementPage");
+    private static final Timer STATEMENT = Metrics.timer("bank", "statement");
+
+    private static BankService instance = null;
+
+    private final AccountDAO accountDAO;
+    private final TransactionDAO transactionDAO;
+    private final PostingDAO postingDAO;
+    private final BalanceSnapshotDAO snapshotDAO;
+    private final ExecutorService executor;
+    private final ShardedPostingEngine shards;
+    private final FraudEngine fraud;
+    private final Map<String, CompletableFuture<Boolean>> screenedKeys = new ConcurrentHashMap<>();
+
+    public static synchronized BankService getInstance() {
+        if (instance == null) {
+            int workers = Integer.parseInt(Database.getProperties().getProperty("service.workerThreads", "64"));
+            instance = new BankService(AccountDAO.createAccountDAO(), TransactionDAO.createTransactionDao(),
+                    PostingDAO.createPostingDAO(), BalanceSnapshotDAO.createBalanceSnapshotDAO(),
+                    newWorkerPool(workers),
+                    ShardedPostingEngine.isEnabled() ? ShardedPostingEngine.getInstance() : null,
+                    FraudEngine.isEnabled() ? FraudEngine.getInstance() : null);
+        }
+        return instance;
+    }
+
+    public static ExecutorService newWorkerPool(int workers) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "bank-service-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public OperationResult<Account> login(String accountNumber, String password) {
+        return execute(LOGIN, () -> {
+            Account account = accountDAO.loginAccount(accountNumber, password);
+            if (account == null) {
+                return OperationResult.failure("Incorrect account number or/and password!");
+            }
+            if (!account.getActive()) {
+                accountDAO.activateAccount(account.getNumber());
+                account.setActive(true);
+            }
+            return OperationResult.success(account);
+        });
+    }
+
+    public OperationResult<Account> openAccount(Account account) {
+        return execute(OPEN_ACCOUNT, () -> {
+            if (accountDAO.existsAccountTypeForCpf(account.getType(), account.getHolderCpf())) {
+                return OperationResult.failure("You already have an account of this type!");
+            }
+            accountDAO.createAccount(account);
+            if (fraud != null) {
+                fraud.register(account);
+            }
+            return OperationResult.success(account);
+        });
+    }
+
+    public OperationResult<BigDecimal> balance(Long accountNumber) {
+        return execute(BALANCE, () -> {
+            Account account = accountDAO.getAccount(accountNumber, true);
+            if (account == null) {
+                return OperationResult.failure("Account " + accountNumber + " doesn't exist!");
+            }
+            return OperationResult.success(account.getBalance());
+        });
+    }
+
+    public OperationResult<BigDecimal> balanceAt(Long accountNumber, LocalDate date) {
+        return execute(BALANCE_AT, () -> {
+            BigDecimal balance = snapshotDAO.getBalanceAt(accountNumber, date);
+            if (balance == null) {
+                return OperationResult.failure("Account " + accountNumber + " doesn't exist!");
+            }
+            return OperationResult.success(balance);
+        });
+    }
+
+    public OperationResult<BigDecimal> openingBalance(Long accountNumber, LocalDate from) {
+        return balanceAt(accountNumber, from.minusDays(1));
+    }
+
+    public OperationResult<BigDecimal> deposit(Long accountNumber, BigDecimal value) {
+        return deposit(null, accountNumber, value);
+    }
+
+    public OperationResult<BigDecimal> deposit(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        return execute(DEPOSIT, () -> {
+            String invalid = validateValue(value);
+            if (invalid != null) {
+                return OperationResult.failure(invalid);
+            }
+            return OperationResult.success(shards == null
+                    ? postingDAO.deposit(idempotencyKey, accountNumber, value)
+                    : shards.deposit(idempotencyKey, accountNumber, value));
+        });
+    }
+
+    public OperationResult<BigDecimal> withdraw(Long accountNumber, BigDecimal value) {
+        return withdraw(null, accountNumber, value);
+    }
+
+    public OperationResult<BigDecimal> withdraw(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        return execute(WITHDRAW, () -> {
+            String invalid = validateValue(value);
+            if (invalid != null) {
+                return OperationResult.failure(invalid);
+            }
+            return OperationResult.success(screened(idempotencyKey, TransactionType.WITHDRAWAL, accountNumber, value,
+                    posted -> shards == null
+                            ? postingDAO.withdraw(idempotencyKey, accountNumber, value, posted)
+                            : shards.withdraw(idempotencyKey, accountNumber, value, posted)));
+        });
+    }
+
+    public OperationResult<BigDecimal> transfer(Long originNumber, Long targetNumber, BigDecimal value) {
+        return transfer(null, originNumber, targetNumber, value);
+    }
+
+    public OperationResult<BigDecimal> transfer(String idempotencyKey, Long originNumber, Long targetNumber,
+                                                BigDecimal value) {
+        return execute(TRANSFER, () -> {
+            if (originNumber.equals(targetNumber)) {
+                return OperationResult.failure("The target account can't be the same as the origin account!");
+            }
+            if (shards == null && !transactionDAO.targetAccountExistsAndActive(targetNumber)) {
+                return OperationResult.failure("The target account is inactive or doesn't exist!");
+            }
+            String invalid = validateValue(value);
+            if (invalid != null) {
+                return OperationResult.failure(invalid);
+            }
+            return OperationResult.success(screened(idempotencyKey, TransactionType.TRANSFER, originNumber, value,
+                    posted -> shards == null
+                            ? postingDAO.transfer(idempotencyKey, originNumber, targetNumber, value, posted)
+                            : shards.transfer(idempotencyKey, originNumber, targetNumber, value, posted)));
+        });
+    }
+
+    public OperationResult<List<StatementLine>> statementPage(Long accountNumber, Long afterId, LocalDate from,
+                                                            LocalDate to, int limit) {
+        return execute(STATEMENT_PAGE, () -> OperationResult.success(
+                transactionDAO.bankStatementPage(accountNumber, afterId, from, to, limit)));
+    }
+
+    public OperationResult<Long> statement(Long accountNumber, LocalDate from, LocalDate to,
+                                           Consumer<StatementLine> consumer) {
+        return execute(STATEMENT, () -> {
+            AtomicLong lines = new AtomicLong();
+            try (Stream<StatementLine> statement = transactionDAO.streamBankStatement(accountNumber, from, to)) {
+                statement.forEach(line -> {
+                    consumer.accept(line);
+                    lines.incrementAndGet();
+                });
+            }
+            return OperationResult.success(lines.get());
+        });
+    }
+
+    public <T> CompletableFuture<OperationResult<T>> submit(Supplier<OperationResult<T>> operation) {
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        if (shards != null) {
+            shards.close();
+        }
+    }
+
+    private BigDecimal screened(String idempotencyKey, TransactionType type, Long accountNumber, BigDecimal value,
+                                Function<AtomicBoolean, BigDecimal> posting) {
+        if (fraud == null) {
+            return posting.apply(new AtomicBoolean());
+        }
+        if (idempotencyKey == null) {
+            return screenAndPost(type, accountNumber, value, posting);
+        }
+
+        while (true) {
+            CompletableFuture<Boolean> pending = new CompletableFuture<>();
+            CompletableFuture<Boolean> running = screenedKeys.putIfAbsent(idempotencyKey, pending);
+            if (running == null) {
+                boolean succeeded = false;
+                try {
+                    BigDecimal balance = screenAndPost(type, accountNumber, value, posting);
+                    succeeded = true;
+                    return balance;
+                }
+                finally {
+                    screenedKeys.remove(idempotencyKey, pending);
+                    pending.complete(succeeded);
+                }
+            }
+            if (running.join()) {
+                return posting.apply(new AtomicBoolean());
+            }
+        }
+    }
+
+    private BigDecimal screenAndPost(TransactionType type, Long accountNumber, BigDecimal value,
+                                     Function<AtomicBoolean, BigDecimal> posting) {
+        FraudCheck check = fraud.screen(type, accountNumber, value);
+        AtomicBoolean posted = new AtomicBoolean();
+        try {
+            return posting.apply(posted);
+        }
+        finally {
+            fraud.complete(check, posted.get());
+        }
+    }
+
+    private String validateValue(BigDecimal value) {
+        if (value == null || value.compareTo(BigDecimal.ZERO) <= 0) {
+            return "The value must be positive!";
+        }
+        return null;
+    }
+
+    private <T> OperationResult<T> execute(Timer timer, Supplier<OperationResult<T>> operation) {
+        OperationResult<T> result = timer.time(() -> {
+            try {
+                return operation.get();
+            }
+            catch (PostingException | LoginException exc) {
+                return OperationResult.failure(exc.getMessage());
+            }
+            catch (DbException | IllegalStateException exc) {
+                System.err.println("Operation " + timer.getName() + " failed: " + exc.getMessage());
+                return OperationResult.failure("The operation could not be completed. Please try again.");
+            }
+        });
+        if (!result.isSuccess()) {
+            timer.recordFailure();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.compass.service;
+
+import br.com.compass.db.Database;
+import br.com.compass.db.ReplicaRouter;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.EndOfDayDAO;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.entity.AccountTypeRule;
+import br.com.compass.model.entity.EndOfDayCheckpoint;
+import br.com.compass.model.entity.EndOfDayResult;
+import br.com.compass.model.enums.AccountType;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+@RequiredArgsConstructor
+public class EndOfDayEngine {
+
+    private final AccountDAO accountDAO;
+    private final EndOfDayDAO endOfDayDAO;
+    private final Map<AccountType, AccountTypeRule> rules;
+    private final int parallelism;
+
+    public static void main(String[] args) {
+        LocalDate runDate = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now();
+        Properties properties = Database.getProperties();
+        int partitionSize = Integer.parseInt(properties.getProperty("eod.partitionSize", "10000"));
+        int batchSize = Integer.parseInt(properties.getProperty("eod.batchSize", "500"));
+
+        EndOfDayResult result = null;
+        for (ReplicaRouter shard : Database.getShardRouter().getShards()) {
+            EndOfDayEngine engine = new EndOfDayEngine(AccountDAO.createAccountDAO(),
+                    EndOfDayDAO.createEndOfDayDAO(shard.getPrimary()), AccountTypeRule.fromProperties(properties),
+                    Integer.parseInt(properties.getProperty("eod.parallelism", "4")));
+            EndOfDayResult shardResult = engine.run(runDate, partitionSize, batchSize);
+            if (result != null) {
+                long elapsedMillis = result.getElapsedMillis() + shardResult.getElapsedMillis();
+                shardResult = merge(result, shardResult);
+                shardResult.setElapsedMillis(elapsedMillis);
+            }
+            result = shardResult;
+        }
+
+        System.out.println("End of day " + result.getRunDate() + ": " + result.getAccounts() + " accounts in "
+                + result.getPartitions() + " partitions (" + Math.round(result.getAccountsPerSecond()) + "/s)");
+        System.out.println("Interest: " + result.getInterestPostings() + " postings, " + result.getTotalInterest());
+        System.out.println("Fees: " + result.getFeePostings() + " postings, " + result.getTotalFees());
+
+        long retentionHours = Long.parseLong(properties.getProperty("idempotency.retentionHours", "72"));
+        PostingDAO postingDAO = PostingDAO.createPostingDAO();
+        int purged = postingDAO.purgeIdempotencyKeys(LocalDateTime.now().minusHours(retentionHours));
+        System.out.println("Idempotency keys purged: " + purged);
+        if (ShardRouter.isEnabled()) {
+            purged = postingDAO.purgeTransfers(LocalDateTime.now().minusHours(retentionHours));
+            System.out.println("Cross-shard transfer records purged: " + purged);
+        }
+        Database.closeConnection();
+    }
+
+    public EndOfDayResult run(LocalDate runDate, int partitionSize, int batchSize) {
+        long start = System.nanoTime();
+        List<EndOfDayCheckpoint> checkpoints = endOfDayDAO.getCheckpoints(runDate);
+
+        if (checkpoints.isEmpty()) {
+            long[] range = accountDAO.getAccountNumberRange();
+            if (range.length == 2) {
+                for (long first = range[0]; first <= range[1]; first += partitionSize) {
+                    checkpoints.add(EndOfDayCheckpoint.builder()
+                            .runDate(runDate)
+                            .partitionFirst(first)
+                            .partitionLast(Math.min(range[1], first + partitionSize - 1))
+                            .lastNumber(first - 1)
+                            .build());
+                }
+                endOfDayDAO.createCheckpoints(checkpoints);
+                checkpoints = endOfDayDAO.getCheckpoints(runDate);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            EndOfDayResult result = checkpoints.isEmpty()
+                    ? empty(runDate)
+                    : pool.invoke(new PartitionTask(checkpoints, batchSize));
+            result.setPartitions(checkpoints.size());
+            result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            return result;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private static EndOfDayResult empty(LocalDate runDate) {
+        return EndOfDayResult.builder()
+                .runDate(runDate)
+                .totalInterest(BigDecimal.ZERO)
+                .totalFees(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static EndOfDayResult merge(EndOfDayResult left, EndOfDayResult right) {
+        return EndOfDayResult.builder()
+                .runDate(left.getRunDate())
+                .partitions(left.getPartitions() + right.getPartitions())
+                .accounts(left.getAccounts() + right.getAccounts())
+                .interestPostings(left.getInterestPostings() + right.getInterestPostings())
+                .feePostings(left.getFeePostings() + right.getFeePostings())
+                .totalInterest(left.getTotalInterest().add(right.getTotalInterest()))
+                .totalFees(left.getTotalFees().add(right.getTotalFees()))
+                .build();
+    }
+
+    private class PartitionTask extends RecursiveTask<EndOfDayResult> {
+
+        private final List<EndOfDayCheckpoint> partitions;
+        private final int batchSize;
+
+        private PartitionTask(List<EndOfDayCheckpoint> partitions, int batchSize) {
+            this.partitions = partitions;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected EndOfDayResult compute() {
+            if (partitions.size() == 1) {
+                return endOfDayDAO.processPartition(partitions.get(0), rules, batchSize);
+            }
+            int middle = partitions.size() / 2;
+            PartitionTask left = new PartitionTask(new ArrayList<>(partitions.subList(0, middle)), batchSize);
+            PartitionTask right = new PartitionTask(new ArrayList<>(partitions.subList(middle, partitions.size())),
+                    batchSize);
+            left.fork();
+            EndOfDayResult rightResult = right.compute();
+            return merge(left.join(), rightResult);
+        }
+    }
+}
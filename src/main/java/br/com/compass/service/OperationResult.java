@@ -0,0 +1,24 @@
+package br.com.compass.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OperationResult<T> {
+
+    boolean success;
+
+    T value;
+
+    String error;
+
+    public static <T> OperationResult<T> success(T value) {
+        return new OperationResult<>(true, value, null);
+    }
+
+    public static <T> OperationResult<T> failure(String error) {
+        return new OperationResult<>(false, null, error);
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.compass.service;
+
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditEvent;
+import br.com.compass.audit.AuditLog;
+import br.com.compass.db.Database;
+import br.com.compass.db.ShardRing;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.dao.ShardMigrationDAO;
+import br.com.compass.model.entity.PendingTransfer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+@RequiredArgsConstructor
+public class ShardRebalancer {
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final ShardRouter shards;
+    private final ShardMigrationDAO migrationDAO;
+    private final PostingDAO postingDAO;
+    private final AtomicLong moved = new AtomicLong();
+
+    public static boolean isEnabled() {
+        return ShardRouter.isEnabled()
+                && Boolean.parseBoolean(Database.getProperties().getProperty("dbshard.rebalanceOnStartup", "true"));
+    }
+
+    public static Thread startInBackground() {
+        ShardRouter shards = Database.getShardRouter();
+        if (shards.getJoiningShards().isEmpty()) {
+            return null;
+        }
+
+        ShardRebalancer rebalancer = new ShardRebalancer(shards, ShardMigrationDAO.createShardMigrationDAO(),
+                PostingDAO.createPostingDAO());
+        Thread thread = new Thread(() -> {
+            try {
+                long accounts = rebalancer.rebalance();
+                System.err.println("Shard rebalance finished, " + accounts + " accounts moved");
+            }
+            catch (RuntimeException exc) {
+                System.err.println("Shard rebalance failed, restart to resume: " + exc.getMessage());
+            }
+        }, "shard-rebalancer");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    public long rebalance() {
+        if (shards.getJoiningShards().isEmpty()) {
+            return 0;
+        }
+        ShardRing target = shards.getTargetRing();
+        Set<Integer> members = shards.getMembers();
+        long[] scanned = new long[shards.getShardCount()];
+
+        for (int shard : members) {
+            sweep(shard, target, scanned);
+        }
+        shards.exclusively(() -> {
+            for (int shard : members) {
+                sweep(shard, target, scanned);
+            }
+            migrationDAO.join(target.getMembers());
+            shards.activate(target);
+            return null;
+        });
+        return moved.get();
+    }
+
+    public long getMoved() {
+        return moved.get();
+    }
+
+    private void sweep(int shard, ShardRing target, long[] scanned) {
+        while (true) {
+            List<Long> numbers = migrationDAO.getAccountNumbers(shard, scanned[shard], SCAN_BATCH_SIZE);
+            if (numbers.isEmpty()) {
+                return;
+            }
+            for (long number : numbers) {
+                int owner = target.shardFor(number);
+                if (owner != shard) {
+                    moveAccount(number, shard, owner);
+                }
+                scanned[shard] = number;
+            }
+        }
+    }
+
+    private void moveAccount(long number, int source, int owner) {
+        Lock lock = shards.lockForMove(number);
+        lock.lock();
+        try {
+            if (shards.shardOf(number) == source) {
+                for (PendingTransfer transfer : postingDAO.getPendingTransfers(number)) {
+                    postingDAO.deliverTransfer(transfer);
+                }
+                if (!migrationDAO.copyAccount(number, source, owner)) {
+                    return;
+                }
+                migrationDAO.recordMove(number, owner);
+                shards.move(number, owner);
+            }
+            migrationDAO.deleteAccount(source, number);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        moved.incrementAndGet();
+        AuditLog.record(AuditEvent.builder()
+                .action(AuditAction.ACCOUNT_MOVED)
+                .accountNumber(number)
+                .detail(source + "->" + owner)
+                .build());
+    }
+}
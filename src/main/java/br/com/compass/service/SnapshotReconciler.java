@@ -0,0 +1,74 @@
+package br.com.compass.service;
+
+import br.com.compass.db.Database;
+import br.com.compass.model.dao.AccountDAO;
+import br.com.compass.model.dao.BalanceSnapshotDAO;
+import br.com.compass.model.entity.ReconciliationResult;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+@RequiredArgsConstructor
+public class SnapshotReconciler {
+
+    private final AccountDAO accountDAO;
+    private final BalanceSnapshotDAO snapshotDAO;
+    private final ExecutorService executor;
+
+    public static void main(String[] args) {
+        boolean repair = args.length > 0 && args[0].equals("--repair");
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        ExecutorService executor = BankService.newWorkerPool(threads);
+        ReconciliationResult result = new SnapshotReconciler(AccountDAO.createAccountDAO(),
+                BalanceSnapshotDAO.createBalanceSnapshotDAO(), executor)
+                .reconcile(chunkSize, repair);
+        executor.shutdown();
+
+        System.out.println("Accounts checked: " + result.getAccountsChecked()
+                + " (" + Math.round(result.getAccountsPerSecond()) + "/s)");
+        System.out.println("Snapshot rows checked: " + result.getSnapshotRowsChecked());
+        System.out.println("Mismatched accounts: " + result.getMismatchedAccounts().size()
+                + (result.isRepaired() ? " (repaired)" : ""));
+        Database.closeConnection();
+    }
+
+    public ReconciliationResult reconcile(int chunkSize, boolean repair) {
+        long start = System.nanoTime();
+        long[] range = accountDAO.getAccountNumberRange();
+        List<CompletableFuture<ReconciliationResult>> chunks = new ArrayList<>();
+
+        if (range.length == 2) {
+            for (long first = range[0]; first <= range[1]; first += chunkSize) {
+                long chunkFirst = first;
+                long chunkLast = Math.min(range[1], first + chunkSize - 1);
+                chunks.add(CompletableFuture.supplyAsync(
+                        () -> snapshotDAO.reconcileRange(chunkFirst, chunkLast, repair), executor));
+            }
+        }
+
+        long accounts = 0;
+        long rows = 0;
+        boolean repaired = false;
+        List<Long> mismatched = new ArrayList<>();
+        for (CompletableFuture<ReconciliationResult> chunk : chunks) {
+            ReconciliationResult result = chunk.join();
+            accounts += result.getAccountsChecked();
+            rows += result.getSnapshotRowsChecked();
+            repaired |= result.isRepaired();
+            mismatched.addAll(result.getMismatchedAccounts());
+        }
+
+        return ReconciliationResult.builder()
+                .accountsChecked(accounts)
+                .snapshotRowsChecked(rows)
+                .mismatchedAccounts(mismatched)
+                .repaired(repaired)
+                .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.compass.service;
+
+import br.com.compass.db.Database;
+import br.com.compass.db.ShardRouter;
+import br.com.compass.db.exception.DbException;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.entity.PendingTransfer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TransferRelay implements AutoCloseable {
+
+    private static TransferRelay instance = null;
+
+    private final ShardRouter shards;
+    private final PostingDAO postingDAO;
+    private final long retryAfterMs;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public TransferRelay(ShardRouter shards, PostingDAO postingDAO, long intervalMs, long retryAfterMs,
+                         int batchSize) {
+        this.shards = shards;
+        this.postingDAO = postingDAO;
+        this.retryAfterMs = retryAfterMs;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transfer-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static boolean isEnabled() {
+        return ShardRouter.isEnabled();
+    }
+
+    public static synchronized TransferRelay getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new TransferRelay(Database.getShardRouter(), PostingDAO.createPostingDAO(),
+                    Long.parseLong(properties.getProperty("dbshard.relayIntervalMs", "1000")),
+                    Long.parseLong(properties.getProperty("dbshard.relayRetryMs", "5000")),
+                    Integer.parseInt(properties.getProperty("dbshard.relayBatchSize", "100")));
+        }
+        return instance;
+    }
+
+    public int relay() {
+        int delivered = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            try {
+                LocalDateTime before = LocalDateTime.now().minus(retryAfterMs, ChronoUnit.MILLIS);
+                for (PendingTransfer transfer : postingDAO.getPendingTransfers(shard, before, batchSize)) {
+                    postingDAO.deliverTransfer(transfer);
+                    relayed.increment();
+                    delivered++;
+                }
+            }
+            catch (DbException exc) {
+                failures.increment();
+                System.err.println("Transfer relay failed on shard " + shard + ": " + exc.getMessage());
+            }
+        }
+        return delivered;
+    }
+
+    public long getRelayed() {
+        return relayed.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
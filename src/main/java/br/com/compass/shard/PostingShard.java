@@ -0,0 +1,384 @@
+package br.com.compass.shard;
+
+import br.com.compass.db.exception.DbException;
+import br.com.compass.metrics.LatencyHistogram;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.entity.AccountBalance;
+import br.com.compass.model.entity.BatchCommit;
+import br.com.compass.model.entity.IdempotentOutcome;
+import br.com.compass.model.entity.Transaction;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.PostingException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+class PostingShard {
+
+    private static final int MAX_RELOADS = 8;
+
+    private final PostingDAO postingDAO;
+    private final int batchSize;
+    private final long accountTtlNanos;
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, HotAccount> accounts;
+    private final List<PendingPosting> pending = new ArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private volatile int hotAccounts;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong postings = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final LatencyHistogram commitLatency = new LatencyHistogram();
+
+    PostingShard(int index, PostingDAO postingDAO, int batchSize, int maxAccounts, long accountTtlMs) {
+        this.postingDAO = postingDAO;
+        this.batchSize = batchSize;
+        this.accountTtlNanos = TimeUnit.MILLISECONDS.toNanos(accountTtlMs);
+        int capacity = Math.max(maxAccounts, 2 * batchSize);
+        this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, HotAccount> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        thread = new Thread(this::run, "posting-shard-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    CompletableFuture<AccountBalance> account(Long number) {
+        CompletableFuture<AccountBalance> result = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                load(Set.of(number));
+                HotAccount account = accounts.get(number);
+                result.complete(account == null ? null : account.snapshot(number));
+            }
+            catch (RuntimeException exc) {
+                result.completeExceptionally(exc);
+            }
+        });
+        return result;
+    }
+
+    CompletableFuture<IdempotentOutcome> post(String idempotencyKey, TransactionType type, Long originNumber,
+                                              Long targetNumber, BigDecimal value, PostingShard targetShard,
+                                              AtomicBoolean posted) {
+        PendingPosting posting = new PendingPosting(idempotencyKey, type, originNumber, targetNumber, value,
+                targetShard, posted);
+        execute(() -> pending.add(posting));
+        return posting.result;
+    }
+
+    long getHotAccounts() {
+        return hotAccounts;
+    }
+
+    long getQueued() {
+        return queue.size();
+    }
+
+    long getBatches() {
+        return batches.get();
+    }
+
+    long getPostings() {
+        return postings.get();
+    }
+
+    long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    LatencyHistogram getCommitLatency() {
+        return commitLatency;
+    }
+
+    void close() {
+        running = false;
+        try {
+            thread.join();
+        }
+        catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void credit(Long number, BigDecimal value) {
+        execute(() -> {
+            HotAccount account = accounts.get(number);
+            if (account != null) {
+                account.balance = account.balance.add(value);
+            }
+        });
+    }
+
+    private void execute(Runnable task) {
+        if (!running) {
+            throw new IllegalStateException("The posting shard is closed");
+        }
+        queue.add(task);
+    }
+
+    private void run() {
+        List<Runnable> tasks = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Runnable first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                tasks.add(first);
+                queue.drainTo(tasks, batchSize - 1);
+                tasks.forEach(Runnable::run);
+                tasks.clear();
+                if (!pending.isEmpty()) {
+                    flush();
+                }
+            }
+            catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush() {
+        List<PendingPosting> batch = new ArrayList<>(pending);
+        pending.clear();
+        long start = System.nanoTime();
+
+        try {
+            Set<Long> numbers = new HashSet<>();
+            for (PendingPosting posting : batch) {
+                numbers.add(posting.originNumber);
+                if (posting.targetShard == this) {
+                    numbers.add(posting.targetNumber);
+                }
+            }
+            load(numbers);
+
+            Map<String, IdempotentOutcome> previous = new HashMap<>();
+            int reloads = 0;
+            while (true) {
+                AppliedBatch applied = apply(batch, previous);
+                if (applied.transactions.isEmpty()) {
+                    complete(applied);
+                    return;
+                }
+                BatchCommit commit = postingDAO.commitPostings(applied.deltas, applied.transactions, applied.keyed);
+                if (commit.isCommitted()) {
+                    complete(applied);
+                    batches.incrementAndGet();
+                    postings.addAndGet(applied.transactions.size());
+                    commitLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    return;
+                }
+                previous.putAll(commit.getConflicts());
+                if (!commit.getUncovered().isEmpty()) {
+                    if (++reloads > MAX_RELOADS) {
+                        throw new DbException("The balances of " + commit.getUncovered()
+                                + " kept changing outside the posting shard", null);
+                    }
+                    reload(commit.getUncovered());
+                }
+            }
+        }
+        catch (RuntimeException exc) {
+            failedBatches.incrementAndGet();
+            batch.forEach(posting -> posting.result.completeExceptionally(exc));
+        }
+    }
+
+    private AppliedBatch apply(List<PendingPosting> batch, Map<String, IdempotentOutcome> previous) {
+        AppliedBatch applied = new AppliedBatch();
+
+        for (PendingPosting posting : batch) {
+            if (posting.idempotencyKey != null && previous.containsKey(posting.idempotencyKey)) {
+                applied.outcomes.put(posting, previous.get(posting.idempotencyKey));
+                continue;
+            }
+            String rejection = validate(posting, applied.balances);
+            if (rejection != null) {
+                applied.outcomes.put(posting, new PostingException(rejection));
+                continue;
+            }
+
+            switch (posting.type) {
+                case DEPOSIT -> applied.add(posting.originNumber, posting.value, true);
+                case WITHDRAWAL -> applied.add(posting.originNumber, posting.value.negate(), true);
+                case TRANSFER -> {
+                    applied.add(posting.originNumber, posting.value.negate(), true);
+                    applied.add(posting.targetNumber, posting.value, posting.targetShard == this);
+                }
+            }
+            applied.transactions.add(Transaction.builder()
+                    .type(posting.type)
+                    .value(posting.value)
+                    .transactionDate(LocalDate.now())
+                    .originAccountNumber(posting.originNumber)
+                    .transferAccountNumber(posting.targetNumber)
+                    .build());
+
+            IdempotentOutcome outcome = IdempotentOutcome.builder()
+                    .key(posting.idempotencyKey)
+                    .type(posting.type)
+                    .accountNumber(posting.originNumber)
+                    .transferAccountNumber(posting.targetNumber)
+                    .value(posting.value)
+                    .balance(applied.balances.get(posting.originNumber))
+                    .build();
+            applied.outcomes.put(posting, outcome);
+            applied.accepted.add(posting);
+            if (posting.idempotencyKey != null) {
+                applied.keyed.add(outcome);
+            }
+        }
+        return applied;
+    }
+
+    private String validate(PendingPosting posting, Map<Long, BigDecimal> balances) {
+        HotAccount origin = accounts.get(posting.originNumber);
+        if (origin == null) {
+            return "Account " + posting.originNumber + " doesn't exist!";
+        }
+        if (posting.type == TransactionType.TRANSFER && posting.targetShard == this) {
+            HotAccount target = accounts.get(posting.targetNumber);
+            if (target == null || !target.active) {
+                return "The target account is inactive or doesn't exist!";
+            }
+        }
+
+        BigDecimal balance = balances.getOrDefault(posting.originNumber, origin.balance);
+        if (posting.type == TransactionType.WITHDRAWAL && balance.compareTo(posting.value) < 0) {
+            return "The value is higher than the account balance!";
+        }
+        if (posting.type == TransactionType.TRANSFER && balance.compareTo(posting.value) < 0) {
+            return "The value is higher than your account balance!";
+        }
+        return null;
+    }
+
+    private void complete(AppliedBatch applied) {
+        applied.balances.forEach((number, balance) -> {
+            HotAccount account = accounts.get(number);
+            if (account != null) {
+                account.balance = balance;
+            }
+        });
+
+        applied.outcomes.forEach((posting, outcome) -> {
+            if (outcome instanceof IdempotentOutcome committed) {
+                if (applied.accepted.contains(posting)) {
+                    posting.posted.set(true);
+                    if (posting.type == TransactionType.TRANSFER && posting.targetShard != this) {
+                        posting.targetShard.credit(posting.targetNumber, posting.value);
+                    }
+                }
+                posting.result.complete(committed);
+            } else {
+                posting.result.completeExceptionally((RuntimeException) outcome);
+            }
+        });
+    }
+
+    private void load(Set<Long> numbers) {
+        Set<Long> missing = new HashSet<>();
+        long now = System.nanoTime();
+        for (Long number : numbers) {
+            HotAccount account = accounts.get(number);
+            if (account == null || now - account.loadedAt > accountTtlNanos) {
+                missing.add(number);
+            }
+        }
+        if (!missing.isEmpty()) {
+            reload(missing);
+        }
+    }
+
+    private void reload(Set<Long> numbers) {
+        Map<Long, AccountBalance> balances = postingDAO.getBalances(numbers);
+        long now = System.nanoTime();
+        for (Long number : numbers) {
+            AccountBalance balance = balances.get(number);
+            if (balance == null) {
+                accounts.remove(number);
+            } else {
+                accounts.put(number, new HotAccount(balance.getBalance(), balance.isActive(), now));
+            }
+        }
+        hotAccounts = accounts.size();
+    }
+
+    private class AppliedBatch {
+        private final Map<Long, BigDecimal> balances = new HashMap<>();
+        private final Map<Long, BigDecimal> deltas = new TreeMap<>();
+        private final List<Transaction> transactions = new ArrayList<>();
+        private final List<IdempotentOutcome> keyed = new ArrayList<>();
+        private final Map<PendingPosting, Object> outcomes = new HashMap<>();
+        private final Set<PendingPosting> accepted = new HashSet<>();
+
+        private void add(Long number, BigDecimal delta, boolean owned) {
+            deltas.merge(number, delta, BigDecimal::add);
+            if (owned) {
+                balances.put(number, balances.getOrDefault(number, accounts.get(number).balance).add(delta));
+            }
+        }
+    }
+
+    private static class HotAccount {
+        private BigDecimal balance;
+        private final boolean active;
+        private final long loadedAt;
+
+        private HotAccount(BigDecimal balance, boolean active, long loadedAt) {
+            this.balance = balance;
+            this.active = active;
+            this.loadedAt = loadedAt;
+        }
+
+        private AccountBalance snapshot(Long number) {
+            return AccountBalance.builder().number(number).balance(balance).active(active).build();
+        }
+    }
+
+    private static class PendingPosting {
+        private final String idempotencyKey;
+        private final TransactionType type;
+        private final Long originNumber;
+        private final Long targetNumber;
+        private final BigDecimal value;
+        private final PostingShard targetShard;
+        private final AtomicBoolean posted;
+        private final CompletableFuture<IdempotentOutcome> result = new CompletableFuture<>();
+
+        private PendingPosting(String idempotencyKey, TransactionType type, Long originNumber, Long targetNumber,
+                               BigDecimal value, PostingShard targetShard, AtomicBoolean posted) {
+            this.idempotencyKey = idempotencyKey;
+            this.type = type;
+            this.originNumber = originNumber;
+            this.targetNumber = targetNumber;
+            this.value = value;
+            this.targetShard = targetShard;
+            this.posted = posted;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package br.com.compass.shard;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Builder
+@Value
+public class ShardStats {
+
+    int shards;
+
+    long hotAccounts;
+
+    long queued;
+
+    long batches;
+
+    long postings;
+
+    double postingsPerBatch;
+
+    long commitP50Micros;
+
+    long commitP99Micros;
+
+    long failedBatches;
+}
@@ -0,0 +1,160 @@
+package br.com.compass.shard;
+
+import br.com.compass.audit.AuditAction;
+import br.com.compass.audit.AuditLog;
+import br.com.compass.db.Database;
+import br.com.compass.model.cache.IdempotencyCache;
+import br.com.compass.model.dao.PostingDAO;
+import br.com.compass.model.entity.AccountBalance;
+import br.com.compass.model.entity.IdempotentOutcome;
+import br.com.compass.model.enums.TransactionType;
+import br.com.compass.model.exception.PostingException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class ShardedPostingEngine implements AutoCloseable {
+
+    private static ShardedPostingEngine instance = null;
+
+    private final PostingShard[] shards;
+    private final IdempotencyCache idempotencyCache;
+
+    public ShardedPostingEngine(PostingDAO postingDAO, IdempotencyCache idempotencyCache, int shardCount,
+                                int batchSize, int maxHotAccounts, long hotAccountTtlMs) {
+        if (shardCount < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Shard count and batch size must be positive");
+        }
+        this.idempotencyCache = idempotencyCache;
+        this.shards = new PostingShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new PostingShard(i, postingDAO, batchSize, maxHotAccounts, hotAccountTtlMs);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Database.getProperties().getProperty("shard.enabled", "false"));
+    }
+
+    public static synchronized ShardedPostingEngine getInstance() {
+        if (instance == null) {
+            Properties properties = Database.getProperties();
+            instance = new ShardedPostingEngine(PostingDAO.createPostingDAO(), IdempotencyCache.getInstance(),
+                    Integer.parseInt(properties.getProperty("shard.count", "8")),
+                    Integer.parseInt(properties.getProperty("shard.batchSize", "256")),
+                    Integer.parseInt(properties.getProperty("shard.maxHotAccounts", "100000")),
+                    Long.parseLong(properties.getProperty("shard.hotAccountTtlMs", "1000")));
+        }
+        return instance;
+    }
+
+    public BigDecimal deposit(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        PostingShard shard = shardFor(accountNumber);
+        AtomicBoolean posted = new AtomicBoolean();
+        return post(idempotencyKey, TransactionType.DEPOSIT, accountNumber, null, value,
+                () -> shard.post(idempotencyKey, TransactionType.DEPOSIT, accountNumber, null, value, null, posted));
+    }
+
+    public BigDecimal withdraw(String idempotencyKey, Long accountNumber, BigDecimal value) {
+        return withdraw(idempotencyKey, accountNumber, value, new AtomicBoolean());
+    }
+
+    public BigDecimal withdraw(String idempotencyKey, Long accountNumber, BigDecimal value, AtomicBoolean posted) {
+        PostingShard shard = shardFor(accountNumber);
+        return post(idempotencyKey, TransactionType.WITHDRAWAL, accountNumber, null, value,
+                () -> shard.post(idempotencyKey, TransactionType.WITHDRAWAL, accountNumber, null, value, null,
+                        posted));
+    }
+
+    public BigDecimal transfer(String idempotencyKey, Long originNumber, Long targetNumber, BigDecimal value) {
+        return transfer(idempotencyKey, originNumber, targetNumber, value, new AtomicBoolean());
+    }
+
+    public BigDecimal transfer(String idempotencyKey, Long originNumber, Long targetNumber, BigDecimal value,
+                               AtomicBoolean posted) {
+        if (originNumber.equals(targetNumber)) {
+            throw new PostingException("The target account can't be the same as the origin account!");
+        }
+
+        PostingShard originShard = shardFor(originNumber);
+        PostingShard targetShard = shardFor(targetNumber);
+        return post(idempotencyKey, TransactionType.TRANSFER, originNumber, targetNumber, value, () -> {
+            AccountBalance target = await(targetShard.account(targetNumber));
+            if (target == null || !target.isActive()) {
+                throw new PostingException("The target account is inactive or doesn't exist!");
+            }
+            return originShard.post(idempotencyKey, TransactionType.TRANSFER, originNumber, targetNumber, value,
+                    targetShard, posted);
+        });
+    }
+
+    public ShardStats getStats() {
+        long batches = 0;
+        long postings = 0;
+        long p50 = 0;
+        long p99 = 0;
+        for (PostingShard shard : shards) {
+            batches += shard.getBatches();
+            postings += shard.getPostings();
+            p50 = Math.max(p50, shard.getCommitLatency().getPercentile(50));
+            p99 = Math.max(p99, shard.getCommitLatency().getPercentile(99));
+        }
+
+        return ShardStats.builder()
+                .shards(shards.length)
+                .hotAccounts(Arrays.stream(shards).mapToLong(PostingShard::getHotAccounts).sum())
+                .queued(Arrays.stream(shards).mapToLong(PostingShard::getQueued).sum())
+                .batches(batches)
+                .postings(postings)
+                .postingsPerBatch(batches == 0 ? 0 : (double) postings / batches)
+                .commitP50Micros(p50)
+                .commitP99Micros(p99)
+                .failedBatches(Arrays.stream(shards).mapToLong(PostingShard::getFailedBatches).sum())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        for (PostingShard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private BigDecimal post(String idempotencyKey, TransactionType type, Long originNumber, Long targetNumber,
+                            BigDecimal value, Supplier<CompletableFuture<IdempotentOutcome>> submit) {
+        IdempotentOutcome outcome;
+        if (idempotencyKey == null) {
+            outcome = await(submit.get());
+        } else {
+            PostingDAO.checkIdempotencyKey(idempotencyKey);
+            outcome = idempotencyCache.execute(idempotencyKey, () -> await(submit.get()));
+            if (!outcome.matches(type, originNumber, targetNumber, value)) {
+                throw new PostingException("The idempotency key was already used for a different operation!");
+            }
+        }
+        AuditLog.posting(AuditAction.valueOf(type.name()), idempotencyKey, originNumber, targetNumber, value,
+                outcome.getBalance());
+        return outcome.getBalance();
+    }
+
+    private PostingShard shardFor(Long accountNumber) {
+        return shards[(int) Math.floorMod(accountNumber, (long) shards.length)];
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exc;
+        }
+    }
+}
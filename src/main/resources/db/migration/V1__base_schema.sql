@@ -0,0 +1,35 @@
+DO $$
+BEGIN
+	IF NOT EXISTS (SELECT 1 FROM pg_type WHERE typname = 'account_type') THEN
+		CREATE TYPE account_type AS ENUM('CHECKING', 'SAVINGS', 'SALARY', 'BUSINESS', 'STUDENT', 'INVESTMENT');
+	END IF;
+	IF NOT EXISTS (SELECT 1 FROM pg_type WHERE typname = 'transaction_type') THEN
+		CREATE TYPE transaction_type AS ENUM('DEPOSIT', 'WITHDRAWAL', 'TRANSFER');
+	END IF;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS tb_account (
+	number serial PRIMARY KEY,
+	type account_type NOT NULL,
+	balance numeric(20, 2),
+	opening_date date,
+	holder varchar(40) NOT NULL,
+	holder_phone varchar(11) NOT NULL,
+	holder_birthdate date NOT NULL,
+	holder_cpf varchar(11) NOT NULL,
+	password varchar(128) NOT NULL,
+	active boolean
+);
+
+ALTER TABLE tb_account ALTER COLUMN password TYPE varchar(128);
+
+CREATE TABLE IF NOT EXISTS tb_balance_snapshot (
+	account_number integer NOT NULL,
+	snapshot_date date NOT NULL,
+	net_change numeric(20, 2) NOT NULL,
+	closing_balance numeric(20, 2) NOT NULL,
+
+	PRIMARY KEY (account_number, snapshot_date),
+	CONSTRAINT fk_snapshot_account FOREIGN KEY (account_number) references tb_account(number)
+);
@@ -0,0 +1,50 @@
+CREATE SEQUENCE IF NOT EXISTS tb_transaction_id_seq AS integer;
+
+DO $$
+DECLARE
+	legacy boolean := to_regclass('public.tb_transaction') IS NOT NULL
+		AND NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('public.tb_transaction'));
+	partitioned boolean := EXISTS (SELECT 1 FROM pg_partitioned_table
+		WHERE partrelid = to_regclass('public.tb_transaction'));
+BEGIN
+	IF partitioned THEN
+		RETURN;
+	END IF;
+
+	IF legacy THEN
+		ALTER TABLE tb_transaction RENAME TO tb_transaction_legacy;
+		ALTER INDEX IF EXISTS tb_transaction_pkey RENAME TO tb_transaction_legacy_pkey;
+		UPDATE tb_transaction_legacy SET transaction_date = DATE '1970-01-01' WHERE transaction_date IS NULL;
+		ALTER TABLE tb_transaction_legacy ALTER COLUMN transaction_date SET NOT NULL;
+		ALTER TABLE tb_transaction_legacy ALTER COLUMN transfer_account DROP DEFAULT;
+		ALTER TABLE tb_transaction_legacy ALTER COLUMN transfer_account DROP NOT NULL;
+		ALTER TABLE tb_transaction_legacy ALTER COLUMN origin_account DROP DEFAULT;
+		ALTER TABLE tb_transaction_legacy ALTER COLUMN id DROP DEFAULT;
+		ALTER SEQUENCE tb_transaction_id_seq OWNED BY NONE;
+		DROP SEQUENCE IF EXISTS tb_transaction_transfer_account_seq;
+		DROP SEQUENCE IF EXISTS tb_transaction_origin_account_seq;
+	END IF;
+
+	CREATE TABLE tb_transaction (
+		id integer NOT NULL DEFAULT nextval('tb_transaction_id_seq'),
+		type transaction_type NOT NULL,
+		value numeric(20, 2) NOT NULL,
+		transaction_date date NOT NULL,
+		transfer_account integer,
+		origin_account integer NOT NULL,
+
+		PRIMARY KEY (id, transaction_date),
+		CONSTRAINT fk_account FOREIGN KEY (origin_account) references tb_account(number),
+		CONSTRAINT fk_account_transfer FOREIGN KEY (transfer_account) references tb_account(number)
+	) PARTITION BY RANGE (transaction_date);
+
+	ALTER SEQUENCE tb_transaction_id_seq OWNED BY tb_transaction.id;
+
+	IF legacy THEN
+		PERFORM setval('tb_transaction_id_seq', GREATEST((SELECT max(id) FROM tb_transaction_legacy), 1));
+		ALTER TABLE tb_transaction ATTACH PARTITION tb_transaction_legacy DEFAULT;
+	ELSE
+		CREATE TABLE tb_transaction_default PARTITION OF tb_transaction DEFAULT;
+	END IF;
+END
+$$;
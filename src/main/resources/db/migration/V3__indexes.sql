@@ -0,0 +1,8 @@
+CREATE INDEX IF NOT EXISTS ix_transaction_origin_id ON tb_transaction (origin_account, id);
+
+CREATE INDEX IF NOT EXISTS ix_transaction_transfer_id ON tb_transaction (transfer_account, id)
+	WHERE transfer_account IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS ix_transaction_origin_date ON tb_transaction (origin_account, transaction_date);
+
+CREATE INDEX IF NOT EXISTS ix_account_cpf_type ON tb_account (holder_cpf, type);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS tb_eod_checkpoint (
+	run_date date NOT NULL,
+	partition_first integer NOT NULL,
+	partition_last integer NOT NULL,
+	last_number integer NOT NULL,
+	accounts integer NOT NULL,
+	completed boolean NOT NULL,
+
+	PRIMARY KEY (run_date, partition_first)
+);
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS tb_journal_offset (
+	journal_id varchar(64) PRIMARY KEY,
+	last_sequence bigint NOT NULL
+);
@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS tb_ledger_entry (
+	id bigserial NOT NULL,
+	transaction_id integer NOT NULL,
+	type transaction_type NOT NULL,
+	account_number integer NOT NULL,
+	counterparty integer,
+	amount numeric(20, 2) NOT NULL,
+	entry_date date NOT NULL,
+
+	PRIMARY KEY (id, entry_date)
+) PARTITION BY RANGE (entry_date);
+
+CREATE TABLE IF NOT EXISTS tb_ledger_entry_default PARTITION OF tb_ledger_entry DEFAULT;
+
+INSERT INTO tb_ledger_entry (transaction_id, type, account_number, counterparty, amount, entry_date)
+SELECT t.id, t.type, e.account_number, e.counterparty, e.amount, t.transaction_date
+FROM tb_transaction t
+CROSS JOIN LATERAL (VALUES
+	(t.origin_account,
+		CASE WHEN t.type = 'TRANSFER' THEN t.transfer_account END,
+		CASE WHEN t.type = 'DEPOSIT' THEN t.value ELSE -t.value END),
+	(CASE WHEN t.type = 'TRANSFER' THEN t.transfer_account ELSE 0 END,
+		t.origin_account,
+		CASE WHEN t.type = 'DEPOSIT' THEN -t.value ELSE t.value END)
+) AS e(account_number, counterparty, amount)
+ORDER BY t.id;
+
+CREATE INDEX IF NOT EXISTS ix_ledger_account_id ON tb_ledger_entry (account_number, id);
+
+CREATE INDEX IF NOT EXISTS ix_ledger_account_date ON tb_ledger_entry (account_number, entry_date);
+
+CREATE INDEX IF NOT EXISTS ix_ledger_transaction ON tb_ledger_entry (transaction_id);
@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS tb_idempotency_key (
+	idempotency_key varchar(64) PRIMARY KEY,
+	type transaction_type NOT NULL,
+	account_number integer NOT NULL,
+	transfer_account integer,
+	value numeric(20, 2) NOT NULL,
+	result_balance numeric(20, 2),
+	created_at timestamp NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ix_idempotency_created ON tb_idempotency_key (created_at);
@@ -0,0 +1,37 @@
+ALTER TABLE tb_transaction DROP CONSTRAINT IF EXISTS fk_account;
+
+ALTER TABLE tb_transaction DROP CONSTRAINT IF EXISTS fk_account_transfer;
+
+CREATE TABLE IF NOT EXISTS tb_transfer_outbox (
+	transfer_id uuid PRIMARY KEY,
+	origin_account integer NOT NULL,
+	target_account integer NOT NULL,
+	value numeric(20, 2) NOT NULL,
+	transaction_date date NOT NULL,
+	created_at timestamp NOT NULL DEFAULT now(),
+	delivered_at timestamp,
+	refunded boolean NOT NULL DEFAULT false
+);
+
+CREATE INDEX IF NOT EXISTS ix_outbox_pending ON tb_transfer_outbox (created_at) WHERE delivered_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS ix_outbox_origin ON tb_transfer_outbox (origin_account);
+
+CREATE TABLE IF NOT EXISTS tb_transfer_inbox (
+	transfer_id uuid PRIMARY KEY,
+	target_account integer NOT NULL,
+	credited boolean NOT NULL,
+	received_at timestamp NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS ix_inbox_target ON tb_transfer_inbox (target_account);
+
+CREATE TABLE IF NOT EXISTS tb_shard_member (
+	shard_index integer PRIMARY KEY,
+	joined_at timestamp NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS tb_shard_move (
+	account_number integer PRIMARY KEY,
+	shard_index integer NOT NULL
+);
@@ -0,0 +1,3 @@
+ALTER TABLE tb_transaction ADD COLUMN IF NOT EXISTS created_at timestamp;
+
+ALTER TABLE tb_transaction ALTER COLUMN created_at SET DEFAULT now();